@@ -0,0 +1,80 @@
+package com.par.tool;
+
+import com.par.tool.operators.ArithmeticOperator;
+import com.par.tool.operators.CompareOperator;
+import com.par.tool.operators.IfNegationOperator;
+import com.par.tool.operators.PatternBasedOperator;
+import com.par.tool.operators.SmallIntTweakerOperator;
+import com.par.tool.operators.StatementDeleteOperator;
+import com.par.tool.operators.StatementDuplicateOperator;
+import com.par.tool.operators.StatementSwapOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CandidateGenerator#generateCandidates} end to end with the runner's operator set, including the Python-backed
+ * fix patterns and crossover fill-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CandidateGeneratorBenchmark {
+    @Param({"100", "1000"})
+    public int lines;
+
+    @Param({"600"})
+    public int limit;
+
+    @Param({"false", "true"})
+    public boolean withBandit;
+
+    private String source;
+    private CandidateGenerator generator;
+    private FaultDatabase faultDatabase;
+    private FixDatabase fixDatabase;
+
+    @Setup
+    public void setUp() {
+        source = SyntheticSources.python(lines, 7);
+        faultDatabase = new FaultDatabase();
+        fixDatabase = new FixDatabase();
+        List<MutationOperator> operators = List.of(
+                new StatementDuplicateOperator(),
+                new StatementDeleteOperator(),
+                new StatementSwapOperator(),
+                new ArithmeticOperator(),
+                new CompareOperator(),
+                new IfNegationOperator(),
+                new SmallIntTweakerOperator(),
+                new PatternBasedOperator(new PatternMatcher(faultDatabase, fixDatabase)));
+        OperatorBandit bandit = null;
+        if (withBandit) {
+            bandit = new OperatorBandit();
+            bandit.record("ArithmeticOperator", 0.9);
+            bandit.record("StatementDeleteOperator", 0.1);
+        }
+        generator = new CandidateGenerator(operators, bandit);
+    }
+
+    @Benchmark
+    public List<Patch> generateCandidates() {
+        MutationContext context = new MutationContext(new Random(1337), faultDatabase, fixDatabase);
+        return generator.generateCandidates(source, context, limit);
+    }
+}
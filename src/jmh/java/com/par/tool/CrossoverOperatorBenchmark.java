@@ -0,0 +1,65 @@
+package com.par.tool;
+
+import com.par.tool.operators.ArithmeticOperator;
+import com.par.tool.operators.SmallIntTweakerOperator;
+import com.par.tool.operators.StatementDeleteOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CrossoverOperator#apply} as the number of parent candidates grows; every pair needs two line diffs, so this
+ * tracks the cost of the Myers diff as much as the merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrossoverOperatorBenchmark {
+    @Param({"10", "50", "200"})
+    public int seeds;
+
+    @Param({"1000"})
+    public int lines;
+
+    @Param({"100"})
+    public int limit;
+
+    private String source;
+    private List<Patch> parents;
+
+    @Setup
+    public void setUp() {
+        source = SyntheticSources.python(lines, 11);
+        MutationContext context = new MutationContext(new Random(11), new FaultDatabase(), new FixDatabase());
+        List<Patch> pool = new ArrayList<>();
+        pool.addAll(new ArithmeticOperator().generate(source, context, seeds));
+        pool.addAll(new SmallIntTweakerOperator().generate(source, context, seeds));
+        pool.addAll(new StatementDeleteOperator().generate(source, context, seeds));
+        parents = new ArrayList<>();
+        // Interleave operators so parents touch different lines, as they do in a real pool.
+        for (int i = 0; parents.size() < seeds && i < pool.size(); i++) {
+            parents.add(pool.get((i * 7) % pool.size()));
+        }
+    }
+
+    @Benchmark
+    public List<Patch> apply() {
+        return CrossoverOperator.apply(source, parents, limit, new Random(5));
+    }
+}
@@ -0,0 +1,70 @@
+package com.par.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileUtils#computeDiff} for a candidate with one changed, one deleted and one inserted line, next to the
+ * {@link LineDiff} edit script the crossover and remote deltas are built from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int lines;
+
+    private String original;
+    private String mutated;
+    private String[] originalLines;
+    private String[] mutatedLines;
+
+    @Setup
+    public void setUp() {
+        original = SyntheticSources.python(lines, 13);
+        String[] copy = original.split("\n", -1);
+        copy[lines / 4] = copy[lines / 4] + "  # changed";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < copy.length; i++) {
+            if (i == lines / 2) {
+                continue;
+            }
+            if (i == 3 * lines / 4) {
+                sb.append("    inserted = 1\n");
+            }
+            sb.append(copy[i]);
+            if (i < copy.length - 1) {
+                sb.append('\n');
+            }
+        }
+        mutated = sb.toString();
+        originalLines = original.split("\n", -1);
+        mutatedLines = mutated.split("\n", -1);
+    }
+
+    @Benchmark
+    public String computeDiff() {
+        return FileUtils.computeDiff(original, mutated, Path.of("a.py"), Path.of("b.py"));
+    }
+
+    @Benchmark
+    public List<LineDiff.Edit> lineDiff() {
+        return LineDiff.diff(originalLines, mutatedLines);
+    }
+}
@@ -0,0 +1,86 @@
+package com.par.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candidates per second through {@link CandidateEvaluator} and {@link SearchState} when the tests themselves cost
+ * nothing, which isolates scheduling, slot hand-off, listener dispatch and best tracking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluatorThroughputBenchmark {
+    private static final int CANDIDATES = 20_000;
+
+    @Param({"1", "8", "64"})
+    public int slots;
+
+    @Param({"fix=0", "fix=0,latency=exp:0.05"})
+    public String simulation;
+
+    private Config config;
+    private List<Patch> candidates;
+    private PrintStream console;
+    private Path tempDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tempDir = Files.createTempDirectory("par_bench_");
+        Path target = tempDir.resolve("module.py");
+        Files.writeString(target, "x = 1\n");
+        config = Config.parse(new String[]{"--target", target.toString(), "--tests", "true",
+                "--budget", Integer.toString(CANDIDATES)});
+        candidates = new ArrayList<>(CANDIDATES);
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates.add(new Patch("x = " + i + "\n", "candidate " + i));
+        }
+        // Per-attempt progress lines would measure the console instead of the scheduler.
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(console);
+        FileUtils.deleteRecursive(tempDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public List<Evaluation> evaluateAll() throws Exception {
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse(simulation, 1);
+        BlockingQueue<TestSlot> idle = new ArrayBlockingQueue<>(slots);
+        for (int i = 0; i < slots; i++) {
+            idle.add(executor.slot(5));
+        }
+        SearchState state = new SearchState(Score.evaluate(executor.run("baseline", null, 5)));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config, idle, state, patched -> "");
+        return evaluator.evaluateAll(candidates);
+    }
+}
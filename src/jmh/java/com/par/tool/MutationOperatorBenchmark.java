@@ -0,0 +1,68 @@
+package com.par.tool;
+
+import com.par.tool.operators.ArithmeticOperator;
+import com.par.tool.operators.CompareOperator;
+import com.par.tool.operators.IfNegationOperator;
+import com.par.tool.operators.SmallIntTweakerOperator;
+import com.par.tool.operators.StatementDeleteOperator;
+import com.par.tool.operators.StatementDuplicateOperator;
+import com.par.tool.operators.StatementSwapOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MutationOperator#generate} for each purely textual operator. {@code PatternBasedOperator} calls out to Python
+ * and is covered by {@link CandidateGeneratorBenchmark} and {@link PythonAstServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MutationOperatorBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int lines;
+
+    @Param({"StatementDuplicateOperator", "StatementDeleteOperator", "StatementSwapOperator", "ArithmeticOperator",
+            "CompareOperator", "IfNegationOperator", "SmallIntTweakerOperator"})
+    public String operatorName;
+
+    @Param({"200"})
+    public int limit;
+
+    private String source;
+    private MutationOperator operator;
+    private MutationContext context;
+
+    @Setup
+    public void setUp() {
+        source = SyntheticSources.python(lines, 42);
+        context = new MutationContext(new Random(42), new FaultDatabase(), new FixDatabase());
+        for (MutationOperator candidate : List.of(new StatementDuplicateOperator(), new StatementDeleteOperator(),
+                new StatementSwapOperator(), new ArithmeticOperator(), new CompareOperator(), new IfNegationOperator(),
+                new SmallIntTweakerOperator())) {
+            if (candidate.name().equals(operatorName)) {
+                operator = candidate;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Patch> generate() {
+        return operator.generate(source, context, limit);
+    }
+}
@@ -0,0 +1,60 @@
+package com.par.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips to Python: a batch through the resident helper against the one-process-per-call path the fault
+ * detectors still use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PythonAstServiceBenchmark {
+    @Param({"100", "1000"})
+    public int lines;
+
+    @Param({"1", "64"})
+    public int batch;
+
+    private String source;
+    private List<String> sources;
+
+    @Setup
+    public void setUp() {
+        source = SyntheticSources.python(lines, 17);
+        sources = new ArrayList<>();
+        for (int i = 0; i < batch; i++) {
+            sources.add(SyntheticSources.python(lines, 17 + i));
+        }
+        if (PythonAstService.inspect(sources) == null) {
+            throw new IllegalStateException("The resident Python helper is not available");
+        }
+    }
+
+    @Benchmark
+    public List<PythonAstService.SourceCheck> residentInspect() {
+        return PythonAstService.inspect(sources);
+    }
+
+    @Benchmark
+    public int subprocessFaultCount() {
+        return PythonAstService.countFaultOccurrences(source, "null_dereference");
+    }
+}
@@ -0,0 +1,41 @@
+package com.par.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Score#evaluate} on verbose pytest output of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreBenchmark {
+    @Param({"100", "10000", "100000"})
+    public int tests;
+
+    private TestRunResult run;
+
+    @Setup
+    public void setUp() {
+        run = new TestRunResult(1, SyntheticSources.pytestOutput(tests, 3), "");
+    }
+
+    @Benchmark
+    public Score.ScoreResult evaluate() {
+        return Score.evaluate(run);
+    }
+}
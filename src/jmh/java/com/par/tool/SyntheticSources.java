@@ -0,0 +1,60 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic, syntactically valid Python modules and pytest outputs of a requested size for the benchmarks. The
+ * code mixes the constructs the mutation operators and fix patterns look for: arithmetic, comparisons, {@code if}
+ * headers, small integer literals, {@code None} checks, indexing and attribute calls.
+ */
+final class SyntheticSources {
+    private SyntheticSources() {}
+
+    static String python(int lines, long seed) {
+        Random random = new Random(seed);
+        List<String> out = new ArrayList<>(lines + 8);
+        int function = 0;
+        while (out.size() < lines) {
+            String name = "f" + function++;
+            out.add("def " + name + "(items, idx, value, factor):");
+            out.add("    total = 0");
+            out.add("    if value == None:");
+            out.add("        return " + random.nextInt(3));
+            out.add("    for item in items:");
+            out.add("        total = total + item * factor - " + random.nextInt(4));
+            out.add("        if total > " + random.nextInt(100) + ":");
+            out.add("            total = total // 2");
+            out.add("    result = items[idx] % " + (1 + random.nextInt(3)));
+            out.add("    value.update(result)");
+            out.add("    return total / (result + 1)");
+            out.add("");
+        }
+        return String.join("\n", out.subList(0, lines)) + "\n";
+    }
+
+    /**
+     * Verbose pytest output with one line per test and the usual summary at the end.
+     */
+    static String pytestOutput(int tests, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(tests * 64);
+        sb.append("============================= test session starts ==============================\n");
+        int failed = 0;
+        int passed = 0;
+        for (int i = 0; i < tests; i++) {
+            boolean fail = random.nextInt(10) == 0;
+            if (fail) {
+                failed++;
+            } else {
+                passed++;
+            }
+            sb.append("tests/test_module_").append(i / 50).append(".py::test_case_").append(i)
+                    .append(fail ? " FAILED" : " PASSED").append(" [").append(i * 100 / tests).append("%]\n");
+        }
+        sb.append("=========================== short test summary info ============================\n");
+        sb.append(failed).append(" failed, ").append(passed).append(" passed in 12.34s\n");
+        return sb.toString();
+    }
+}
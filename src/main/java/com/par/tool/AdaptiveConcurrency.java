@@ -0,0 +1,249 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how many slots of another {@link SlotPool} are in use at once, and moves the limit by additive increase and
+ * multiplicative decrease (AIMD), as TCP does with its congestion window. Every window of attempts, about one per
+ * permitted slot, the median attempt latency is compared with the uncontended latency, the fastest attempt seen. Past
+ * {@link #LATENCY_TOLERANCE} times that, or under severe CPU or memory pressure, the limit is cut by
+ * {@link #BACKOFF}. Otherwise it grows by one as long as the load average and the available memory leave room.
+ * Attempts that started before the last change are not counted, so one burst of slow runs only cuts the limit once.
+ */
+final class AdaptiveConcurrency implements SlotPool {
+    static final double LATENCY_TOLERANCE = 1.5;
+    static final double BACKOFF = 0.75;
+    /** Load average per core at or below which the limit may grow, and above which it is cut. */
+    static final double GROW_LOAD = 1.0;
+    static final double SHED_LOAD = 2.0;
+    /** Fraction of memory that must stay available for the limit to grow, and below which it is cut. */
+    static final double GROW_MEMORY = 0.2;
+    static final double SHED_MEMORY = 0.1;
+    static final int MIN_WINDOW = 3;
+
+    private final SlotPool slots;
+    private final int maxLimit;
+    private final Probe probe;
+    private final Metrics metrics;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition belowLimit = lock.newCondition();
+    private final Map<TestSlot, long[]> started = new ConcurrentHashMap<>();
+    private final List<Long> window = new ArrayList<>();
+    private int limit;
+    private int running;
+    private int epoch;
+    private long uncontendedNanos;
+
+    /**
+     * @param uncontendedNanos latency of a test run with nothing else running, or {@code 0} to take the fastest attempt
+     *                         of the first window
+     */
+    AdaptiveConcurrency(SlotPool slots, int maxLimit, long uncontendedNanos, Probe probe, Metrics metrics) {
+        this(slots, maxLimit, uncontendedNanos, probe, metrics, System::nanoTime);
+    }
+
+    /**
+     * Measures attempt latency with {@code clock} rather than {@link System#nanoTime()}.
+     */
+    AdaptiveConcurrency(SlotPool slots, int maxLimit, long uncontendedNanos, Probe probe, Metrics metrics, LongSupplier clock) {
+        this.slots = slots;
+        this.maxLimit = maxLimit;
+        this.probe = probe;
+        this.metrics = metrics;
+        this.clock = clock;
+        this.limit = Math.max(1, maxLimit / 2);
+        this.uncontendedNanos = uncontendedNanos > 0 ? uncontendedNanos : Long.MAX_VALUE;
+        metrics.gauge("concurrency_limit", this::limit);
+    }
+
+    /**
+     * Wraps {@code slots} in an adaptive limit when {@code --adaptive} is on. The uncontended latency is learnt from the
+     * first window: the baseline run shares the machine with fault detection, generation and the worker copies, so its
+     * time is inflated and would hide the slowdown the limit is meant to catch.
+     */
+    static SlotPool limit(Config config, SlotPool slots, Metrics metrics) {
+        if (!config.isAdaptive()) {
+            return slots;
+        }
+        AdaptiveConcurrency limited = new AdaptiveConcurrency(slots, config.getThreads(), 0, Probe.SYSTEM, metrics);
+        System.out.printf("Adapting concurrency between 1 and %d candidates, starting at %d.%n", config.getThreads(), limited.limit());
+        return limited;
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public TestSlot acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int startedIn;
+        lock.lock();
+        try {
+            while (running >= limit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                belowLimit.awaitNanos(remaining);
+            }
+            running++;
+            startedIn = epoch;
+        } finally {
+            lock.unlock();
+        }
+        TestSlot slot = null;
+        try {
+            slot = slots.acquire(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        } finally {
+            if (slot == null) {
+                leave(-1, 0);
+            }
+        }
+        if (slot == null) {
+            return null;
+        }
+        started.put(slot, new long[]{clock.getAsLong(), startedIn});
+        return slot;
+    }
+
+    @Override
+    public void release(TestSlot slot) {
+        long[] start = started.remove(slot);
+        slots.release(slot);
+        if (start == null) {
+            leave(-1, 0);
+        } else {
+            leave((int) start[1], clock.getAsLong() - start[0]);
+        }
+    }
+
+    @Override
+    public int idle() {
+        lock.lock();
+        try {
+            return Math.max(0, Math.min(slots.idle(), limit - running));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a place under the limit, counting the latency of an attempt that started in {@code startedIn}.
+     */
+    private void leave(int startedIn, long latencyNanos) {
+        lock.lock();
+        try {
+            running--;
+            if (startedIn == epoch) {
+                window.add(latencyNanos);
+                if (window.size() >= Math.max(limit, MIN_WINDOW)) {
+                    adjust();
+                }
+            }
+            belowLimit.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust() {
+        Collections.sort(window);
+        long fastest = window.get(0);
+        long median = window.get(window.size() / 2);
+        window.clear();
+        epoch++;
+        double load = probe.loadPerCore();
+        double memory = probe.memoryAvailable();
+        // The first window only calibrates; its fastest attempt had the least company.
+        boolean calibrating = uncontendedNanos == Long.MAX_VALUE;
+        if (calibrating) {
+            uncontendedNanos = fastest;
+        }
+        boolean slow = !calibrating && median > LATENCY_TOLERANCE * uncontendedNanos;
+        if (slow && limit == 1) {
+            // Nothing else was running, so this is what an attempt costs now.
+            uncontendedNanos = median;
+            slow = false;
+        }
+        uncontendedNanos = Math.min(uncontendedNanos, median);
+        int previous = limit;
+        if (slow || load > SHED_LOAD || memory < SHED_MEMORY) {
+            limit = Math.max(1, (int) (limit * BACKOFF));
+        } else if (limit < maxLimit && load <= GROW_LOAD && memory >= GROW_MEMORY) {
+            limit++;
+        }
+        if (limit < previous) {
+            metrics.increment("concurrency_decreases");
+            System.out.printf(Locale.ROOT, "Concurrency limit %d -> %d (median attempt %.2fs, %.1fx uncontended; load %.2f per core; %.0f%% memory available).%n",
+                    previous, limit, median / 1e9, (double) median / uncontendedNanos, load, memory * 100);
+        } else if (limit > previous) {
+            metrics.increment("concurrency_increases");
+        }
+        belowLimit.signalAll();
+    }
+
+    /**
+     * System-wide pressure signals, read once per window.
+     */
+    interface Probe {
+        Probe SYSTEM = new Probe() {
+            @Override
+            public double loadPerCore() {
+                double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+                return load < 0 ? 0 : load / Math.max(1, Runtime.getRuntime().availableProcessors());
+            }
+
+            @Override
+            public double memoryAvailable() {
+                return AdaptiveConcurrency.memoryAvailable(Path.of("/proc/meminfo"));
+            }
+        };
+
+        /** One-minute load average divided by the processor count, or {@code 0} where the platform has none. */
+        double loadPerCore();
+
+        /** Fraction of physical memory available without swapping, or {@code 1} when unknown. */
+        double memoryAvailable();
+    }
+
+    static double memoryAvailable(Path meminfo) {
+        long total = 0;
+        long available = -1;
+        try {
+            for (String line : Files.readAllLines(meminfo)) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 2) {
+                    continue;
+                }
+                if (fields[0].equals("MemTotal:")) {
+                    total = Long.parseLong(fields[1]);
+                } else if (fields[0].equals("MemAvailable:")) {
+                    available = Long.parseLong(fields[1]);
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            return 1;
+        }
+        return total <= 0 || available < 0 ? 1 : (double) available / total;
+    }
+}
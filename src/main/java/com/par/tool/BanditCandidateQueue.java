@@ -0,0 +1,56 @@
+package com.par.tool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Hands out candidates one arm at a time: each call to {@link #next()} asks the {@link OperatorBandit} which origin
+ * deserves the next evaluation given the rewards observed so far. Within an arm, candidates keep their given order.
+ * Every candidate handed out counts as a pending pull until the evaluator either records its reward or abandons it.
+ */
+final class BanditCandidateQueue implements Iterator<Patch> {
+    private final OperatorBandit bandit;
+    private final Map<String, ArrayDeque<Patch>> arms = new LinkedHashMap<>();
+    private int remaining;
+
+    BanditCandidateQueue(List<Patch> candidates, OperatorBandit bandit) {
+        this.bandit = bandit;
+        for (Patch candidate : candidates) {
+            arms.computeIfAbsent(candidate.origin(), key -> new ArrayDeque<>()).add(candidate);
+        }
+        remaining = candidates.size();
+    }
+
+    /**
+     * Candidates not handed out yet.
+     */
+    int remaining() {
+        return remaining;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !arms.isEmpty();
+    }
+
+    @Override
+    public Patch next() {
+        if (arms.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        String arm = bandit.select(new ArrayList<>(arms.keySet()));
+        bandit.markPending(arm);
+        ArrayDeque<Patch> queue = arms.get(arm);
+        Patch candidate = queue.poll();
+        remaining--;
+        if (queue.isEmpty()) {
+            arms.remove(arm);
+        }
+        return candidate;
+    }
+}
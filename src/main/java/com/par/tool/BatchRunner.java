@@ -0,0 +1,290 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code batch} subcommand: repairs every job of a manifest in this JVM, with all searches drawing their test
+ * slots from one {@link SharedWorkerPool}. Jobs run side by side, so the pool stays busy while some of them are
+ * generating candidates or finishing up, and the resident Python helper and JIT warm-up are paid for once.
+ *
+ * <p>The manifest holds one JSON object per job, either one per line or as a JSON array. Every key except
+ * {@code name} is passed on as the command-line option of the same name, so a job is any single-target run:
+ * <pre>{"name": "bug-17", "project": "repo", "target": "repo/calc.py", "tests": "pytest -q", "budget": 300}</pre>
+ * Relative {@code project} and {@code target} paths are resolved against the manifest's directory. Each job writes
+ * its usual results, plus {@code events.jsonl}, to {@code <out>/<name>/}.
+ */
+public final class BatchRunner {
+    private static final Set<String> UNSUPPORTED = Set.of("listen", "shard");
+
+    private final List<Job> jobs;
+    private final Path out;
+    private final int threads;
+    private final int concurrentJobs;
+
+    BatchRunner(List<Job> jobs, Path out, int threads, int concurrentJobs) {
+        this.jobs = List.copyOf(jobs);
+        this.out = out;
+        this.threads = threads;
+        this.concurrentJobs = concurrentJobs;
+    }
+
+    public static BatchRunner parse(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String key = arg.substring(2);
+                String value = "true";
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    value = args[++i];
+                }
+                options.put(key, value);
+            }
+        }
+        String manifestValue = options.get("manifest");
+        if (manifestValue == null || manifestValue.equals("true")) {
+            throw new IllegalArgumentException("Missing required --manifest <file> argument");
+        }
+        Path manifest = Path.of(manifestValue).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(manifest)) {
+            throw new IllegalArgumentException("Manifest file does not exist: " + manifest);
+        }
+        int detectedProcessors = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int threads = positive(options.getOrDefault("threads", Integer.toString(detectedProcessors)), "threads");
+        Path out = Path.of(options.getOrDefault("out", "_apr_results/batch"));
+        List<Job> jobs = readManifest(manifest, out, threads);
+        int concurrentJobs = positive(options.getOrDefault("jobs", Integer.toString(jobs.size())), "jobs");
+        return new BatchRunner(jobs, out, threads, concurrentJobs);
+    }
+
+    static List<Job> readManifest(Path manifest, Path out, int threads) throws IOException {
+        String text = Files.readString(manifest).strip();
+        List<Object> entries = new ArrayList<>();
+        if (text.startsWith("[")) {
+            Object parsed = Json.parse(text);
+            entries.addAll((List<?>) parsed);
+        } else {
+            for (String line : text.split("\n")) {
+                if (!line.isBlank() && !line.strip().startsWith("#")) {
+                    entries.add(Json.parse(line));
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Manifest " + manifest + " lists no jobs");
+        }
+        Path base = manifest.getParent();
+        List<Job> jobs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int index = 0; index < entries.size(); index++) {
+            if (!(entries.get(index) instanceof Map<?, ?> entry)) {
+                throw new IllegalArgumentException("Manifest entry " + (index + 1) + " is not a JSON object");
+            }
+            Object name = entry.get("name");
+            Job job = job(entry, name == null ? "job-" + (index + 1) : name.toString(), base, out, threads);
+            if (!names.add(job.name())) {
+                throw new IllegalArgumentException("Duplicate job name in manifest: " + job.name());
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Turns one job object into the configuration of a run writing to {@code <out>/<name>/}, resolving relative
+     * {@code project} and {@code target} paths against {@code base}.
+     */
+    static Job job(Map<?, ?> entry, String name, Path base, Path out, int threads) {
+        if (!name.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Job names may only use letters, digits, '.', '_' and '-': " + name);
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> option : entry.entrySet()) {
+            options.put(option.getKey().toString(), optionValue(option.getValue()));
+        }
+        options.remove("name");
+        for (String key : options.keySet()) {
+            if (UNSUPPORTED.contains(key)) {
+                throw new IllegalArgumentException("Job " + name + ": --" + key + " is not supported for jobs on a shared worker pool");
+            }
+        }
+        for (String key : List.of("project", "target")) {
+            if (options.containsKey(key)) {
+                options.put(key, base.resolve(options.get(key)).normalize().toString());
+            }
+        }
+        Path results = out.resolve(name);
+        options.putIfAbsent("operator-stats", results.resolve("operator_stats.json").toString());
+        options.putIfAbsent("events", results.resolve("events.jsonl").toString());
+        // Only used for reporting; the shared pool decides how many candidates run at once.
+        options.put("threads", Integer.toString(threads));
+        List<String> args = new ArrayList<>();
+        options.forEach((key, value) -> {
+            args.add("--" + key);
+            args.add(value);
+        });
+        try {
+            return new Job(name, Config.parse(args.toArray(new String[0])), results);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Job " + name + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String optionValue(Object value) {
+        if (value instanceof Double number && number == Math.rint(number) && !Double.isInfinite(number)) {
+            return Long.toString(number.longValue());
+        }
+        return String.valueOf(value);
+    }
+
+    private static int positive(String value, String option) {
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for --" + option + ": " + value);
+        }
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + option + " must be a positive integer, received: " + parsed);
+        }
+        return parsed;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        System.out.printf("Running %d jobs (up to %d at a time) on %d shared test slots.%n",
+                jobs.size(), Math.min(concurrentJobs, jobs.size()), threads);
+        Semaphore running = new Semaphore(concurrentJobs, true);
+        long batchStart = System.nanoTime();
+        List<Future<String>> results = new ArrayList<>();
+        int copies;
+        try (SharedWorkerPool pool = new SharedWorkerPool(threads);
+             ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-job-", 0).factory())) {
+            for (Job job : jobs) {
+                results.add(executor.submit(() -> {
+                    running.acquire();
+                    try {
+                        return runJob(job, pool);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+            executor.shutdown();
+            while (!executor.isTerminated()) {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            }
+            copies = pool.copies();
+        }
+        double wallSeconds = (System.nanoTime() - batchStart) / 1e9;
+
+        List<String> jobResults = new ArrayList<>();
+        long tried = 0;
+        for (Future<String> result : results) {
+            try {
+                String json = result.get();
+                jobResults.add(json);
+                Object count = Json.parseObject(json).get("tried");
+                tried += count instanceof Double number ? number.longValue() : 0;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Batch job failed unexpectedly", ex.getCause());
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"generated_at\": ").append(Json.quote(Instant.now().toString())).append(",\n");
+        sb.append("  \"threads\": ").append(threads).append(",\n");
+        sb.append("  \"project_copies\": ").append(copies).append(",\n");
+        sb.append("  \"wall_seconds\": ").append(String.format(Locale.ROOT, "%.4f", wallSeconds)).append(",\n");
+        sb.append("  \"tried\": ").append(tried).append(",\n");
+        sb.append("  \"candidates_per_second\": ")
+                .append(String.format(Locale.ROOT, "%.4f", wallSeconds > 0 ? tried / wallSeconds : 0)).append(",\n");
+        sb.append("  \"jobs\": [\n");
+        for (int i = 0; i < jobResults.size(); i++) {
+            sb.append("    ").append(jobResults.get(i));
+            sb.append(i < jobResults.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.createDirectories(out);
+        Files.writeString(out.resolve("batch.json"), sb.toString());
+        System.out.println("Wrote batch summary for " + jobs.size() + " jobs to " + out.resolve("batch.json"));
+    }
+
+    private static String runJob(Job job, SharedWorkerPool pool) throws IOException {
+        Files.createDirectories(job.results());
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            new ParRunner(job.config(), job.results(), pool).run();
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            error = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String status = "error";
+        Object tried = 0;
+        Object bestScore = null;
+        Path summary = job.results().resolve("summary.json");
+        if (error == null && Files.exists(summary)) {
+            Map<String, Object> parsed = Json.parseObject(Files.readString(summary));
+            status = String.valueOf(parsed.get("status"));
+            tried = ((Double) parsed.get("tried")).intValue();
+            if (parsed.get("best") instanceof Map<?, ?> best && best.get("score") instanceof Double score) {
+                bestScore = score.intValue();
+            }
+        }
+        System.out.printf("[%s] %s after %d attempts in %.1fs%s%n", job.name(), status, tried, seconds,
+                error == null ? "" : ": " + error);
+        return "{\"name\": " + Json.quote(job.name())
+                + ", \"status\": " + Json.quote(status)
+                + ", \"tried\": " + tried
+                + ", \"best_score\": " + bestScore
+                + ", \"wall_seconds\": " + String.format(Locale.ROOT, "%.4f", seconds)
+                + ", \"results\": " + Json.quote(job.results().toString())
+                + (error == null ? "" : ", \"error\": " + Json.quote(error))
+                + "}";
+    }
+
+    static final class Job {
+        private final String name;
+        private final Config config;
+        private final Path results;
+
+        Job(String name, Config config, Path results) {
+            this.name = name;
+            this.config = config;
+            this.results = results;
+        }
+
+        String name() {
+            return name;
+        }
+
+        Config config() {
+            return config;
+        }
+
+        Path results() {
+            return results;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The {@code bench} subcommand: generates {@link SyntheticProject}s, repairs each one at several {@code --threads}
+ * values and writes throughput, latency and resource figures as JSON so that runs of different builds can be compared.
+ *
+ * <p>Runs happen in this JVM one after another. CPU time is read from {@code /proc/self/stat} and includes the test
+ * processes the search has reaped; peak RSS is sampled every {@value #SAMPLE_MILLIS} ms over this JVM and all of its
+ * descendants, so very short-lived test processes may be missed. Both are reported as {@code null} without
+ * {@code /proc}.
+ */
+public final class BenchmarkSuite {
+    private static final long SAMPLE_MILLIS = 50;
+    // The unit of the times in /proc/<pid>/stat; fixed at 100 by the kernel ABI regardless of CONFIG_HZ.
+    private static final double USER_HZ = 100.0;
+
+    private final Path out;
+    private final List<SyntheticProject.Fault> faults;
+    private final List<Integer> threadCounts;
+    private final int lines;
+    private final int testCount;
+    private final int testMillis;
+    private final int budget;
+    private final int timeoutSeconds;
+    private final long seed;
+    private final int repeat;
+
+    BenchmarkSuite(Path out, List<SyntheticProject.Fault> faults, List<Integer> threadCounts, int lines, int testCount,
+                   int testMillis, int budget, int timeoutSeconds, long seed, int repeat) {
+        this.out = out;
+        this.faults = List.copyOf(faults);
+        this.threadCounts = List.copyOf(threadCounts);
+        this.lines = lines;
+        this.testCount = testCount;
+        this.testMillis = testMillis;
+        this.budget = budget;
+        this.timeoutSeconds = timeoutSeconds;
+        this.seed = seed;
+        this.repeat = repeat;
+    }
+
+    public static BenchmarkSuite parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String key = arg.substring(2);
+                String value = "true";
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    value = args[++i];
+                }
+                options.put(key, value);
+            }
+        }
+
+        List<SyntheticProject.Fault> faults = new ArrayList<>();
+        for (String fault : options.getOrDefault("faults", "arithmetic").split(",")) {
+            faults.add(SyntheticProject.Fault.parse(fault));
+        }
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String threads : options.getOrDefault("threads", "1,2,4").split(",")) {
+            int value = parseInt(threads.trim(), "threads");
+            if (value <= 0) {
+                throw new IllegalArgumentException("--threads values must be positive integers, received: " + value);
+            }
+            threadCounts.add(value);
+        }
+        int lines = positive(options.getOrDefault("lines", "1000"), "lines");
+        int testCount = positive(options.getOrDefault("test-count", "50"), "test-count");
+        int testMillis = parseInt(options.getOrDefault("test-millis", "0"), "test-millis");
+        if (testMillis < 0) {
+            throw new IllegalArgumentException("--test-millis must not be negative, received: " + testMillis);
+        }
+        int budget = positive(options.getOrDefault("budget", "200"), "budget");
+        int timeout = positive(options.getOrDefault("timeout", "60"), "timeout");
+        int repeat = positive(options.getOrDefault("repeat", "1"), "repeat");
+        long seed;
+        try {
+            seed = Long.parseLong(options.getOrDefault("seed", "1337"));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid long for --seed: " + options.get("seed"));
+        }
+        Path out = Path.of(options.getOrDefault("out", "_apr_results/benchmark.json"));
+        return new BenchmarkSuite(out, faults, threadCounts, lines, testCount, testMillis, budget, timeout, seed, repeat);
+    }
+
+    private static int parseInt(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for --" + option + ": " + value);
+        }
+    }
+
+    private static int positive(String value, String option) {
+        int parsed = parseInt(value, option);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + option + " must be a positive integer, received: " + parsed);
+        }
+        return parsed;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        Path tempRoot = Files.createTempDirectory("apr_bench_");
+        List<String> results = new ArrayList<>();
+        try {
+            for (SyntheticProject.Fault fault : faults) {
+                SyntheticProject project = SyntheticProject.generate(
+                        tempRoot.resolve(fault.label()).resolve("project"), seed, lines, testCount, testMillis, fault);
+                for (int threads : threadCounts) {
+                    for (int round = 1; round <= repeat; round++) {
+                        Path runDir = tempRoot.resolve(fault.label()).resolve("t" + threads + "-r" + round);
+                        String result = runOnce(project, fault, threads, round, runDir);
+                        System.out.println(result.replace("\n", " "));
+                        results.add(result);
+                    }
+                }
+            }
+        } finally {
+            FileUtils.deleteRecursive(tempRoot);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"generated_at\": ").append(Json.quote(Instant.now().toString())).append(",\n");
+        sb.append("  \"java\": ").append(Json.quote(System.getProperty("java.version"))).append(",\n");
+        sb.append("  \"os\": ").append(Json.quote(System.getProperty("os.name") + " " + System.getProperty("os.version"))).append(",\n");
+        sb.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"seed\": ").append(Json.quote(Long.toString(seed))).append(",\n");
+        sb.append("  \"lines\": ").append(lines).append(",\n");
+        sb.append("  \"test_count\": ").append(testCount).append(",\n");
+        sb.append("  \"test_millis\": ").append(testMillis).append(",\n");
+        sb.append("  \"budget\": ").append(budget).append(",\n");
+        sb.append("  \"runs\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("    ").append(results.get(i).replace("\n", "\n    "));
+            sb.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(out, sb.toString());
+        System.out.println("Wrote " + results.size() + " benchmark runs to " + out);
+    }
+
+    private String runOnce(SyntheticProject project, SyntheticProject.Fault fault, int threads, int round, Path runDir)
+            throws IOException, InterruptedException {
+        Files.createDirectories(runDir);
+        Config config = Config.parse(new String[]{
+                "--project", project.root().toString(),
+                "--target", project.target().toString(),
+                "--tests", SyntheticProject.TESTS_COMMAND,
+                "--budget", Integer.toString(budget),
+                "--timeout", Integer.toString(timeoutSeconds),
+                "--seed", Long.toString(seed),
+                "--threads", Integer.toString(threads),
+                // A fresh statistics file per run keeps earlier runs from steering the bandit.
+                "--operator-stats", runDir.resolve("operator_stats.json").toString()});
+        Path resultsDir = runDir.resolve("results");
+        ParRunner runner = new ParRunner(config, resultsDir);
+
+        RssSampler sampler = new RssSampler();
+        long cpuBefore = cpuTicks();
+        long wallStart = System.nanoTime();
+        PrintStream console = System.out;
+        String error = null;
+        sampler.start();
+        try (PrintStream log = new PrintStream(Files.newOutputStream(runDir.resolve("run.log")), true)) {
+            System.setOut(log);
+            runner.run();
+        } catch (RuntimeException | IOException ex) {
+            error = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+        } finally {
+            System.setOut(console);
+            sampler.stop();
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        long cpuAfter = cpuTicks();
+
+        String status = "error";
+        int tried = 0;
+        Path summary = resultsDir.resolve("summary.json");
+        if (error == null && Files.exists(summary)) {
+            Map<String, Object> root = Json.parseObject(Files.readString(summary));
+            status = (String) root.get("status");
+            tried = ((Number) root.get("tried")).intValue();
+        }
+        RunTimings timings = runner.timings();
+        double wallSeconds = wallNanos / 1e9;
+        Double searchSeconds = seconds(timings.searchNanos());
+        Double cpuSeconds = cpuBefore < 0 || cpuAfter < 0 ? null : (cpuAfter - cpuBefore) / USER_HZ;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"fault\": ").append(Json.quote(fault.label()));
+        sb.append(", \"threads\": ").append(threads);
+        sb.append(", \"round\": ").append(round);
+        sb.append(", \"status\": ").append(Json.quote(status));
+        if (error != null) {
+            sb.append(", \"error\": ").append(Json.quote(error));
+        }
+        sb.append(",\n \"tried\": ").append(tried);
+        sb.append(", \"wall_seconds\": ").append(number(wallSeconds));
+        sb.append(", \"search_seconds\": ").append(number(searchSeconds));
+        sb.append(", \"candidates_per_second\": ").append(number(
+                searchSeconds == null || searchSeconds <= 0 ? null : tried / searchSeconds));
+        sb.append(",\n \"time_to_first_fix_seconds\": ").append(number(seconds(timings.firstFixNanos())));
+        sb.append(", \"worker_setup_seconds\": ").append(number(seconds(timings.workerSetupNanos())));
+        sb.append(",\n \"peak_rss_bytes\": ").append(sampler.peakBytes() < 0 ? "null" : Long.toString(sampler.peakBytes()));
+        sb.append(", \"cpu_seconds\": ").append(number(cpuSeconds));
+        sb.append(", \"cpu_utilization\": ").append(number(cpuSeconds == null ? null
+                : cpuSeconds / (wallSeconds * Runtime.getRuntime().availableProcessors())));
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static Double seconds(long nanos) {
+        return nanos < 0 ? null : nanos / 1e9;
+    }
+
+    private static String number(Double value) {
+        return value == null ? "null" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    /**
+     * User plus system ticks of this JVM and of the children it has waited for, or {@code -1} without procfs.
+     */
+    static long cpuTicks() {
+        try {
+            String stat = Files.readString(Path.of("/proc/self/stat"));
+            // The command name may contain spaces; the numeric fields start after its closing parenthesis.
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).trim().split("\\s+");
+            // utime, stime, cutime and cstime are fields 14-17 of the full line, 12-15 after the name.
+            return Long.parseLong(fields[11]) + Long.parseLong(fields[12])
+                    + Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Resident set size of a process in bytes, or {@code -1} if it has exited or procfs is unavailable.
+     */
+    static long rssBytes(long pid) {
+        try (Stream<String> lines = Files.lines(Path.of("/proc", Long.toString(pid), "status"))) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .findFirst()
+                    .map(line -> Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024)
+                    .orElse(-1L);
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+    }
+
+    private static final class RssSampler {
+        private final AtomicLong peak = new AtomicLong(-1);
+        private volatile boolean running;
+        private Thread thread;
+
+        void start() {
+            running = true;
+            thread = Thread.ofPlatform().daemon().name("bench-rss").start(() -> {
+                while (running) {
+                    sample();
+                    try {
+                        Thread.sleep(SAMPLE_MILLIS);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            sample();
+        }
+
+        long peakBytes() {
+            return peak.get();
+        }
+
+        private void sample() {
+            long self = rssBytes(ProcessHandle.current().pid());
+            if (self < 0) {
+                return;
+            }
+            long total = self + ProcessHandle.current().descendants()
+                    .mapToLong(handle -> Math.max(0, rssBytes(handle.pid())))
+                    .sum();
+            peak.accumulateAndGet(total, Math::max);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the test command against candidates on isolated {@link TestSlot}s, charging every attempt to the shared
+ * {@link SearchState}.
+ */
+final class CandidateEvaluator {
+    private static final long SLOT_POLL_MILLIS = 200;
+
+    private final Config config;
+    private final SearchState state;
+    private final SearchState.DiffRenderer diffRenderer;
+    private final SlotPool idleSlots;
+    private final List<Consumer<Evaluation>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Patch>> abandonListeners = new CopyOnWriteArrayList<>();
+    private final ProgressEvents progress;
+
+    /**
+     * Evaluates on local worker copies. {@code remaining} counts the candidates left for a {@link ParallelismPlanner},
+     * or is {@code null} to run every suite in one process.
+     */
+    CandidateEvaluator(Config config,
+                       List<Path> workerCopies,
+                       Path relativeTarget,
+                       String originalSource,
+                       MutantSchemata schemata,
+                       TestExecutor executor,
+                       List<WorkerEnvironment> workers,
+                       IntSupplier remaining,
+                       SearchState state,
+                       SearchState.DiffRenderer diffRenderer,
+                       ProgressEvents progress) {
+        this(config, ParallelismPlanner.split(config, AdaptiveConcurrency.limit(config,
+                        SlotPool.of(localSlots(config, workerCopies, relativeTarget, originalSource, schemata, executor, workers, state.metrics())),
+                        state.metrics()), state, remaining),
+                state, diffRenderer, progress);
+    }
+
+    /**
+     * Reports progress on the console only.
+     */
+    CandidateEvaluator(Config config,
+                       BlockingQueue<TestSlot> idleSlots,
+                       SearchState state,
+                       SearchState.DiffRenderer diffRenderer) {
+        this(config, SlotPool.of(idleSlots), state, diffRenderer, new ProgressEvents(System.out, null, config.getBudget(), 1));
+    }
+
+    /**
+     * Evaluates on whatever slots {@code idleSlots} hands out. A pool may start empty and grow later, as it does when
+     * remote workers connect to a {@link Coordinator}, or be shared with other searches, as in a batch.
+     */
+    CandidateEvaluator(Config config,
+                       SlotPool idleSlots,
+                       SearchState state,
+                       SearchState.DiffRenderer diffRenderer,
+                       ProgressEvents progress) {
+        this.config = config;
+        this.state = state;
+        this.diffRenderer = diffRenderer;
+        // Each evaluation mostly waits on a test process, so it gets its own virtual thread; the number of idle slots
+        // bounds how many run at once.
+        this.idleSlots = idleSlots;
+        this.progress = progress;
+    }
+
+    private static BlockingQueue<TestSlot> localSlots(Config config,
+                                                      List<Path> workerCopies,
+                                                      Path relativeTarget,
+                                                      String originalSource,
+                                                      MutantSchemata schemata,
+                                                      TestExecutor executor,
+                                                      List<WorkerEnvironment> workers,
+                                                      Metrics metrics) {
+        BlockingQueue<TestSlot> slots = new ArrayBlockingQueue<>(Math.max(1, workerCopies.size()));
+        for (int i = 0; i < workerCopies.size(); i++) {
+            // Each worker copy keeps its own worker environment, and CPU set if pinned, for the whole run.
+            TestExecutor slotExecutor = TestExecutor.forWorker(executor, i < workers.size() ? workers.get(i) : null);
+            slots.add(new LocalTestSlot(workerCopies.get(i), relativeTarget, originalSource, config.getTestsCommand(), config.getTimeoutSeconds(),
+                    schemata, slotExecutor, metrics));
+        }
+        return slots;
+    }
+
+    /**
+     * Registers a callback invoked on the evaluating thread after every scored attempt.
+     */
+    void addListener(Consumer<Evaluation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Registers a callback invoked once for every candidate taken from the iterator that ends without a scored
+     * attempt: cancelled before or while running, failed to launch, or left without a live slot.
+     */
+    void addAbandonListener(Consumer<Patch> listener) {
+        abandonListeners.add(listener);
+    }
+
+    List<Evaluation> evaluateAll(List<Patch> candidates) throws InterruptedException {
+        return evaluateAll(candidates.iterator());
+    }
+
+    /**
+     * Evaluates candidates in order until the budget is spent or a full fix is found. The next candidate is only
+     * pulled from the iterator once a slot is free, so adaptive sources see every result that finished before. When a
+     * fix is found, attempts still running elsewhere are cancelled. Returns the completed evaluations ordered by
+     * attempt number.
+     */
+    List<Evaluation> evaluateAll(Iterator<Patch> candidates) throws InterruptedException {
+        ConcurrentLinkedQueue<Evaluation> completed = new ConcurrentLinkedQueue<>();
+        // Attempts are stopped by interrupting their threads rather than by cancelling their futures: a cancelled
+        // future counts as done at once, and the executor would then stop waiting for an attempt still winding down.
+        Map<Integer, Thread> running = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-eval-", 0).factory())) {
+            while (candidates.hasNext()) {
+                if (state.attempts() >= config.getBudget() || state.foundFix() || state.stopReason() != null) {
+                    break;
+                }
+                TestSlot slot = acquireSlot();
+                if (slot == null) {
+                    break;
+                }
+                int attemptNumber = state.nextAttempt();
+                Patch candidate = candidates.next();
+                ParEvents.CandidateScheduled scheduled = new ParEvents.CandidateScheduled();
+                if (scheduled.shouldCommit()) {
+                    scheduled.attempt = attemptNumber;
+                    scheduled.operator = candidate.origin();
+                    scheduled.description = candidate.description();
+                    scheduled.commit();
+                }
+                executor.submit(() -> {
+                    Thread self = Thread.currentThread();
+                    running.put(attemptNumber, self);
+                    Evaluation evaluation = null;
+                    try {
+                        // Started after a fix was found, or after the caller gave up: only hand the slot back.
+                        if (state.foundFix() || self.isInterrupted()) {
+                            progress.workerReleased();
+                            idleSlots.release(slot);
+                            return null;
+                        }
+                        evaluation = evaluateOnAnySlot(candidate, attemptNumber, slot);
+                        if (evaluation != null) {
+                            completed.add(evaluation);
+                            for (Consumer<Evaluation> listener : listeners) {
+                                listener.accept(evaluation);
+                            }
+                            if (evaluation.run().exitCode() == 0) {
+                                running.forEach((attempt, other) -> {
+                                    if (attempt != attemptNumber) {
+                                        other.interrupt();
+                                    }
+                                });
+                            }
+                        }
+                        return null;
+                    } finally {
+                        running.remove(attemptNumber);
+                        if (evaluation == null) {
+                            abandoned(candidate);
+                        }
+                    }
+                });
+            }
+        }
+        progress.flush();
+        List<Evaluation> ordered = new ArrayList<>(completed);
+        ordered.sort(Comparator.comparingInt(Evaluation::attempt));
+        return ordered;
+    }
+
+    private void abandoned(Patch candidate) {
+        for (Consumer<Patch> listener : abandonListeners) {
+            listener.accept(candidate);
+        }
+    }
+
+    /**
+     * Waits for a live slot, giving up once a fix has been found or the search has been stopped.
+     */
+    private TestSlot acquireSlot() throws InterruptedException {
+        ParEvents.WorkerLeased leased = new ParEvents.WorkerLeased();
+        leased.begin();
+        while (!state.foundFix() && state.stopReason() == null) {
+            TestSlot slot = idleSlots.acquire(SLOT_POLL_MILLIS);
+            if (slot != null && slot.alive()) {
+                progress.workerLeased(idleSlots.idle());
+                leased.end();
+                if (leased.shouldCommit()) {
+                    leased.worker = slot.toString();
+                    leased.idle = idleSlots.idle();
+                    leased.commit();
+                }
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the candidate, moving it to another slot if the one it runs on is lost. The attempt number is kept.
+     */
+    private Evaluation evaluateOnAnySlot(Patch candidate, int attemptNumber, TestSlot first) throws InterruptedException {
+        TestSlot slot = first;
+        while (slot != null) {
+            boolean lost = false;
+            try {
+                return evaluate(candidate, attemptNumber, slot);
+            } catch (TestSlot.Lost ex) {
+                lost = true;
+                state.metrics().increment("slots_lost");
+                progress.reassigned(attemptNumber, candidate, ex.getMessage());
+            } finally {
+                progress.workerReleased();
+                if (!lost) {
+                    idleSlots.release(slot);
+                }
+            }
+            slot = acquireSlot();
+        }
+        return null;
+    }
+
+    private Evaluation evaluate(Patch candidate, int attemptNumber, TestSlot slot) throws TestSlot.Lost {
+        Metrics metrics = state.metrics();
+        TestRunResult attempt;
+        long start = System.nanoTime();
+        try {
+            attempt = slot.run(candidate);
+        } catch (TestSlot.Lost ex) {
+            throw ex;
+        } catch (IOException ex) {
+            metrics.add("test_run_failures", candidate.origin(), 1);
+            progress.attemptFailed(attemptNumber, candidate, ex.getMessage(), System.nanoTime() - start);
+            return null;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        long duration = System.nanoTime() - start;
+        metrics.record("test_run", candidate.origin(), duration);
+        ParEvents.ScoreComputed scored = new ParEvents.ScoreComputed();
+        scored.begin();
+        long scoring = System.nanoTime();
+        Score.ScoreResult attemptScore = Score.evaluate(attempt);
+        metrics.since("scoring", scoring);
+        scored.end();
+        if (scored.shouldCommit()) {
+            scored.attempt = attemptNumber;
+            scored.operator = candidate.origin();
+            scored.exitCode = attempt.exitCode();
+            scored.score = attemptScore.score();
+            scored.failed = attemptScore.failed();
+            scored.errors = attemptScore.errors();
+            scored.passed = attemptScore.passed();
+            scored.commit();
+        }
+        metrics.add("candidates_evaluated", candidate.origin(), 1);
+        if (attempt.exitCode() == 124) {
+            metrics.add("test_timeouts", candidate.origin(), 1);
+        }
+        progress.attempt(attemptNumber, candidate, attempt, attemptScore, duration);
+
+        long offer = System.nanoTime();
+        Score.ScoreResult replaced = state.offer(candidate, attemptScore, diffRenderer);
+        metrics.since("best_update", offer);
+        if (replaced != null) {
+            progress.bestImproved(attemptNumber, candidate, replaced.score(), attemptScore);
+        }
+
+        if (attempt.exitCode() == 0) {
+            progress.fixFound(attemptNumber, candidate);
+            state.markFixed();
+            metrics.add("fixes", candidate.origin(), 1);
+        }
+        return new Evaluation(candidate, attempt, attemptScore, attemptNumber);
+    }
+}
@@ -2,12 +2,43 @@ package com.par.tool;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Fans candidate generation out across operators. Each operator runs on its own virtual thread with a
+ * {@link MutationContext} seeded from the caller's, and results are merged in operator order, so the output for a
+ * given seed does not depend on which operator finishes first.
+ *
+ * <p>Every operator is called once per request and asked for the whole limit, so a request costs one call per operator,
+ * and one Python process per fix pattern, however the limit ends up being shared. Operators enumerate
+ * deterministically, so the first n of those candidates are what a request for n would have returned; each operator's
+ * share is cut from its list afterwards. An interrupted caller gets what the operators already running produced, with
+ * the interrupt still set.
+ */
 public final class CandidateGenerator {
+    // Keeps an operator with a poor track record from being starved entirely.
+    private static final double MIN_OPERATOR_WEIGHT = 0.05;
+
     private final List<MutationOperator> operators;
+    private final OperatorBandit bandit;
+    private final Metrics metrics;
 
     public CandidateGenerator(List<MutationOperator> operators) {
+        this(operators, null);
+    }
+
+    public CandidateGenerator(List<MutationOperator> operators, OperatorBandit bandit) {
+        this(operators, bandit, new Metrics());
+    }
+
+    CandidateGenerator(List<MutationOperator> operators, OperatorBandit bandit, Metrics metrics) {
         this.operators = operators;
+        this.bandit = bandit;
+        this.metrics = metrics;
     }
 
     public List<Patch> generateCandidates(String source, MutationContext context, int limit) {
@@ -17,30 +48,161 @@ public final class CandidateGenerator {
         }
 
         int operatorCount = operators.size();
+        double[] weights = new double[operatorCount];
+        double totalWeight = 0;
+        long[] seeds = new long[operatorCount];
         for (int index = 0; index < operatorCount; index++) {
-            if (patches.size() >= limit) {
+            weights[index] = weight(operators.get(index));
+            totalWeight += weights[index];
+            seeds[index] = context.random().nextLong();
+        }
+
+        QuotaCollector collector = new QuotaCollector(operatorCount);
+        generateAll(source, context, seeds, limit, collector);
+
+        // Share the budget across operators, weighted by their past rewards. Budget an operator cannot use goes to
+        // those with candidates to spare; everything is in memory by now, so this costs no further calls.
+        int[] quotas = new int[operatorCount];
+        for (int index = 0; index < operatorCount; index++) {
+            quotas[index] = Math.min(limit, Math.max((int) Math.ceil(limit * weights[index] / totalWeight), 1));
+        }
+        while (true) {
+            int used = 0;
+            double spareWeight = 0;
+            for (int index = 0; index < operatorCount; index++) {
+                used += Math.min(quotas[index], collector.size(index));
+                if (collector.size(index) > quotas[index]) {
+                    spareWeight += weights[index];
+                }
+            }
+            int leftover = limit - used;
+            if (leftover <= 0 || spareWeight == 0) {
                 break;
             }
-            MutationOperator operator = operators.get(index);
-            int remainingBudget = limit - patches.size();
-            int remainingOperators = operatorCount - index;
-            // Share the remaining budget across the remaining operators.
-            int perOperatorLimit = Math.max(
-                    (int) Math.ceil((double) remainingBudget / remainingOperators),
-                    1);
-            perOperatorLimit = Math.min(perOperatorLimit, remainingBudget);
-            List<Patch> generated = operator.generate(source, context, perOperatorLimit);
-            for (Patch patch : generated) {
+            for (int index = 0; index < operatorCount; index++) {
+                if (collector.size(index) > quotas[index]) {
+                    int extra = Math.max((int) Math.ceil(leftover * weights[index] / spareWeight), 1);
+                    quotas[index] = Math.min(collector.size(index), quotas[index] + extra);
+                }
+            }
+        }
+
+        for (int index = 0; index < operatorCount && patches.size() < limit; index++) {
+            int before = patches.size();
+            List<Patch> generated = collector.get(index);
+            for (Patch patch : generated.subList(0, Math.min(quotas[index], generated.size()))) {
                 if (patches.size() >= limit) {
                     break;
                 }
                 patches.add(patch);
             }
+            metrics.add("candidates_generated", operators.get(index).name(), patches.size() - before);
         }
-        if (patches.size() < limit) {
-            List<Patch> cross = CrossoverOperator.apply(patches, limit - patches.size());
+        if (patches.size() < limit && !Thread.currentThread().isInterrupted()) {
+            ParEvents.CandidateGenerated event = new ParEvents.CandidateGenerated();
+            event.begin();
+            long start = System.nanoTime();
+            List<Patch> cross = CrossoverOperator.apply(source, patches, limit - patches.size(), context.random());
+            metrics.record("generate", "CrossoverOperator", System.nanoTime() - start);
+            commit(event, "CrossoverOperator", limit - patches.size(), cross);
+            metrics.add("candidates_generated", "CrossoverOperator", cross.size());
             patches.addAll(cross);
         }
         return patches;
     }
+
+    private void generateAll(String source, MutationContext context, long[] seeds, int limit, QuotaCollector collector) {
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-gen-", 0).factory())) {
+            for (int index = 0; index < operators.size(); index++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                int slot = index;
+                MutationOperator operator = operators.get(index);
+                MutationContext operatorContext = context.withSeed(seeds[index]);
+                futures.add(executor.submit(() -> {
+                    ParEvents.CandidateGenerated event = new ParEvents.CandidateGenerated();
+                    event.begin();
+                    long start = System.nanoTime();
+                    List<Patch> generated = operator.generate(source, operatorContext, limit);
+                    metrics.record("generate", operator.name(), System.nanoTime() - start);
+                    commit(event, operator.name(), limit, generated);
+                    collector.put(slot, generated, limit, operator);
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Candidate generation failed", ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stamps the producing operator onto a patch unless the operator already recorded a finer-grained origin.
+     */
+    static Patch tag(Patch patch, MutationOperator operator) {
+        return patch.origin().isEmpty() ? patch.withOrigin(operator.name()) : patch;
+    }
+
+    private static void commit(ParEvents.CandidateGenerated event, String operator, int requested, List<Patch> generated) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operator = operator;
+            event.requested = requested;
+            event.candidates = generated.size();
+            long bytes = 0;
+            for (Patch patch : generated) {
+                bytes += patch.source().length();
+            }
+            event.sourceBytes = bytes;
+            event.commit();
+        }
+    }
+
+    private double weight(MutationOperator operator) {
+        if (bandit == null) {
+            return 1.0;
+        }
+        return Math.max(bandit.expectedReward(operator.name()), MIN_OPERATOR_WEIGHT);
+    }
+
+    /**
+     * One slot per operator, written by that operator's task and trimmed to the requested limit.
+     */
+    private static final class QuotaCollector {
+        private final AtomicReferenceArray<List<Patch>> slots;
+
+        QuotaCollector(int size) {
+            this.slots = new AtomicReferenceArray<>(size);
+            for (int index = 0; index < size; index++) {
+                slots.set(index, List.of());
+            }
+        }
+
+        void put(int slot, List<Patch> generated, int limit, MutationOperator operator) {
+            List<Patch> tagged = new ArrayList<>(Math.min(generated.size(), limit));
+            for (Patch patch : generated) {
+                if (tagged.size() >= limit) {
+                    break;
+                }
+                tagged.add(tag(patch, operator));
+            }
+            slots.set(slot, tagged);
+        }
+
+        List<Patch> get(int slot) {
+            return slots.get(slot);
+        }
+
+        int size(int slot) {
+            return slots.get(slot).size();
+        }
+    }
 }
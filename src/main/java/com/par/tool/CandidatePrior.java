@@ -0,0 +1,43 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scores how likely a candidate is to be the fix before any of them has been tested; an enumerate search evaluates
+ * higher-scoring candidates first.
+ */
+interface CandidatePrior {
+    /** Every candidate scores the same, which leaves the seeded shuffle as the only ordering. */
+    CandidatePrior UNIFORM = candidate -> 0;
+
+    double score(Patch candidate);
+
+    /**
+     * Returns the candidates by descending score. Ties are broken by a shuffle with {@code random}, so equal scores
+     * still come out in a seeded order, and the uniform prior reproduces a plain {@code Collections.shuffle}.
+     */
+    static List<Patch> order(List<Patch> candidates, CandidatePrior prior, Random random) {
+        List<Patch> shuffled = new ArrayList<>(candidates);
+        Collections.shuffle(shuffled, random);
+        if (prior == UNIFORM) {
+            return shuffled;
+        }
+        double[] scores = new double[shuffled.size()];
+        List<Integer> positions = new ArrayList<>(shuffled.size());
+        for (int index = 0; index < scores.length; index++) {
+            scores[index] = prior.score(shuffled.get(index));
+            positions.add(index);
+        }
+        // List.sort is stable, so candidates with equal scores keep their shuffled order.
+        positions.sort(Comparator.comparingDouble(index -> -scores[index]));
+        List<Patch> ordered = new ArrayList<>(scores.length);
+        for (int index : positions) {
+            ordered.add(shuffled.get(index));
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,122 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Screens candidates before they cost a test run. Sources are compiled and fingerprinted in batches by the resident
+ * Python helper; candidates that do not compile, that are semantically identical to one already screened, or that
+ * are equivalent to the original program are dropped and counted per originating operator.
+ */
+final class CandidateValidator {
+    private static final int BATCH_SIZE = 64;
+
+    private final Map<String, Integer> rejectedByOrigin = new TreeMap<>();
+    private final Map<String, Integer> equivalentByOrigin = new TreeMap<>();
+    private final Set<String> fingerprints = new HashSet<>();
+    private final List<Consumer<Patch>> rejectionListeners = new CopyOnWriteArrayList<>();
+    private final String originalSource;
+    private String originalFingerprint;
+    private int checked;
+    private int noOps;
+    private boolean helperMissing;
+
+    CandidateValidator(String originalSource) {
+        this.originalSource = originalSource;
+    }
+
+    /**
+     * Registers a callback invoked for every candidate the helper failed to compile.
+     */
+    void addRejectionListener(Consumer<Patch> listener) {
+        rejectionListeners.add(listener);
+    }
+
+    /**
+     * The candidates worth a test run, in their original order. An interrupted caller gets those screened so far.
+     */
+    synchronized List<Patch> filter(List<Patch> candidates) {
+        List<Patch> valid = new ArrayList<>(candidates.size());
+        for (int start = 0; start < candidates.size() && !Thread.currentThread().isInterrupted(); start += BATCH_SIZE) {
+            List<Patch> batch = candidates.subList(start, Math.min(start + BATCH_SIZE, candidates.size()));
+            List<String> sources = new ArrayList<>(batch.size() + 1);
+            boolean includesOriginal = checked == 0 && originalSource != null;
+            if (includesOriginal) {
+                // Fingerprint the original in the first round-trip so no-op mutants can be recognised.
+                sources.add(originalSource);
+            }
+            for (Patch patch : batch) {
+                sources.add(patch.source());
+            }
+            List<PythonAstService.SourceCheck> checks = helperMissing ? null : PythonAstService.inspect(sources);
+            if (checks == null) {
+                // Screening is only an optimisation; without a Python helper every candidate goes to the tests.
+                helperMissing = true;
+                valid.addAll(batch);
+                continue;
+            }
+            if (includesOriginal) {
+                originalFingerprint = checks.get(0).fingerprint();
+                checks = checks.subList(1, checks.size());
+            }
+            checked += batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                Patch patch = batch.get(i);
+                PythonAstService.SourceCheck check = checks.get(i);
+                String origin = patch.origin().isEmpty() ? "unknown" : patch.origin();
+                if (!check.valid()) {
+                    rejectedByOrigin.merge(origin, 1, Integer::sum);
+                    for (Consumer<Patch> listener : rejectionListeners) {
+                        listener.accept(patch);
+                    }
+                } else if (check.fingerprint().equals(originalFingerprint)) {
+                    noOps++;
+                    equivalentByOrigin.merge(origin, 1, Integer::sum);
+                } else if (!fingerprints.add(check.fingerprint())) {
+                    equivalentByOrigin.merge(origin, 1, Integer::sum);
+                } else {
+                    valid.add(patch);
+                }
+            }
+        }
+        return valid;
+    }
+
+    synchronized Map<String, Integer> rejectedByOrigin() {
+        return new TreeMap<>(rejectedByOrigin);
+    }
+
+    synchronized Map<String, Integer> equivalentByOrigin() {
+        return new TreeMap<>(equivalentByOrigin);
+    }
+
+    synchronized int rejectedTotal() {
+        return total(rejectedByOrigin);
+    }
+
+    synchronized int equivalentTotal() {
+        return total(equivalentByOrigin);
+    }
+
+    synchronized int noOps() {
+        return noOps;
+    }
+
+    synchronized int checked() {
+        return checked;
+    }
+
+    private static int total(Map<String, Integer> counts) {
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -1,5 +1,7 @@
 package com.par.tool;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -14,8 +16,53 @@ public final class Config {
     private final long seed;
     private final int threads;
     private final int detectedProcessors;
+    private final SearchMode searchMode;
+    private final int population;
+    private final int generations;
+    private final int elite;
+    private final int tournamentSize;
+    private final Path operatorStats;
+    private final int listenPort;
+    private final InetAddress bindAddress;
+    private final String secret;
+    private final int heartbeatSeconds;
+    private final int workerWaitSeconds;
+    private final int shardIndex;
+    private final int shardCount;
+    private final boolean schemata;
+    private final String simulation;
+    private final Path prometheusFile;
+    private final int prometheusIntervalSeconds;
+    private final Path eventsFile;
+    private final int eventsIntervalSeconds;
+    private final int timeBudgetSeconds;
+    private final int plateau;
+    private final Prior prior;
+    private final Path suspiciousness;
+    private final boolean adaptive;
+    private final boolean pinCpus;
+    private final int portBase;
+    private final int portsPerWorker;
+    private final int suiteWorkers;
+    private final String suiteFlag;
 
-    private Config(Path project, Path target, String testsCommand, int budget, int timeoutSeconds, long seed, int threads, int detectedProcessors) {
+    public enum SearchMode {
+        ENUMERATE,
+        GENETIC
+    }
+
+    public enum Prior {
+        FIX_LIKELIHOOD,
+        UNIFORM
+    }
+
+    private Config(Path project, Path target, String testsCommand, int budget, int timeoutSeconds, long seed, int threads, int detectedProcessors,
+                   SearchMode searchMode, int population, int generations, int elite, int tournamentSize, Path operatorStats,
+                   int listenPort, InetAddress bindAddress, String secret, int heartbeatSeconds, int workerWaitSeconds, int shardIndex, int shardCount,
+                   boolean schemata, String simulation, Path prometheusFile, int prometheusIntervalSeconds,
+                   Path eventsFile, int eventsIntervalSeconds, int timeBudgetSeconds, int plateau,
+                   Prior prior, Path suspiciousness, boolean adaptive, boolean pinCpus, int portBase, int portsPerWorker,
+                   int suiteWorkers, String suiteFlag) {
         this.project = project;
         this.target = target;
         this.testsCommand = testsCommand;
@@ -24,6 +71,35 @@ public final class Config {
         this.seed = seed;
         this.threads = threads;
         this.detectedProcessors = detectedProcessors;
+        this.searchMode = searchMode;
+        this.population = population;
+        this.generations = generations;
+        this.elite = elite;
+        this.tournamentSize = tournamentSize;
+        this.operatorStats = operatorStats;
+        this.listenPort = listenPort;
+        this.bindAddress = bindAddress;
+        this.secret = secret;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.workerWaitSeconds = workerWaitSeconds;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.schemata = schemata;
+        this.simulation = simulation;
+        this.prometheusFile = prometheusFile;
+        this.prometheusIntervalSeconds = prometheusIntervalSeconds;
+        this.eventsFile = eventsFile;
+        this.eventsIntervalSeconds = eventsIntervalSeconds;
+        this.timeBudgetSeconds = timeBudgetSeconds;
+        this.plateau = plateau;
+        this.prior = prior;
+        this.suspiciousness = suspiciousness;
+        this.adaptive = adaptive;
+        this.pinCpus = pinCpus;
+        this.portBase = portBase;
+        this.portsPerWorker = portsPerWorker;
+        this.suiteWorkers = suiteWorkers;
+        this.suiteFlag = suiteFlag;
     }
 
     public static Config parse(String[] args) {
@@ -71,6 +147,14 @@ public final class Config {
         if (budget <= 0) {
             throw new IllegalArgumentException("--budget must be a positive integer, received: " + budget);
         }
+        int timeBudget = parseInt(options.getOrDefault("time-budget", "0"), 0, "time-budget");
+        if (options.containsKey("time-budget") && timeBudget <= 0) {
+            throw new IllegalArgumentException("--time-budget must be a positive number of seconds, received: " + timeBudget);
+        }
+        int plateau = parseInt(options.getOrDefault("plateau", "0"), 0, "plateau");
+        if (options.containsKey("plateau") && plateau <= 0) {
+            throw new IllegalArgumentException("--plateau must be a positive integer, received: " + plateau);
+        }
 
         int timeout = parseInt(options.getOrDefault("timeout", "120"), 120, "timeout");
         if (timeout <= 0) {
@@ -84,7 +168,168 @@ public final class Config {
             throw new IllegalArgumentException("--threads must be a positive integer, received: " + threads);
         }
 
-        return new Config(project, target, tests, budget, timeout, seed, threads, detectedProcessors);
+        int portBase = parseInt(options.getOrDefault("port-base", "20000"), 20000, "port-base");
+        int portsPerWorker = parseInt(options.getOrDefault("ports-per-worker", "10"), 10, "ports-per-worker");
+        if (portBase < 1024 || portBase > 65535) {
+            throw new IllegalArgumentException("--port-base must be a port between 1024 and 65535, received: " + portBase);
+        }
+        if (portsPerWorker <= 0) {
+            throw new IllegalArgumentException("--ports-per-worker must be a positive integer, received: " + portsPerWorker);
+        }
+        if (portBase + (long) threads * portsPerWorker - 1 > 65535) {
+            throw new IllegalArgumentException("--threads " + threads + " workers with --ports-per-worker " + portsPerWorker
+                    + " do not fit above --port-base " + portBase);
+        }
+
+        boolean adaptive = Boolean.parseBoolean(options.getOrDefault("adaptive", "false"));
+        boolean pinCpus = Boolean.parseBoolean(options.getOrDefault("pin-cpus", "false"));
+        int suiteWorkers = -1;
+        String suiteWorkersValue = options.get("suite-workers");
+        if (suiteWorkersValue != null) {
+            suiteWorkers = suiteWorkersValue.equalsIgnoreCase("auto") ? 0 : parseInt(suiteWorkersValue, 0, "suite-workers");
+            if (!suiteWorkersValue.equalsIgnoreCase("auto") && (suiteWorkers < 1 || suiteWorkers > threads)) {
+                throw new IllegalArgumentException("--suite-workers must be auto or between 1 and --threads (" + threads + "), received: "
+                        + suiteWorkersValue);
+            }
+            if (adaptive || pinCpus) {
+                throw new IllegalArgumentException("--suite-workers already decides how many processes run at once; it cannot be combined with --adaptive or --pin-cpus");
+            }
+        }
+        String suiteFlag = options.getOrDefault("suite-flag", "-n {n}");
+        if (suiteFlag.equals("true") || !suiteFlag.contains("{n}")) {
+            throw new IllegalArgumentException("--suite-flag needs the runner option with {n} for the number of processes, received: " + suiteFlag);
+        }
+        if (suiteWorkers >= 0 && !tests.contains("{suite_flag}") && !tests.contains("{suite_workers}")) {
+            // Only a simple command can take the flag at its end; anything else has to say where it goes.
+            if (!options.containsKey("suite-flag")) {
+                throw new IllegalArgumentException("--suite-workers needs {suite_flag} or {suite_workers} in --tests, or an explicit --suite-flag to append to it");
+            }
+            tests = tests + " {suite_flag}";
+        }
+
+        SearchMode searchMode = parseSearchMode(options.getOrDefault("search", "enumerate"));
+        Prior prior = parsePrior(options.getOrDefault("prior", "fix-likelihood"));
+        String suspiciousness = options.get("suspiciousness");
+        if ("true".equals(suspiciousness)) {
+            throw new IllegalArgumentException("--suspiciousness needs the path of the report to read");
+        }
+        if (suspiciousness != null && !Files.isRegularFile(Path.of(suspiciousness))) {
+            throw new IllegalArgumentException("Suspiciousness report does not exist: " + suspiciousness);
+        }
+        int population = parseInt(options.getOrDefault("population", "20"), 20, "population");
+        if (population < 2) {
+            throw new IllegalArgumentException("--population must be at least 2, received: " + population);
+        }
+        int generations = parseInt(options.getOrDefault("generations", "10"), 10, "generations");
+        if (generations <= 0) {
+            throw new IllegalArgumentException("--generations must be a positive integer, received: " + generations);
+        }
+        int elite = parseInt(options.getOrDefault("elite", "2"), 2, "elite");
+        if (elite < 0 || elite >= population) {
+            throw new IllegalArgumentException("--elite must be between 0 and population - 1, received: " + elite);
+        }
+        int tournamentSize = parseInt(options.getOrDefault("tournament", "3"), 3, "tournament");
+        if (tournamentSize <= 0) {
+            throw new IllegalArgumentException("--tournament must be a positive integer, received: " + tournamentSize);
+        }
+        Path operatorStats = Path.of(options.getOrDefault("operator-stats", "_apr_results/operator_stats.json"));
+        int listenPort = parseInt(options.getOrDefault("listen", "-1"), -1, "listen");
+        if (options.containsKey("listen") && (listenPort < 0 || listenPort > 65535)) {
+            throw new IllegalArgumentException("--listen must be a port between 0 and 65535, received: " + listenPort);
+        }
+        InetAddress bindAddress = InetAddress.getLoopbackAddress();
+        String bind = options.get("bind");
+        if (bind != null) {
+            try {
+                bindAddress = InetAddress.getByName(bind);
+            } catch (UnknownHostException ex) {
+                throw new IllegalArgumentException("Invalid address for --bind: " + bind);
+            }
+        }
+        String secret = WireAuth.configuredSecret(options.get("secret"));
+        int heartbeatSeconds = parseInt(options.getOrDefault("heartbeat", "5"), 5, "heartbeat");
+        if (heartbeatSeconds <= 0) {
+            throw new IllegalArgumentException("--heartbeat must be a positive integer, received: " + heartbeatSeconds);
+        }
+        int workerWaitSeconds = parseInt(options.getOrDefault("worker-wait", "120"), 120, "worker-wait");
+        if (workerWaitSeconds <= 0) {
+            throw new IllegalArgumentException("--worker-wait must be a positive integer, received: " + workerWaitSeconds);
+        }
+        int[] shard = parseShard(options.getOrDefault("shard", "1/1"));
+        if (shard[1] > 1 && searchMode == SearchMode.GENETIC) {
+            throw new IllegalArgumentException("--shard cannot be combined with --search genetic");
+        }
+
+        String simulation = options.get("simulate");
+        if (simulation != null) {
+            if (listenPort >= 0) {
+                throw new IllegalArgumentException("--simulate cannot be combined with --listen; remote workers always run the real tests");
+            }
+            // Fail on a malformed specification now rather than after the workspace has been copied.
+            SimulatedTestExecutor.parse(simulation.equals("true") ? "" : simulation, seed);
+        }
+
+        String prometheus = options.get("prometheus");
+        if ("true".equals(prometheus)) {
+            throw new IllegalArgumentException("--prometheus needs the path of the textfile to write");
+        }
+        int prometheusInterval = parseInt(options.getOrDefault("prometheus-interval", "15"), 15, "prometheus-interval");
+        if (prometheusInterval <= 0) {
+            throw new IllegalArgumentException("--prometheus-interval must be a positive integer, received: " + prometheusInterval);
+        }
+        String events = options.get("events");
+        if ("true".equals(events)) {
+            throw new IllegalArgumentException("--events needs the path of the file or named pipe to write");
+        }
+        int eventsInterval = parseInt(options.getOrDefault("events-interval", "1"), 1, "events-interval");
+        if (eventsInterval <= 0) {
+            throw new IllegalArgumentException("--events-interval must be a positive integer, received: " + eventsInterval);
+        }
+
+        return new Config(project, target, tests, budget, timeout, seed, threads, detectedProcessors,
+                searchMode, population, generations, elite, tournamentSize, operatorStats,
+                listenPort, bindAddress, secret, heartbeatSeconds, workerWaitSeconds, shard[0], shard[1],
+                Boolean.parseBoolean(options.getOrDefault("schemata", "false")),
+                simulation == null ? null : simulation.equals("true") ? "" : simulation,
+                prometheus == null ? null : Path.of(prometheus), prometheusInterval,
+                events == null ? null : Path.of(events), eventsInterval, timeBudget, plateau,
+                prior, suspiciousness == null ? null : Path.of(suspiciousness),
+                adaptive, pinCpus, portBase, portsPerWorker, suiteWorkers, suiteFlag);
+    }
+
+    private static SearchMode parseSearchMode(String value) {
+        switch (value.toLowerCase()) {
+            case "enumerate":
+                return SearchMode.ENUMERATE;
+            case "genetic":
+                return SearchMode.GENETIC;
+            default:
+                throw new IllegalArgumentException("Invalid value for --search (expected enumerate or genetic): " + value);
+        }
+    }
+
+    private static Prior parsePrior(String value) {
+        switch (value.toLowerCase()) {
+            case "fix-likelihood":
+                return Prior.FIX_LIKELIHOOD;
+            case "uniform":
+                return Prior.UNIFORM;
+            default:
+                throw new IllegalArgumentException("Invalid value for --prior (expected fix-likelihood or uniform): " + value);
+        }
+    }
+
+    private static int[] parseShard(String value) {
+        int slash = value.indexOf('/');
+        if (slash <= 0) {
+            throw new IllegalArgumentException("Invalid value for --shard (expected i/n): " + value);
+        }
+        int index = parseInt(value.substring(0, slash), 1, "shard");
+        int count = parseInt(value.substring(slash + 1), 1, "shard");
+        if (count <= 0 || index < 1 || index > count) {
+            throw new IllegalArgumentException("--shard must be i/n with 1 <= i <= n, received: " + value);
+        }
+        return new int[]{index, count};
     }
 
     private static int parseInt(String value, int defaultValue, String option) {
@@ -134,4 +379,175 @@ public final class Config {
     public int getDetectedProcessors() {
         return detectedProcessors;
     }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public int getPopulation() {
+        return population;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    public int getElite() {
+        return elite;
+    }
+
+    public int getTournamentSize() {
+        return tournamentSize;
+    }
+
+    public Path getOperatorStats() {
+        return operatorStats;
+    }
+
+    public boolean isCoordinator() {
+        return listenPort >= 0;
+    }
+
+    public int getListenPort() {
+        return listenPort;
+    }
+
+    /**
+     * The interface the coordinator listens on; loopback unless {@code --bind} says otherwise.
+     */
+    public InetAddress getBindAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * The secret workers must prove they know, or {@code null} to generate one for this run.
+     */
+    public String getSecret() {
+        return secret;
+    }
+
+    public int getHeartbeatSeconds() {
+        return heartbeatSeconds;
+    }
+
+    public int getWorkerWaitSeconds() {
+        return workerWaitSeconds;
+    }
+
+    /**
+     * One-based index of the slice of the candidate sequence this invocation evaluates.
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public boolean isSchemata() {
+        return schemata;
+    }
+
+    /**
+     * The {@code --simulate} specification, or {@code null} when tests run as real processes.
+     */
+    public String getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * The Prometheus textfile refreshed during the run, or {@code null} when only {@code metrics.json} is written.
+     */
+    public Path getPrometheusFile() {
+        return prometheusFile;
+    }
+
+    public int getPrometheusIntervalSeconds() {
+        return prometheusIntervalSeconds;
+    }
+
+    /**
+     * The file or named pipe receiving the JSONL progress stream, or {@code null} for console output only.
+     */
+    public Path getEventsFile() {
+        return eventsFile;
+    }
+
+    public int getEventsIntervalSeconds() {
+        return eventsIntervalSeconds;
+    }
+
+    /**
+     * Wall-clock seconds the whole run may take, or {@code 0} for no limit.
+     */
+    public int getTimeBudgetSeconds() {
+        return timeBudgetSeconds;
+    }
+
+    /**
+     * Evaluations in a row without a better score after which the search stops, or {@code 0} to never stop early.
+     */
+    public int getPlateau() {
+        return plateau;
+    }
+
+    /**
+     * How an enumerate search orders its candidates before the bandit picks among operators.
+     */
+    public Prior getPrior() {
+        return prior;
+    }
+
+    /**
+     * JSON report mapping line numbers of the target to suspiciousness scores, or {@code null} when none was given.
+     */
+    public Path getSuspiciousness() {
+        return suspiciousness;
+    }
+
+    /**
+     * Whether the number of concurrent evaluations follows attempt latency and system pressure, up to
+     * {@link #getThreads()}.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Whether each local worker's test processes are pinned to their own set of CPUs.
+     */
+    public boolean isPinCpus() {
+        return pinCpus;
+    }
+
+    /**
+     * First port of the range reserved for worker 0; worker {@code i} starts {@code i * getPortsPerWorker()} above it.
+     */
+    public int getPortBase() {
+        return portBase;
+    }
+
+    public int getPortsPerWorker() {
+        return portsPerWorker;
+    }
+
+    /**
+     * Test-runner processes per candidate run: {@code -1} when the suite always runs in one process, {@code 0} when
+     * a {@link ParallelismPlanner} decides, otherwise that many for every run.
+     */
+    public int getSuiteWorkers() {
+        return suiteWorkers;
+    }
+
+    /**
+     * The runner option that spreads a suite over {@code {n}} processes, substituted for {@code {suite_flag}}.
+     */
+    public String getSuiteFlag() {
+        return suiteFlag;
+    }
 }
@@ -0,0 +1,360 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands candidates to remote {@link WorkerAgent}s over TCP. Every connected agent contributes one {@link TestSlot}
+ * per local worker copy to the evaluator's idle pool; a candidate travels as a {@link PatchDelta} against the base
+ * source whose hash the agent confirmed during the handshake.
+ *
+ * <p>Protocol, one {@link WireMessage} per step:
+ * <pre>
+ * agent -> HELLO name slots nonce
+ * coord -> CHALLENGE proof nonce         (proof answers the agent's nonce; see {@link WireAuth})
+ * agent -> AUTH proof                    (answers the coordinator's nonce)
+ * coord -> SETUP relativeTarget baseHash testsCommand timeoutSeconds heartbeatSeconds
+ * agent -> READY                         (its copy of the target matches baseHash)
+ *        | NEED, coord -> SOURCE base, agent -> READY
+ * coord -> TASK id delta                 (any number, interleaved)
+ * agent -> RESULT id exitCode millis stdout stderr | CANCELLED id | ERROR id message
+ * coord -> CANCEL id
+ * agent -> PING, coord -> PING            (each every heartbeatSeconds)
+ * coord -> BYE
+ * </pre>
+ * An agent that stays silent for three heartbeats is dropped and its in-flight candidates go back to other slots; an
+ * agent gives up on a coordinator that stays silent as long. The coordinator listens on loopback unless given another
+ * address, and drops any connection that cannot prove it knows the shared secret.
+ */
+final class Coordinator implements AutoCloseable {
+    private static final int MISSED_HEARTBEATS = 3;
+    // Extra time an agent gets beyond the test timeout before a task is considered lost.
+    private static final long RESULT_GRACE_SECONDS = 30;
+
+    private final ServerSocket server;
+    private final String secret;
+    private final String relativeTarget;
+    private final String baseSource;
+    private final String baseHash;
+    private final String testsCommand;
+    private final int timeoutSeconds;
+    private final int heartbeatSeconds;
+    private final BlockingQueue<TestSlot> idleSlots = new LinkedBlockingQueue<>();
+    private final Set<WorkerConnection> connections = ConcurrentHashMap.newKeySet();
+    private final List<WorkerConnection> history = new ArrayList<>();
+    private final AtomicLong taskIds = new AtomicLong();
+    private final CountDownLatch firstWorker = new CountDownLatch(1);
+    private final Thread acceptor;
+    private final Thread heartbeat;
+    private volatile boolean closed;
+
+    Coordinator(InetAddress bindAddress, int port, String secret, Path relativeTarget, String baseSource, String testsCommand,
+                int timeoutSeconds, int heartbeatSeconds) throws IOException {
+        this.server = new ServerSocket(port, 50, bindAddress);
+        this.secret = secret;
+        // The protocol always uses '/' so agents on other platforms resolve the same file.
+        this.relativeTarget = relativeTarget.toString().replace('\\', '/');
+        this.baseSource = baseSource;
+        this.baseHash = PatchDelta.hash(baseSource);
+        this.testsCommand = testsCommand;
+        this.timeoutSeconds = timeoutSeconds;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.acceptor = Thread.ofVirtual().name("par-coordinator-accept").start(this::acceptLoop);
+        this.heartbeat = Thread.ofVirtual().name("par-coordinator-heartbeat").start(this::heartbeatLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * The pool remote slots are added to as agents connect; hand it to a {@link CandidateEvaluator}.
+     */
+    BlockingQueue<TestSlot> idleSlots() {
+        return idleSlots;
+    }
+
+    int connectedWorkers() {
+        return connections.size();
+    }
+
+    /**
+     * Blocks until at least one agent finished its handshake. Returns false on timeout.
+     */
+    boolean awaitWorkers(long timeoutSeconds) throws InterruptedException {
+        return firstWorker.await(timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One line per agent seen during the run: results returned, mean test time and tasks lost with it.
+     */
+    List<String> workerReport() {
+        List<String> lines = new ArrayList<>();
+        synchronized (history) {
+            for (WorkerConnection connection : history) {
+                lines.add(connection.report());
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignore) {
+            // The acceptor stops either way.
+        }
+        heartbeat.interrupt();
+        for (WorkerConnection connection : connections) {
+            connection.channel.send(new WireMessage("BYE"));
+            connection.channel.close();
+        }
+        try {
+            acceptor.join(1000);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().name("par-coordinator-" + socket.getRemoteSocketAddress()).start(() -> serve(socket));
+            } catch (IOException ex) {
+                if (!closed) {
+                    System.out.println("Coordinator stopped accepting workers: " + ex.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private void heartbeatLoop() {
+        try {
+            while (!closed) {
+                for (WorkerConnection connection : connections) {
+                    connection.channel.send(new WireMessage("PING"));
+                }
+                Thread.sleep(heartbeatSeconds * 1000L);
+            }
+        } catch (InterruptedException ignore) {
+            // Closing.
+        }
+    }
+
+    private void serve(Socket socket) {
+        WorkerConnection connection = null;
+        try {
+            socket.setTcpNoDelay(true);
+            WireChannel channel = new WireChannel(socket, "coordinator");
+            channel.setReadTimeout(heartbeatSeconds * MISSED_HEARTBEATS * 1000);
+            connection = handshake(channel, socket.getInetAddress());
+            if (connection == null) {
+                channel.close();
+                return;
+            }
+            connection.readLoop();
+        } catch (IOException | RuntimeException ex) {
+            if (connection == null) {
+                System.out.println("Rejected worker " + socket.getRemoteSocketAddress() + ": " + ex.getMessage());
+                closeQuietly(socket);
+            }
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private WorkerConnection handshake(WireChannel channel, InetAddress address) throws IOException {
+        WireMessage hello = channel.read();
+        if (hello == null || !hello.command().equals("HELLO")) {
+            throw new IOException("expected HELLO");
+        }
+        String name = hello.field(0) + "@" + address.getHostAddress();
+        int slots = hello.intField(1);
+        if (slots <= 0) {
+            throw new IOException("worker offered no slots");
+        }
+        String nonce = WireAuth.nonce();
+        channel.send(new WireMessage("CHALLENGE", WireAuth.proof(secret, WireAuth.COORDINATOR, hello.field(2)), nonce));
+        WireMessage auth = channel.read();
+        if (auth == null || !auth.command().equals("AUTH") || !WireAuth.verify(secret, WireAuth.WORKER, nonce, auth.field(0))) {
+            throw new IOException("worker did not prove it knows the shared secret");
+        }
+        channel.send(new WireMessage("SETUP", relativeTarget, baseHash, testsCommand,
+                String.valueOf(timeoutSeconds), String.valueOf(heartbeatSeconds)));
+        WireMessage reply = channel.read();
+        if (reply != null && reply.command().equals("NEED")) {
+            channel.send(new WireMessage("SOURCE", baseSource));
+            reply = channel.read();
+        }
+        if (reply == null || !reply.command().equals("READY")) {
+            throw new IOException("worker did not confirm the base snapshot");
+        }
+        if (closed) {
+            return null;
+        }
+        WorkerConnection connection = new WorkerConnection(name, channel, slots);
+        connections.add(connection);
+        synchronized (history) {
+            history.add(connection);
+        }
+        for (int i = 0; i < slots; i++) {
+            idleSlots.add(connection.new RemoteSlot());
+        }
+        System.out.printf("Worker %s joined with %d slots.%n", name, slots);
+        firstWorker.countDown();
+        return connection;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+            // Already gone.
+        }
+    }
+
+    private final class WorkerConnection {
+        private final String name;
+        private final WireChannel channel;
+        private final int slots;
+        private final Map<String, CompletableFuture<WireMessage>> pending = new ConcurrentHashMap<>();
+        private final AtomicInteger results = new AtomicInteger();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicInteger lostTasks = new AtomicInteger();
+        private volatile boolean alive = true;
+
+        WorkerConnection(String name, WireChannel channel, int slots) {
+            this.name = name;
+            this.channel = channel;
+            this.slots = slots;
+        }
+
+        void readLoop() throws IOException {
+            while (true) {
+                WireMessage message;
+                try {
+                    message = channel.read();
+                } catch (SocketTimeoutException ex) {
+                    if (!closed) {
+                        System.out.printf("Worker %s missed %d heartbeats; dropping it.%n", name, MISSED_HEARTBEATS);
+                    }
+                    return;
+                }
+                if (message == null) {
+                    return;
+                }
+                switch (message.command()) {
+                    case "PING":
+                        break;
+                    case "RESULT":
+                    case "CANCELLED":
+                    case "ERROR":
+                        CompletableFuture<WireMessage> reply = pending.remove(message.field(0));
+                        if (reply != null) {
+                            reply.complete(message);
+                        }
+                        break;
+                    default:
+                        throw new IOException("unexpected " + message.command() + " from worker " + name);
+                }
+            }
+        }
+
+        void disconnect() {
+            alive = false;
+            connections.remove(this);
+            channel.close();
+            for (CompletableFuture<WireMessage> reply : pending.values()) {
+                if (reply.completeExceptionally(new TestSlot.Lost("worker " + name + " disconnected"))) {
+                    lostTasks.incrementAndGet();
+                }
+            }
+            pending.clear();
+            if (!closed) {
+                System.out.printf("Worker %s left; its in-flight candidates will be reassigned.%n", name);
+            }
+        }
+
+        String report() {
+            int count = results.get();
+            long mean = count == 0 ? 0 : totalMillis.get() / count;
+            return String.format("%s (%d slots): %d results, mean test time %d ms, %d lost", name, slots, count, mean, lostTasks.get());
+        }
+
+        final class RemoteSlot implements TestSlot {
+            @Override
+            public boolean alive() {
+                return alive;
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+
+            @Override
+            public TestRunResult run(Patch candidate) throws IOException, InterruptedException {
+                String id = String.valueOf(taskIds.incrementAndGet());
+                CompletableFuture<WireMessage> reply = new CompletableFuture<>();
+                pending.put(id, reply);
+                if (!alive) {
+                    pending.remove(id);
+                    throw new Lost("worker " + name + " disconnected");
+                }
+                channel.send(new WireMessage("TASK", id, PatchDelta.encode(baseSource, candidate.source())));
+                WireMessage message;
+                try {
+                    message = reply.get(timeoutSeconds + RESULT_GRACE_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    pending.remove(id);
+                    channel.send(new WireMessage("CANCEL", id));
+                    throw ie;
+                } catch (TimeoutException ex) {
+                    pending.remove(id);
+                    channel.send(new WireMessage("CANCEL", id));
+                    lostTasks.incrementAndGet();
+                    throw new Lost("worker " + name + " did not answer in time");
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof Lost) {
+                        throw (Lost) ex.getCause();
+                    }
+                    throw new IOException("Remote evaluation failed", ex.getCause());
+                }
+                switch (message.command()) {
+                    case "RESULT":
+                        results.incrementAndGet();
+                        totalMillis.addAndGet(Long.parseLong(message.field(2)));
+                        return new TestRunResult(message.intField(1), message.field(3), message.field(4));
+                    case "CANCELLED":
+                        throw new InterruptedException("cancelled on worker " + name);
+                    default:
+                        throw new IOException("Worker " + name + " failed to evaluate candidate: " + message.field(1));
+                }
+            }
+        }
+    }
+}
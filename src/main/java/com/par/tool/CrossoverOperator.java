@@ -1,50 +1,118 @@
 package com.par.tool;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
+/**
+ * Combines parents by merging their edit sets relative to the original program. Edits both parents share are kept
+ * once, and parents whose edits overlap produce no child, so line shifts in one parent never misalign the other.
+ */
 public final class CrossoverOperator {
+    // Random pairs drawn per requested child before giving up on a seed list that yields few compatible pairs.
+    private static final int SAMPLES_PER_CHILD = 8;
+    static final String ORIGIN = "CrossoverOperator";
+
     private CrossoverOperator() {}
 
-    public static List<Patch> apply(List<Patch> seeds, int limit) {
+    /**
+     * Samples random pairs of seeds (without enumerating all pairs) and returns up to {@code limit} distinct children.
+     */
+    public static List<Patch> apply(String original, List<Patch> seeds, int limit, Random random) {
         List<Patch> patches = new ArrayList<>();
+        if (seeds.size() < 2 || limit <= 0) {
+            return patches;
+        }
+        String[] originalLines = split(original);
+        Map<Patch, List<LineDiff.Edit>> edits = new HashMap<>();
         Set<String> seen = new HashSet<>();
-        for (int i = 0; i < seeds.size(); i++) {
-            for (int j = i + 1; j < seeds.size(); j++) {
-                if (patches.size() >= limit) {
-                    return patches;
-                }
-                Patch a = seeds.get(i);
-                Patch b = seeds.get(j);
-                String combined = combine(a.source(), b.source());
-                if (combined.equals(a.source()) || combined.equals(b.source())) {
-                    continue;
-                }
-                if (seen.add(combined)) {
-                    patches.add(new Patch(combined, "Crossover of [" + a.description() + "] + [" + b.description() + "]"));
-                }
+        Set<Long> triedPairs = new HashSet<>();
+        long possiblePairs = (long) seeds.size() * (seeds.size() - 1) / 2;
+        long samples = Math.min((long) limit * SAMPLES_PER_CHILD, possiblePairs * 2);
+        for (long sample = 0; sample < samples && patches.size() < limit && triedPairs.size() < possiblePairs; sample++) {
+            int i = random.nextInt(seeds.size());
+            int j = random.nextInt(seeds.size());
+            if (i == j || !triedPairs.add(pairKey(i, j))) {
+                continue;
+            }
+            Patch a = seeds.get(Math.min(i, j));
+            Patch b = seeds.get(Math.max(i, j));
+            List<LineDiff.Edit> editsA = edits.computeIfAbsent(a, p -> LineDiff.diff(originalLines, split(p.source())));
+            List<LineDiff.Edit> editsB = edits.computeIfAbsent(b, p -> LineDiff.diff(originalLines, split(p.source())));
+            Patch child = merge(originalLines, a, editsA, b, editsB);
+            if (child != null && seen.add(child.source())) {
+                patches.add(child);
             }
         }
         return patches;
     }
 
-    private static String combine(String a, String b) {
-        String[] linesA = a.split("\n", -1);
-        String[] linesB = b.split("\n", -1);
-        int pivot = linesA.length / 2;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < pivot && i < linesA.length; i++) {
-            sb.append(linesA[i]);
-            sb.append('\n');
+    /**
+     * Crosses two parents, returning {@code null} when their edits conflict or the child would repeat a parent.
+     */
+    public static Patch cross(String original, Patch a, Patch b) {
+        String[] originalLines = split(original);
+        return merge(originalLines,
+                a, LineDiff.diff(originalLines, split(a.source())),
+                b, LineDiff.diff(originalLines, split(b.source())));
+    }
+
+    private static Patch merge(String[] originalLines, Patch a, List<LineDiff.Edit> editsA, Patch b, List<LineDiff.Edit> editsB) {
+        if (editsA.isEmpty() || editsB.isEmpty()) {
+            return null;
         }
-        for (int i = pivot; i < linesB.length; i++) {
-            sb.append(linesB[i]);
-            if (i < linesB.length - 1) {
-                sb.append('\n');
+        List<LineDiff.Edit> union = new ArrayList<>(editsA.size() + editsB.size());
+        int i = 0;
+        int j = 0;
+        boolean addsFromA = false;
+        boolean addsFromB = false;
+        while (i < editsA.size() || j < editsB.size()) {
+            LineDiff.Edit next;
+            if (j >= editsB.size()) {
+                next = editsA.get(i++);
+                addsFromA = true;
+            } else if (i >= editsA.size()) {
+                next = editsB.get(j++);
+                addsFromB = true;
+            } else {
+                LineDiff.Edit fromA = editsA.get(i);
+                LineDiff.Edit fromB = editsB.get(j);
+                if (fromA.equals(fromB)) {
+                    next = fromA;
+                    i++;
+                    j++;
+                } else if (fromA.start() < fromB.start() || (fromA.start() == fromB.start() && fromA.end() < fromB.end())) {
+                    next = fromA;
+                    i++;
+                    addsFromA = true;
+                } else {
+                    next = fromB;
+                    j++;
+                    addsFromB = true;
+                }
+            }
+            if (!union.isEmpty() && union.get(union.size() - 1).conflictsWith(next)) {
+                return null;
             }
+            union.add(next);
         }
-        return sb.toString();
+        if (!addsFromA || !addsFromB) {
+            // One parent's edits contain the other's, so the child would just be that parent again.
+            return null;
+        }
+        String combined = String.join("\n", LineDiff.apply(originalLines, union));
+        return new Patch(combined, "Crossover of [" + a.description() + "] + [" + b.description() + "]", ORIGIN);
+    }
+
+    private static long pairKey(int i, int j) {
+        return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+    }
+
+    private static String[] split(String source) {
+        return source.split("\n", -1);
     }
 }
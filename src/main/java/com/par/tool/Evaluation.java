@@ -0,0 +1,31 @@
+package com.par.tool;
+
+public final class Evaluation {
+    private final Patch patch;
+    private final TestRunResult run;
+    private final Score.ScoreResult score;
+    private final int attempt;
+
+    public Evaluation(Patch patch, TestRunResult run, Score.ScoreResult score, int attempt) {
+        this.patch = patch;
+        this.run = run;
+        this.score = score;
+        this.attempt = attempt;
+    }
+
+    public Patch patch() {
+        return patch;
+    }
+
+    public TestRunResult run() {
+        return run;
+    }
+
+    public Score.ScoreResult score() {
+        return score;
+    }
+
+    public int attempt() {
+        return attempt;
+    }
+}
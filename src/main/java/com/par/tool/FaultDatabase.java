@@ -1,5 +1,6 @@
 package com.par.tool;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public final class FaultDatabase {
@@ -10,17 +11,20 @@ public final class FaultDatabase {
                 new FaultPattern(
                         "NullDereference",
                         "Potential missing null/None guard before attribute access.",
-                        "null_dereference"
+                        "null_dereference",
+                        "NullCheckGuard"
                 ),
                 new FaultPattern(
                         "LooseNoneEquality",
                         "Equality comparison to None using == instead of 'is'.",
-                        "loose_none_equality"
+                        "loose_none_equality",
+                        "NoneEquality"
                 ),
                 new FaultPattern(
                         "UnsafeIndex",
                         "Index access without explicit bounds check.",
-                        "unsafe_index"
+                        "unsafe_index",
+                        "BoundsGuard"
                 )
         );
     }
@@ -28,4 +32,17 @@ public final class FaultDatabase {
     public List<FaultPattern> patterns() {
         return patterns;
     }
+
+    /** Names of the fix patterns that repair the given faults, in the same order. */
+    public List<String> fixesFor(List<String> faults) {
+        List<String> fixes = new ArrayList<>();
+        for (String fault : faults) {
+            for (FaultPattern pattern : patterns) {
+                if (pattern.name().equals(fault)) {
+                    fixes.add(pattern.fixName());
+                }
+            }
+        }
+        return fixes;
+    }
 }
@@ -4,11 +4,13 @@ public final class FaultPattern {
     private final String name;
     private final String description;
     private final String detectorKey;
+    private final String fixName;
 
-    public FaultPattern(String name, String description, String detectorKey) {
+    public FaultPattern(String name, String description, String detectorKey, String fixName) {
         this.name = name;
         this.description = description;
         this.detectorKey = detectorKey;
+        this.fixName = fixName;
     }
 
     public String name() {
@@ -22,4 +24,9 @@ public final class FaultPattern {
     public String detectorKey() {
         return detectorKey;
     }
+
+    /** Name of the {@link FixPattern} that repairs this fault. */
+    public String fixName() {
+        return fixName;
+    }
 }
@@ -4,9 +4,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 public final class FileUtils {
+    private static final int DIFF_CONTEXT = 3;
+    /** Marks a last line without a trailing newline, so that it never matches the same text with one. */
+    private static final char NO_NEWLINE = '\0';
+
     private FileUtils() {}
 
     public static void copyRecursive(Path source, Path target) throws IOException {
@@ -30,6 +36,41 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Brings {@code target} in line with {@code source}: copies files that are new or differ in size or modification
+     * time and deletes whatever {@code source} no longer has. Unchanged files are left alone, so refreshing a copy
+     * after a small edit costs a directory walk rather than a full copy.
+     */
+    public static void syncRecursive(Path source, Path target) throws IOException {
+        try (var stream = Files.walk(source)) {
+            stream.forEach(path -> {
+                try {
+                    Path dest = target.resolve(source.relativize(path));
+                    if (Files.isDirectory(path)) {
+                        Files.createDirectories(dest);
+                    } else if (!Files.isRegularFile(dest)
+                            || Files.size(dest) != Files.size(path)
+                            || !Files.getLastModifiedTime(dest).equals(Files.getLastModifiedTime(path))) {
+                        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        }
+        try (var stream = Files.walk(target)) {
+            stream.sorted(Comparator.reverseOrder())
+                .filter(path -> !Files.exists(source.resolve(target.relativize(path))))
+                .forEach(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+        }
+    }
+
     public static void deleteRecursive(Path path) throws IOException {
         if (!Files.exists(path)) {
             return;
@@ -46,26 +87,84 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Renders a unified diff with {@value #DIFF_CONTEXT} lines of context, as produced by {@code diff -u} and accepted
+     * by {@code patch} and {@code git apply}. Lines are matched with {@link LineDiff}, so an inserted or deleted line
+     * only affects its own hunk.
+     */
     public static String computeDiff(String original, String mutated, Path originalFile, Path patchedFile) {
-        String[] origLines = original.split("\n", -1);
-        String[] newLines = mutated.split("\n", -1);
+        String[] origLines = diffLines(original);
+        String[] newLines = diffLines(mutated);
         StringBuilder diff = new StringBuilder();
         diff.append("--- ").append(originalFile).append('\n');
         diff.append("+++ ").append(patchedFile).append('\n');
-        int max = Math.max(origLines.length, newLines.length);
-        for (int i = 0; i < max; i++) {
-            String o = i < origLines.length ? origLines[i] : "";
-            String n = i < newLines.length ? newLines[i] : "";
-            if (!o.equals(n)) {
-                diff.append("@@ line ").append(i + 1).append(" @@").append('\n');
-                if (!o.isEmpty()) {
-                    diff.append('-').append(o).append('\n');
+        List<LineDiff.Edit> edits = LineDiff.diff(origLines, newLines);
+        // Offset of the revised line numbers against the original ones, up to the current hunk.
+        int shift = 0;
+        int first = 0;
+        while (first < edits.size()) {
+            int last = first;
+            while (last + 1 < edits.size() && edits.get(last + 1).start() - edits.get(last).end() <= 2 * DIFF_CONTEXT) {
+                last++;
+            }
+            int from = Math.max(0, edits.get(first).start() - DIFF_CONTEXT);
+            int to = Math.min(origLines.length, edits.get(last).end() + DIFF_CONTEXT);
+            StringBuilder body = new StringBuilder();
+            int removed = 0;
+            int added = 0;
+            int cursor = from;
+            for (int index = first; index <= last; index++) {
+                LineDiff.Edit edit = edits.get(index);
+                for (; cursor < edit.start(); cursor++) {
+                    appendDiffLine(body, ' ', origLines[cursor]);
                 }
-                if (!n.isEmpty()) {
-                    diff.append('+').append(n).append('\n');
+                for (; cursor < edit.end(); cursor++) {
+                    appendDiffLine(body, '-', origLines[cursor]);
+                    removed++;
                 }
+                for (String line : edit.lines()) {
+                    appendDiffLine(body, '+', line);
+                    added++;
+                }
+            }
+            for (; cursor < to; cursor++) {
+                appendDiffLine(body, ' ', origLines[cursor]);
             }
+            int context = (to - from) - removed;
+            diff.append("@@ -").append(hunkRange(from, context + removed))
+                    .append(" +").append(hunkRange(from + shift, context + added)).append(" @@\n");
+            diff.append(body);
+            for (int index = first; index <= last; index++) {
+                shift += edits.get(index).lines().size() - (edits.get(index).end() - edits.get(index).start());
+            }
+            first = last + 1;
         }
         return diff.toString();
     }
+
+    private static String[] diffLines(String text) {
+        if (text.isEmpty()) {
+            return new String[0];
+        }
+        String[] lines = text.split("\n", -1);
+        if (lines[lines.length - 1].isEmpty()) {
+            return Arrays.copyOf(lines, lines.length - 1);
+        }
+        lines[lines.length - 1] += NO_NEWLINE;
+        return lines;
+    }
+
+    private static void appendDiffLine(StringBuilder diff, char marker, String line) {
+        diff.append(marker);
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == NO_NEWLINE) {
+            diff.append(line, 0, line.length() - 1).append("\n\\ No newline at end of file\n");
+        } else {
+            diff.append(line).append('\n');
+        }
+    }
+
+    /** A hunk range: an empty range names the line before it, as {@code diff -u} does. */
+    private static String hunkRange(int start, int count) {
+        return (count == 0 ? start : start + 1) + "," + count;
+    }
 }
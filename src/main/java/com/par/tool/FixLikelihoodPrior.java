@@ -0,0 +1,99 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The default {@link CandidatePrior}: a weighted sum of four signals, each scaled to at most its weight.
+ * <ul>
+ *   <li>{@link #FAULT_WEIGHT} when the candidate comes from the fix pattern for a fault detected in the target;</li>
+ *   <li>{@link #SUSPICIOUSNESS_WEIGHT} times the highest suspiciousness of the original lines it edits, when a
+ *       fault-localization report is available;</li>
+ *   <li>{@link #OPERATOR_WEIGHT} times the historical reward of its origin, as persisted in the operator stats;</li>
+ *   <li>{@link #SIZE_WEIGHT} divided by the number of lines it adds and removes, since most real fixes are small.</li>
+ * </ul>
+ */
+final class FixLikelihoodPrior implements CandidatePrior {
+    static final double FAULT_WEIGHT = 2.0;
+    static final double SUSPICIOUSNESS_WEIGHT = 1.0;
+    static final double OPERATOR_WEIGHT = 1.0;
+    static final double SIZE_WEIGHT = 0.5;
+
+    private final String[] originalLines;
+    private final Set<String> targetedFixes;
+    private final Map<Integer, Double> suspiciousness;
+    private final OperatorBandit bandit;
+
+    /**
+     * @param targetedFixes  names of the fix patterns for the detected faults
+     * @param suspiciousness 1-based line numbers of the original source mapped to scores in {@code [0, 1]}; empty
+     *                       when no report is available
+     */
+    FixLikelihoodPrior(String originalSource, List<String> targetedFixes, Map<Integer, Double> suspiciousness, OperatorBandit bandit) {
+        this.originalLines = originalSource.split("\n", -1);
+        this.targetedFixes = new HashSet<>(targetedFixes);
+        this.suspiciousness = Map.copyOf(suspiciousness);
+        this.bandit = bandit;
+    }
+
+    @Override
+    public double score(Patch candidate) {
+        String origin = candidate.origin();
+        int slash = origin.indexOf('/');
+        double score = 0;
+        if (slash > 0 && targetedFixes.contains(origin.substring(slash + 1))) {
+            score += FAULT_WEIGHT;
+        }
+        score += OPERATOR_WEIGHT * bandit.expectedReward(origin);
+
+        int changedLines = 0;
+        double suspicion = 0;
+        for (LineDiff.Edit edit : LineDiff.diff(originalLines, candidate.source().split("\n", -1))) {
+            changedLines += edit.end() - edit.start() + edit.lines().size();
+            // A pure insertion touches the lines on either side of it.
+            int first = edit.start() == edit.end() ? edit.start() : edit.start() + 1;
+            int last = edit.start() == edit.end() ? edit.start() + 1 : edit.end();
+            for (int line = first; line <= last; line++) {
+                suspicion = Math.max(suspicion, suspiciousness.getOrDefault(line, 0.0));
+            }
+        }
+        score += SUSPICIOUSNESS_WEIGHT * suspicion;
+        score += SIZE_WEIGHT / Math.max(1, changedLines);
+        return score;
+    }
+
+    /**
+     * Reads a fault-localization report: a JSON object mapping 1-based line numbers of the target to
+     * suspiciousness scores, such as Ochiai values. Scores are divided by the highest one so that only their
+     * ranking matters.
+     */
+    static Map<Integer, Double> readSuspiciousness(Path file) throws IOException {
+        Map<String, Object> root = Json.parseObject(Files.readString(file));
+        Map<Integer, Double> scores = new HashMap<>();
+        double highest = 0;
+        for (Map.Entry<String, Object> entry : root.entrySet()) {
+            int line;
+            try {
+                line = Integer.parseInt(entry.getKey().strip());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Suspiciousness report " + file + " has a key that is not a line number: " + entry.getKey());
+            }
+            if (!(entry.getValue() instanceof Double value) || value < 0) {
+                throw new IllegalArgumentException("Suspiciousness of line " + line + " in " + file + " must be a non-negative number");
+            }
+            scores.put(line, value);
+            highest = Math.max(highest, value);
+        }
+        if (highest > 0) {
+            double scale = highest;
+            scores.replaceAll((line, value) -> value / scale);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,203 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Multi-generation evolutionary search. The first generation is seeded from the {@link CandidateGenerator}; later
+ * generations breed evaluated survivors through tournament selection, mutation with the regular
+ * {@link MutationOperator}s (chosen by the {@link OperatorBandit}) and crossover, keeping the fittest individuals as elites.
+ */
+final class GeneticSearch {
+    private static final double CROSSOVER_RATE = 0.5;
+    private static final int MUTANTS_PER_DRAW = 32;
+    private static final int BREEDING_ATTEMPTS_PER_CHILD = 10;
+
+    private final Config config;
+    private final List<MutationOperator> operators;
+    private final CandidateGenerator seeder;
+    private final CandidateEvaluator evaluator;
+    private final SearchState state;
+    private final OperatorBandit bandit;
+    private final CandidateValidator validator;
+    private final List<String> operatorNames;
+    private final List<List<Evaluation>> populations = new ArrayList<>();
+
+    GeneticSearch(Config config,
+                  List<MutationOperator> operators,
+                  CandidateGenerator seeder,
+                  CandidateEvaluator evaluator,
+                  SearchState state,
+                  OperatorBandit bandit,
+                  CandidateValidator validator) {
+        this.config = config;
+        this.operators = operators;
+        this.seeder = seeder;
+        this.evaluator = evaluator;
+        this.state = state;
+        this.bandit = bandit;
+        this.validator = validator;
+        this.operatorNames = new ArrayList<>();
+        for (MutationOperator operator : operators) {
+            operatorNames.add(operator.name());
+        }
+    }
+
+    void run(String originalSource, MutationContext context, Score.ScoreResult baselineScore) throws InterruptedException {
+        Random random = context.random();
+        Set<String> seen = new HashSet<>();
+        seen.add(originalSource);
+
+        List<Patch> seeds = validator.filter(seeder.generateCandidates(originalSource, context, config.getPopulation() * 3));
+        Collections.shuffle(seeds, random);
+        List<Patch> firstGeneration = new ArrayList<>();
+        int firstQuota = Math.min(config.getPopulation(), remainingBudget());
+        for (Patch seed : seeds) {
+            if (firstGeneration.size() >= firstQuota) {
+                break;
+            }
+            if (seen.add(seed.source())) {
+                firstGeneration.add(seed);
+            }
+        }
+        List<Evaluation> population = nextPopulation(List.of(), evaluateGeneration(0, firstGeneration));
+        populations.add(population);
+
+        for (int generation = 1; generation < config.getGenerations(); generation++) {
+            if (state.foundFix() || state.stopReason() != null || remainingBudget() <= 0 || population.isEmpty()) {
+                break;
+            }
+            int offspringQuota = generationQuota(generation);
+            List<Patch> offspring = breed(originalSource, baselineScore, population, offspringQuota, context, random, seen);
+            if (offspring.isEmpty()) {
+                System.out.printf("Generation %d: no new offspring could be bred; stopping.%n", generation);
+                break;
+            }
+            population = nextPopulation(population, evaluateGeneration(generation, offspring));
+            populations.add(population);
+        }
+    }
+
+    /**
+     * The survivors of every generation run so far, fittest first.
+     */
+    List<List<Evaluation>> populations() {
+        return Collections.unmodifiableList(populations);
+    }
+
+    private int remainingBudget() {
+        return config.getBudget() - state.attempts();
+    }
+
+    private int generationQuota(int generation) {
+        // Spread what is left over the remaining generations so late generations are not starved.
+        int generationsLeft = config.getGenerations() - generation;
+        int fairShare = Math.max(1, remainingBudget() / generationsLeft);
+        return Math.min(config.getPopulation() - config.getElite(), fairShare);
+    }
+
+    private List<Evaluation> evaluateGeneration(int generation, List<Patch> individuals) throws InterruptedException {
+        int before = state.attempts();
+        List<Evaluation> evaluated = evaluator.evaluateAll(individuals);
+        System.out.printf("Generation %d: evaluated %d candidates (%d of %d budget used), best score=%d%n",
+                generation,
+                state.attempts() - before,
+                state.attempts(),
+                config.getBudget(),
+                state.bestScore().score());
+        return evaluated;
+    }
+
+    private List<Evaluation> nextPopulation(List<Evaluation> previous, List<Evaluation> offspring) {
+        List<Evaluation> next = new ArrayList<>();
+        for (int i = 0; i < config.getElite() && i < previous.size(); i++) {
+            next.add(previous.get(i));
+        }
+        next.addAll(offspring);
+        // List.sort is stable, so ties keep elites ahead of newcomers and newcomers in attempt order.
+        next.sort((a, b) -> Score.FITNESS_ORDER.compare(a.score(), b.score()));
+        if (next.size() > config.getPopulation()) {
+            return new ArrayList<>(next.subList(0, config.getPopulation()));
+        }
+        return next;
+    }
+
+    private List<Patch> breed(String originalSource,
+                              Score.ScoreResult baselineScore,
+                              List<Evaluation> population,
+                              int quota,
+                              MutationContext context,
+                              Random random,
+                              Set<String> seen) {
+        // Only parents that already reduced failures are worth combining; the rest are left to mutation.
+        List<Evaluation> improvers = new ArrayList<>();
+        for (Evaluation individual : population) {
+            if (individual.score().score() < baselineScore.score()) {
+                improvers.add(individual);
+            }
+        }
+        List<Patch> offspring = new ArrayList<>();
+        int attemptsLeft = quota * BREEDING_ATTEMPTS_PER_CHILD;
+        while (offspring.size() < quota && attemptsLeft > 0) {
+            int wanted = quota - offspring.size();
+            List<Patch> batch = new ArrayList<>(wanted);
+            while (batch.size() < wanted && attemptsLeft-- > 0) {
+                Patch child = breedOne(originalSource, improvers, population, context, random);
+                if (child != null && seen.add(child.source())) {
+                    batch.add(child);
+                }
+            }
+            // Children that do not compile never reach a worker, so breed replacements for them.
+            offspring.addAll(validator.filter(batch));
+        }
+        return offspring;
+    }
+
+    private Patch breedOne(String originalSource,
+                           List<Evaluation> improvers,
+                           List<Evaluation> population,
+                           MutationContext context,
+                           Random random) {
+        if (improvers.size() > 1 && random.nextDouble() < CROSSOVER_RATE) {
+            Evaluation first = tournament(improvers, random);
+            Evaluation second = tournament(improvers, random);
+            if (first == second) {
+                return null;
+            }
+            return CrossoverOperator.cross(originalSource, first.patch(), second.patch());
+        }
+        return mutate(tournament(population, random), context, random);
+    }
+
+    private Evaluation tournament(List<Evaluation> population, Random random) {
+        Evaluation winner = null;
+        for (int i = 0; i < config.getTournamentSize(); i++) {
+            Evaluation contender = population.get(random.nextInt(population.size()));
+            if (winner == null || Score.FITNESS_ORDER.compare(contender.score(), winner.score()) < 0) {
+                winner = contender;
+            }
+        }
+        return winner;
+    }
+
+    private Patch mutate(Evaluation parent, MutationContext context, Random random) {
+        List<String> available = new ArrayList<>(operatorNames);
+        while (!available.isEmpty()) {
+            String name = bandit.select(available);
+            MutationOperator operator = operators.get(operatorNames.indexOf(name));
+            List<Patch> mutants = operator.generate(parent.patch().source(), context, MUTANTS_PER_DRAW);
+            if (!mutants.isEmpty()) {
+                Patch mutant = CandidateGenerator.tag(mutants.get(random.nextInt(mutants.size())), operator);
+                return new Patch(mutant.source(), "[" + parent.patch().description() + "] then " + mutant.description(), mutant.origin());
+            }
+            // The operator does not apply to this parent, which says nothing about how good its mutants are: try the
+            // next best one instead of charging it a pull without reward.
+            available.remove(name);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,231 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line-based edit script between two texts, computed with the linear-space variant of Myers' O(ND) algorithm
+ * (divide and conquer on the middle snake, as in GNU diff).
+ */
+public final class LineDiff {
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+    private final int[] forward;
+    private final int[] backward;
+
+    private LineDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.deleted = new boolean[a.length];
+        this.inserted = new boolean[b.length];
+        int size = 2 * (a.length + b.length) + 3;
+        this.forward = new int[size];
+        this.backward = new int[size];
+    }
+
+    /**
+     * Returns the edits that turn {@code original} into {@code revised}, ordered by position and never overlapping.
+     */
+    public static List<Edit> diff(String[] original, String[] revised) {
+        Map<String, Integer> ids = new HashMap<>();
+        LineDiff differ = new LineDiff(intern(original, ids), intern(revised, ids));
+        differ.compare(0, original.length, 0, revised.length);
+        return differ.collectEdits(revised);
+    }
+
+    /**
+     * Applies non-overlapping edits, sorted by start line, to {@code original}.
+     */
+    public static String[] apply(String[] original, List<Edit> edits) {
+        List<String> result = new ArrayList<>(original.length + 8);
+        int cursor = 0;
+        for (Edit edit : edits) {
+            for (int i = cursor; i < edit.start(); i++) {
+                result.add(original[i]);
+            }
+            result.addAll(edit.lines());
+            cursor = edit.end();
+        }
+        for (int i = cursor; i < original.length; i++) {
+            result.add(original[i]);
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private static int[] intern(String[] lines, Map<String, Integer> ids) {
+        int[] result = new int[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            Integer id = ids.get(lines[i]);
+            if (id == null) {
+                id = ids.size();
+                ids.put(lines[i], id);
+            }
+            result[i] = id;
+        }
+        return result;
+    }
+
+    private void compare(int xoff, int xlim, int yoff, int ylim) {
+        while (xoff < xlim && yoff < ylim && a[xoff] == b[yoff]) {
+            xoff++;
+            yoff++;
+        }
+        while (xlim > xoff && ylim > yoff && a[xlim - 1] == b[ylim - 1]) {
+            xlim--;
+            ylim--;
+        }
+        if (xoff == xlim) {
+            for (int y = yoff; y < ylim; y++) {
+                inserted[y] = true;
+            }
+        } else if (yoff == ylim) {
+            for (int x = xoff; x < xlim; x++) {
+                deleted[x] = true;
+            }
+        } else {
+            int[] split = middleSnake(xoff, xlim, yoff, ylim);
+            compare(xoff, split[0], yoff, split[1]);
+            compare(split[0], xlim, split[1], ylim);
+        }
+    }
+
+    /**
+     * Finds a point on an optimal edit path by running the forward and backward searches until they meet.
+     * Both ends of the range are known to differ, so the returned point always splits the problem.
+     */
+    private int[] middleSnake(int xoff, int xlim, int yoff, int ylim) {
+        int n = xlim - xoff;
+        int m = ylim - yoff;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int offset = n + m + 1;
+        int max = (n + m + 1) / 2;
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) {
+                    x = forward[offset + k + 1];
+                } else {
+                    x = forward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[xoff + x] == b[yoff + y]) {
+                    x++;
+                    y++;
+                }
+                forward[offset + k] = x;
+                int c = delta - k;
+                if (odd && c >= -(d - 1) && c <= d - 1 && x + backward[offset + c] >= n) {
+                    return new int[]{xoff + x, yoff + y};
+                }
+            }
+            for (int c = -d; c <= d; c += 2) {
+                int x;
+                if (c == -d || (c != d && backward[offset + c - 1] < backward[offset + c + 1])) {
+                    x = backward[offset + c + 1];
+                } else {
+                    x = backward[offset + c - 1] + 1;
+                }
+                int y = x - c;
+                while (x < n && y < m && a[xlim - 1 - x] == b[ylim - 1 - y]) {
+                    x++;
+                    y++;
+                }
+                backward[offset + c] = x;
+                int k = delta - c;
+                if (!odd && k >= -d && k <= d && x + forward[offset + k] >= n) {
+                    return new int[]{xlim - x, ylim - y};
+                }
+            }
+        }
+        throw new IllegalStateException("Middle snake not found");
+    }
+
+    private List<Edit> collectEdits(String[] revised) {
+        List<Edit> edits = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            boolean deleting = i < a.length && deleted[i];
+            boolean inserting = j < b.length && inserted[j];
+            if (!deleting && !inserting) {
+                i++;
+                j++;
+                continue;
+            }
+            int start = i;
+            int insertStart = j;
+            while ((i < a.length && deleted[i]) || (j < b.length && inserted[j])) {
+                if (i < a.length && deleted[i]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            List<String> lines = new ArrayList<>(j - insertStart);
+            for (int y = insertStart; y < j; y++) {
+                lines.add(revised[y]);
+            }
+            edits.add(new Edit(start, i, lines));
+        }
+        return edits;
+    }
+
+    /**
+     * Replaces original lines {@code [start, end)} with {@code lines}; {@code start == end} is a pure insertion.
+     */
+    public static final class Edit {
+        private final int start;
+        private final int end;
+        private final List<String> lines;
+
+        public Edit(int start, int end, List<String> lines) {
+            this.start = start;
+            this.end = end;
+            this.lines = List.copyOf(lines);
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        public List<String> lines() {
+            return lines;
+        }
+
+        /** Edits conflict when their original ranges overlap or they both insert at the same position. */
+        public boolean conflictsWith(Edit other) {
+            if (start == other.start) {
+                return true;
+            }
+            return start < other.end && other.start < end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Edit)) {
+                return false;
+            }
+            Edit edit = (Edit) o;
+            return start == edit.start && end == edit.end && lines.equals(edit.lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * start + end) + lines.hashCode();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs candidates on an isolated copy of the project on this machine.
+ */
+final class LocalTestSlot implements TestSlot {
+    private final Path workerCopy;
+    private final Path workerTarget;
+    private final String restingSource;
+    private final String testsCommand;
+    private final int timeoutSeconds;
+    private final MutantSchemata schemata;
+    private final TestExecutor executor;
+    private final Metrics metrics;
+
+    LocalTestSlot(Path workerCopy, Path relativeTarget, String originalSource, String testsCommand, int timeoutSeconds) {
+        this(workerCopy, relativeTarget, originalSource, testsCommand, timeoutSeconds, null, TestExecutor.PROCESS, new Metrics());
+    }
+
+    /**
+     * With {@code schemata}, the worker copy's target is expected to hold the meta-program between runs and schema
+     * mutants are evaluated by setting the switch alone.
+     */
+    LocalTestSlot(Path workerCopy, Path relativeTarget, String originalSource, String testsCommand, int timeoutSeconds,
+                  MutantSchemata schemata, TestExecutor executor, Metrics metrics) {
+        this.workerCopy = workerCopy;
+        this.workerTarget = workerCopy.resolve(relativeTarget);
+        this.restingSource = schemata == null ? originalSource : schemata.metaSource();
+        this.testsCommand = testsCommand;
+        this.timeoutSeconds = timeoutSeconds;
+        this.schemata = schemata;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public TestRunResult run(Patch candidate) throws IOException, InterruptedException {
+        return run(candidate, Map.of());
+    }
+
+    @Override
+    public TestRunResult run(Patch candidate, Map<String, String> environment) throws IOException, InterruptedException {
+        Map<String, String> runEnvironment = new HashMap<>(environment);
+        Integer mutant = schemata == null ? null : schemata.idOf(candidate.source());
+        if (mutant != null) {
+            runEnvironment.put(MutantSchemata.SWITCH, mutant.toString());
+            return execute(runEnvironment);
+        }
+        try {
+            write(candidate.source(), false);
+            // Keep a PAR_MUTANT inherited from the caller from reaching a meta-program left over by a failed restore.
+            if (schemata != null) {
+                runEnvironment.put(MutantSchemata.SWITCH, "");
+            }
+            return execute(runEnvironment);
+        } finally {
+            // A cancelled run arrives here interrupted, and an interrupted thread cannot write through a file channel.
+            boolean interrupted = Thread.interrupted();
+            try {
+                write(restingSource, true);
+            } catch (IOException ignore) {
+                // If we fail to reset the target, subsequent attempts may still succeed because each worker has an isolated copy.
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void write(String source, boolean restore) throws IOException {
+        ParEvents.FileWritten event = new ParEvents.FileWritten();
+        event.begin();
+        long start = System.nanoTime();
+        Files.writeString(workerTarget, source);
+        metrics.since("file_write", start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = workerTarget.toString();
+            event.bytes = source.length();
+            event.restore = restore;
+            event.commit();
+        }
+    }
+
+    private TestRunResult execute(Map<String, String> environment) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return executor.run(testsCommand, workerCopy, timeoutSeconds, environment);
+        } finally {
+            metrics.since("test_execution", start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return workerCopy.toString();
+    }
+
+    Path workerCopy() {
+        return workerCopy;
+    }
+}
@@ -0,0 +1,402 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-run counters, gauges and latency histograms for the phases of a repair run, optionally broken down by
+ * operator. Recording is lock-free so it can sit on the evaluation hot path. The registry is exported as
+ * {@code metrics.json} at the end of a run and, on request, as a Prometheus textfile refreshed while it runs.
+ */
+final class Metrics {
+    /** Bucket upper bounds, in seconds, of the exported Prometheus histograms. */
+    private static final double[] PROMETHEUS_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Histogram>> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Records one occurrence of {@code phase} that took {@code nanos}.
+     */
+    void record(String phase, long nanos) {
+        record(phase, "", nanos);
+    }
+
+    /**
+     * Records a phase attributed to an operator. It counts towards both the operator's histogram and the phase total.
+     */
+    void record(String phase, String operator, long nanos) {
+        ConcurrentMap<String, Histogram> byOperator = timers.computeIfAbsent(phase, key -> new ConcurrentHashMap<>());
+        byOperator.computeIfAbsent("", key -> new Histogram()).record(nanos);
+        if (!operator.isEmpty()) {
+            byOperator.computeIfAbsent(operator, key -> new Histogram()).record(nanos);
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a value taken from {@link System#nanoTime()}.
+     */
+    void since(String phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    void increment(String counter) {
+        add(counter, "", 1);
+    }
+
+    void add(String counter, String operator, long delta) {
+        counters.computeIfAbsent(counter, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operator, key -> new LongAdder())
+                .add(delta);
+    }
+
+    /**
+     * Exposes a value that is read whenever the metrics are exported, such as the attempts so far.
+     */
+    void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    Histogram timer(String phase) {
+        return timer(phase, "");
+    }
+
+    Histogram timer(String phase, String operator) {
+        Map<String, Histogram> byOperator = timers.get(phase);
+        return byOperator == null ? null : byOperator.get(operator);
+    }
+
+    long counter(String counter) {
+        Map<String, LongAdder> byOperator = counters.get(counter);
+        if (byOperator == null) {
+            return 0;
+        }
+        long total = 0;
+        for (LongAdder adder : byOperator.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"timers\": {");
+        int phaseIndex = 0;
+        for (Map.Entry<String, Map<String, Histogram>> phase : sortedTimers().entrySet()) {
+            sb.append(phaseIndex++ > 0 ? ",\n" : "\n");
+            sb.append("    ").append(Json.quote(phase.getKey())).append(": ");
+            Map<String, Histogram> byOperator = phase.getValue();
+            Histogram total = byOperator.get("");
+            appendStats(sb, total);
+            if (byOperator.size() > 1) {
+                sb.setLength(sb.length() - 1);
+                sb.append(", \"operators\": {");
+                int operatorIndex = 0;
+                for (Map.Entry<String, Histogram> operator : byOperator.entrySet()) {
+                    if (operator.getKey().isEmpty()) {
+                        continue;
+                    }
+                    sb.append(operatorIndex++ > 0 ? ",\n" : "\n");
+                    sb.append("      ").append(Json.quote(operator.getKey())).append(": ");
+                    appendStats(sb, operator.getValue());
+                }
+                sb.append("\n    }}");
+            }
+        }
+        sb.append(phaseIndex > 0 ? "\n  },\n" : "},\n");
+        sb.append("  \"counters\": {");
+        int counterIndex = 0;
+        for (Map.Entry<String, Map<String, Long>> counter : sortedCounters().entrySet()) {
+            sb.append(counterIndex++ > 0 ? ",\n" : "\n");
+            Map<String, Long> byOperator = counter.getValue();
+            long total = byOperator.values().stream().mapToLong(Long::longValue).sum();
+            sb.append("    ").append(Json.quote(counter.getKey())).append(": ");
+            if (byOperator.size() == 1 && byOperator.containsKey("")) {
+                sb.append(total);
+                continue;
+            }
+            sb.append("{\"total\": ").append(total).append(", \"operators\": {");
+            int operatorIndex = 0;
+            for (Map.Entry<String, Long> operator : byOperator.entrySet()) {
+                if (operator.getKey().isEmpty()) {
+                    continue;
+                }
+                sb.append(operatorIndex++ > 0 ? ", " : "");
+                sb.append(Json.quote(operator.getKey())).append(": ").append(operator.getValue());
+            }
+            sb.append("}}");
+        }
+        sb.append(counterIndex > 0 ? "\n  },\n" : "},\n");
+        sb.append("  \"gauges\": {");
+        int gaugeIndex = 0;
+        for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            sb.append(gaugeIndex++ > 0 ? ", " : "");
+            sb.append(Json.quote(gauge.getKey())).append(": ").append(gauge.getValue().getAsLong());
+        }
+        sb.append("}\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Renders the registry in the Prometheus text exposition format. Phases broken down by operator are exported per
+     * operator only, so that summing a metric never double counts.
+     */
+    String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP par_phase_duration_seconds Time spent in each phase of a PAR repair run.\n");
+        sb.append("# TYPE par_phase_duration_seconds histogram\n");
+        for (Map.Entry<String, Map<String, Histogram>> phase : sortedTimers().entrySet()) {
+            Map<String, Histogram> byOperator = phase.getValue();
+            boolean perOperator = byOperator.size() > 1;
+            for (Map.Entry<String, Histogram> operator : byOperator.entrySet()) {
+                if (operator.getKey().isEmpty() == perOperator) {
+                    continue;
+                }
+                String labels = "phase=\"" + label(phase.getKey()) + "\""
+                        + (operator.getKey().isEmpty() ? "" : ",operator=\"" + label(operator.getKey()) + "\"");
+                Histogram histogram = operator.getValue();
+                for (double bound : PROMETHEUS_BUCKETS) {
+                    sb.append("par_phase_duration_seconds_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+                            .append(histogram.countAtOrBelow((long) (bound * 1e9))).append('\n');
+                }
+                long count = histogram.count();
+                sb.append("par_phase_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+                sb.append("par_phase_duration_seconds_sum{").append(labels).append("} ").append(seconds(histogram.sum())).append('\n');
+                sb.append("par_phase_duration_seconds_count{").append(labels).append("} ").append(count).append('\n');
+            }
+        }
+        sb.append("# HELP par_events_total Events counted during a PAR repair run.\n");
+        sb.append("# TYPE par_events_total counter\n");
+        for (Map.Entry<String, Map<String, Long>> counter : sortedCounters().entrySet()) {
+            for (Map.Entry<String, Long> operator : counter.getValue().entrySet()) {
+                sb.append("par_events_total{event=\"").append(label(counter.getKey())).append('"');
+                if (!operator.getKey().isEmpty()) {
+                    sb.append(",operator=\"").append(label(operator.getKey())).append('"');
+                }
+                sb.append("} ").append(operator.getValue()).append('\n');
+            }
+        }
+        for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            String name = "par_" + gauge.getKey().replaceAll("[^a-zA-Z0-9_]", "_");
+            sb.append("# TYPE ").append(name).append(" gauge\n");
+            sb.append(name).append(' ').append(gauge.getValue().getAsLong()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+
+    /**
+     * Replaces {@code file} atomically, as the node_exporter textfile collector requires, so a scrape never sees a
+     * partial file. Synchronized so the final write on close never shares the temporary file with a periodic one.
+     */
+    synchronized void writePrometheus(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path parent = absolute.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.writeString(temp, toPrometheus());
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Rewrites the Prometheus textfile every {@code intervalSeconds} on a virtual thread until the returned handle is
+     * closed, which writes it one final time.
+     */
+    Export exportPeriodically(Path file, int intervalSeconds) {
+        Thread exporter = Thread.ofVirtual().name("par-metrics").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    writePrometheus(file);
+                    Thread.sleep(intervalSeconds * 1000L);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (IOException ex) {
+                    System.out.println("Could not write Prometheus metrics to " + file + ": " + ex.getMessage());
+                    return;
+                }
+            }
+        });
+        return () -> {
+            exporter.interrupt();
+            boolean interrupted = false;
+            try {
+                exporter.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+            try {
+                writePrometheus(file);
+            } finally {
+                // Restored only now: file channels refuse to write on an interrupted thread.
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    /**
+     * A running textfile export; closing it stops the refresh and writes the final values. A close interrupted while
+     * waiting for the refresh to stop still writes them, and leaves the thread's interrupt flag set.
+     */
+    interface Export extends AutoCloseable {
+        @Override
+        void close() throws IOException;
+    }
+
+    private Map<String, Map<String, Histogram>> sortedTimers() {
+        Map<String, Map<String, Histogram>> sorted = new TreeMap<>();
+        timers.forEach((phase, byOperator) -> sorted.put(phase, new TreeMap<>(byOperator)));
+        return sorted;
+    }
+
+    private Map<String, Map<String, Long>> sortedCounters() {
+        Map<String, Map<String, Long>> sorted = new TreeMap<>();
+        counters.forEach((counter, byOperator) -> {
+            Map<String, Long> values = new TreeMap<>();
+            byOperator.forEach((operator, adder) -> values.put(operator, adder.sum()));
+            sorted.put(counter, values);
+        });
+        return sorted;
+    }
+
+    private static void appendStats(StringBuilder sb, Histogram histogram) {
+        long count = histogram.count();
+        sb.append("{\"count\": ").append(count)
+                .append(", \"total_seconds\": ").append(seconds(histogram.sum()))
+                .append(", \"mean_seconds\": ").append(seconds(count == 0 ? 0 : histogram.sum() / count))
+                .append(", \"min_seconds\": ").append(seconds(histogram.min()))
+                .append(", \"p50_seconds\": ").append(seconds(histogram.percentile(0.50)))
+                .append(", \"p90_seconds\": ").append(seconds(histogram.percentile(0.90)))
+                .append(", \"p99_seconds\": ").append(seconds(histogram.percentile(0.99)))
+                .append(", \"max_seconds\": ").append(seconds(histogram.max()))
+                .append('}');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * A log-linear latency histogram in the style of HdrHistogram: values below 32 ns are exact and every power of two
+     * above is split into 32 linear sub-buckets, bounding the relative error of any reported value by about 3%.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(0);
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+            if (value < min.get()) {
+                min.accumulateAndGet(value, Math::min);
+            }
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long sum() {
+            return sum.sum();
+        }
+
+        long min() {
+            long value = min.get();
+            return value == Long.MAX_VALUE ? 0 : value;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * The smallest recorded value such that at least {@code quantile} of all values are at or below it, to within
+         * the bucket resolution.
+         */
+        long percentile(double quantile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= target) {
+                    return Math.min(upperBound(bucket), max());
+                }
+            }
+            return max();
+        }
+
+        /**
+         * Values recorded at or below {@code nanos}, counting a bucket only when all of it lies within the bound.
+         */
+        long countAtOrBelow(long nanos) {
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS && upperBound(bucket) <= nanos; bucket++) {
+                seen += counts.get(bucket);
+            }
+            return seen;
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+            return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+            long mantissa = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+            long upper = ((mantissa + 1) << shift) - 1;
+            return upper < 0 ? Long.MAX_VALUE : upper;
+        }
+    }
+}
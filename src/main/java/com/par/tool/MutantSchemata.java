@@ -0,0 +1,276 @@
+package com.par.tool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Folds single-line expression mutants into one meta-program whose active mutant is picked at run time by the
+ * {@value #SWITCH} environment variable. Workers write the meta-program once and evaluate each schema mutant by
+ * setting the switch, so those candidates cost no file writes and reuse Python's bytecode cache.
+ *
+ * <p>A mutated statement line becomes an {@code if/elif/else} chain over the mutants of that line; a mutated
+ * {@code if}, {@code elif} or {@code while} header keeps its keyword and selects the condition with nested conditional
+ * expressions. Lines inside brackets, continuations or triple-quoted strings are left alone, and every rewritten line
+ * must compile on its own before it is kept.
+ */
+final class MutantSchemata {
+    static final String SWITCH = "PAR_MUTANT";
+
+    private static final Set<String> OPERATORS = Set.of(
+            "ArithmeticOperator", "CompareOperator", "IfNegationOperator", "SmallIntTweakerOperator");
+    private static final Pattern HEADER = Pattern.compile("(if|elif|while)\\s+(.+):");
+    private static final String ACTIVE = "__import__('os').environ.get('" + SWITCH + "')";
+
+    private final String metaSource;
+    private final Map<String, Integer> ids;
+
+    private MutantSchemata(String metaSource, Map<String, Integer> ids) {
+        this.metaSource = metaSource;
+        this.ids = ids;
+    }
+
+    /**
+     * Builds the meta-program for the eligible candidates, or returns {@code null} if none qualify or the result does
+     * not compile. Candidates left out simply keep the regular write-and-restore evaluation.
+     */
+    static MutantSchemata build(String originalSource, List<Patch> candidates) {
+        String[] lines = originalSource.split("\n", -1);
+        boolean[] eligible = eligibleLines(lines);
+        Map<Integer, Map<String, String>> byLine = new TreeMap<>();
+        Set<String> seen = new HashSet<>();
+        for (Patch candidate : candidates) {
+            if (!OPERATORS.contains(candidate.origin()) || !seen.add(candidate.source())) {
+                continue;
+            }
+            List<LineDiff.Edit> edits = LineDiff.diff(lines, candidate.source().split("\n", -1));
+            if (edits.size() != 1) {
+                continue;
+            }
+            LineDiff.Edit edit = edits.get(0);
+            if (edit.end() - edit.start() != 1 || edit.lines().size() != 1 || !eligible[edit.start()]) {
+                continue;
+            }
+            byLine.computeIfAbsent(edit.start(), line -> new LinkedHashMap<>()).put(candidate.source(), edit.lines().get(0));
+        }
+        if (byLine.isEmpty()) {
+            return null;
+        }
+
+        // Number mutants in line order so ids are stable for a given candidate pool.
+        Map<Integer, List<Mutant>> mutants = new TreeMap<>();
+        int nextId = 1;
+        for (Map.Entry<Integer, Map<String, String>> line : byLine.entrySet()) {
+            List<Mutant> lineMutants = new ArrayList<>();
+            for (Map.Entry<String, String> mutant : line.getValue().entrySet()) {
+                lineMutants.add(new Mutant(nextId++, mutant.getKey(), mutant.getValue()));
+            }
+            mutants.put(line.getKey(), lineMutants);
+        }
+
+        Map<Integer, List<String>> rewritten = new TreeMap<>();
+        for (Map.Entry<Integer, List<Mutant>> line : mutants.entrySet()) {
+            List<String> schema = rewrite(lines[line.getKey()], line.getValue());
+            if (schema != null) {
+                rewritten.put(line.getKey(), schema);
+            }
+        }
+
+        // Check each rewritten line in isolation, then the combination, in one round-trip to the Python helper.
+        List<Integer> order = new ArrayList<>(rewritten.keySet());
+        List<String> sources = new ArrayList<>();
+        for (int line : order) {
+            sources.add(compose(lines, Map.of(line, rewritten.get(line))));
+        }
+        sources.add(compose(lines, rewritten));
+        List<PythonAstService.SourceCheck> checks = PythonAstService.inspect(sources);
+        if (checks == null) {
+            return null;
+        }
+        for (int i = 0; i < order.size(); i++) {
+            if (!checks.get(i).valid()) {
+                rewritten.remove(order.get(i));
+            }
+        }
+        if (rewritten.isEmpty()) {
+            return null;
+        }
+        String metaSource = compose(lines, rewritten);
+        if (rewritten.size() < order.size() || !checks.get(order.size()).valid()) {
+            List<PythonAstService.SourceCheck> recheck = PythonAstService.inspect(List.of(metaSource));
+            if (recheck == null || !recheck.get(0).valid()) {
+                return null;
+            }
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (int line : rewritten.keySet()) {
+            for (Mutant mutant : mutants.get(line)) {
+                if (mutant.kept) {
+                    ids.put(mutant.source, mutant.id);
+                }
+            }
+        }
+        return new MutantSchemata(metaSource, ids);
+    }
+
+    String metaSource() {
+        return metaSource;
+    }
+
+    /**
+     * The switch value that activates the candidate with this source, or {@code null} if it is not in the schemata.
+     */
+    Integer idOf(String source) {
+        return ids.get(source);
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    private static List<String> rewrite(String original, List<Mutant> lineMutants) {
+        String indent = original.substring(0, original.length() - original.stripLeading().length());
+        String body = original.substring(indent.length());
+        String unit = indent.contains("\t") ? "\t" : "    ";
+        Matcher header = HEADER.matcher(body);
+        if (header.matches()) {
+            String keyword = header.group(1);
+            String condition = "(" + header.group(2) + ")";
+            for (int i = lineMutants.size() - 1; i >= 0; i--) {
+                Mutant mutant = lineMutants.get(i);
+                Matcher mutated = HEADER.matcher(mutant.line.substring(Math.min(indent.length(), mutant.line.length())));
+                if (!mutant.line.startsWith(indent) || !mutated.matches() || !mutated.group(1).equals(keyword)) {
+                    continue;
+                }
+                condition = "((" + mutated.group(2) + ") if " + ACTIVE + " == '" + mutant.id + "' else " + condition + ")";
+                mutant.kept = true;
+            }
+            if (lineMutants.stream().noneMatch(mutant -> mutant.kept)) {
+                return null;
+            }
+            return List.of(indent + keyword + " " + condition + ":");
+        }
+        if (body.endsWith(":")) {
+            // Other block headers (for, def, with, ...) cannot be wrapped without moving their body.
+            return null;
+        }
+        List<String> schema = new ArrayList<>();
+        for (Mutant mutant : lineMutants) {
+            if (!mutant.line.startsWith(indent)) {
+                continue;
+            }
+            schema.add(indent + (schema.isEmpty() ? "if " : "elif ") + ACTIVE + " == '" + mutant.id + "':");
+            schema.add(indent + unit + mutant.line.substring(indent.length()));
+            mutant.kept = true;
+        }
+        if (schema.isEmpty()) {
+            return null;
+        }
+        schema.add(indent + "else:");
+        schema.add(indent + unit + body);
+        return schema;
+    }
+
+    private static String compose(String[] lines, Map<Integer, List<String>> rewritten) {
+        List<String> out = new ArrayList<>(lines.length + rewritten.size() * 4);
+        for (int i = 0; i < lines.length; i++) {
+            List<String> replacement = rewritten.get(i);
+            if (replacement == null) {
+                out.add(lines[i]);
+            } else {
+                out.addAll(replacement);
+            }
+        }
+        return String.join("\n", out);
+    }
+
+    /**
+     * Marks lines that hold a complete logical line: not inside brackets, a triple-quoted string or a backslash
+     * continuation, and not a decorator.
+     */
+    static boolean[] eligibleLines(String[] lines) {
+        boolean[] eligible = new boolean[lines.length];
+        int depth = 0;
+        String triple = null;
+        boolean continued = false;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            boolean startsClean = depth == 0 && triple == null && !continued;
+            int pos = 0;
+            while (pos < line.length()) {
+                if (triple != null) {
+                    int close = line.indexOf(triple, pos);
+                    if (close < 0) {
+                        pos = line.length();
+                        break;
+                    }
+                    pos = close + 3;
+                    triple = null;
+                    continue;
+                }
+                char c = line.charAt(pos);
+                if (c == '#') {
+                    break;
+                }
+                if (c == '"' || c == '\'') {
+                    String quote = String.valueOf(c).repeat(3);
+                    if (line.startsWith(quote, pos)) {
+                        triple = quote;
+                        pos += 3;
+                        continue;
+                    }
+                    pos = skipString(line, pos);
+                    continue;
+                }
+                if (c == '(' || c == '[' || c == '{') {
+                    depth++;
+                } else if ((c == ')' || c == ']' || c == '}') && depth > 0) {
+                    depth--;
+                }
+                pos++;
+            }
+            continued = triple == null && line.stripTrailing().endsWith("\\");
+            boolean endsClean = depth == 0 && triple == null && !continued;
+            eligible[i] = startsClean && endsClean && !line.isBlank() && !line.stripLeading().startsWith("@");
+        }
+        return eligible;
+    }
+
+    private static int skipString(String line, int start) {
+        char quote = line.charAt(start);
+        int pos = start + 1;
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == quote) {
+                return pos + 1;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static final class Mutant {
+        private final int id;
+        private final String source;
+        private final String line;
+        private boolean kept;
+
+        Mutant(int id, String source, String line) {
+            this.id = id;
+            this.source = source;
+            this.line = line;
+        }
+    }
+}
@@ -24,4 +24,12 @@ public final class MutationContext {
     public FixDatabase fixDatabase() {
         return fixDatabase;
     }
+
+    /**
+     * Returns a context sharing the databases but with its own random stream, so work fanned out across threads
+     * stays reproducible for a given seed.
+     */
+    public MutationContext withSeed(long seed) {
+        return new MutationContext(new Random(seed), faultDatabase, fixDatabase);
+    }
 }
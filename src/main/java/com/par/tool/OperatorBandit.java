@@ -0,0 +1,245 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * UCB1 multi-armed bandit over candidate origins. Arms are operator names, and pattern fixes use
+ * {@code Operator/FixPattern} so that a reward for a fix pattern also credits the operator that produced it.
+ * Statistics persist between runs so a new job starts from what worked on the same codebase before.
+ */
+public final class OperatorBandit {
+    /** Expected reward assumed for an arm that has never been observed. */
+    static final double DEFAULT_REWARD = 0.5;
+    // Persisted history counts as at most this many pulls so fresh evidence can still overturn it.
+    private static final double MAX_PRIOR_PULLS = 20.0;
+    private static final double EXPLORATION = Math.sqrt(2.0);
+    /** Serializes read-merge-write cycles on statistics files within this JVM. */
+    private static final Object FILE_LOCK = new Object();
+
+    private final Map<String, ArmStats> arms = new LinkedHashMap<>();
+
+    /**
+     * Maps an evaluation to a reward in {@code [0, 1]}: a full fix earns 1, reducing failures earns more the larger the
+     * reduction, and candidates that time out earn nothing. Candidates that do not compile never get this far; the
+     * {@link CandidateValidator} reports them, and they earn nothing either.
+     */
+    public static double reward(Score.ScoreResult baseline, Evaluation evaluation) {
+        TestRunResult run = evaluation.run();
+        if (run.exitCode() == 124) {
+            return 0.0;
+        }
+        int score = evaluation.score().score();
+        if (score == 0) {
+            return 1.0;
+        }
+        if (score < baseline.score()) {
+            return 0.5 + 0.5 * (baseline.score() - score) / (double) baseline.score();
+        }
+        if (score == baseline.score()) {
+            return 0.2;
+        }
+        return 0.1;
+    }
+
+    /**
+     * Picks the available arm with the highest upper confidence bound; unseen arms are tried first, in the order given.
+     */
+    public synchronized String select(Collection<String> available) {
+        double totalPulls = 0;
+        for (String arm : available) {
+            totalPulls += stats(arm).effectivePulls();
+        }
+        String best = null;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (String arm : available) {
+            ArmStats stats = stats(arm);
+            double pulls = stats.effectivePulls();
+            double bound = pulls == 0
+                    ? Double.POSITIVE_INFINITY
+                    : stats.mean() + EXPLORATION * Math.sqrt(Math.log(Math.max(totalPulls, 1.0)) / pulls);
+            if (best == null || bound > bestBound) {
+                best = arm;
+                bestBound = bound;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a dispatched but not yet rewarded pull, so concurrent dispatches do not all pile onto the same arm.
+     */
+    public synchronized void markPending(String arm) {
+        stats(arm).pending++;
+    }
+
+    /**
+     * Settles a pending pull that ended without an evaluation, such as a cancelled run or one that could not be
+     * launched, without counting it as a pull.
+     */
+    public synchronized void abandon(String arm) {
+        ArmStats stats = arms.get(arm);
+        if (stats != null && stats.pending > 0) {
+            stats.pending--;
+        }
+    }
+
+    /**
+     * Records a reward for an arm, settling one pending pull if {@link #markPending} was used for it.
+     */
+    public synchronized void record(String arm, double reward) {
+        if (arm == null || arm.isEmpty()) {
+            return;
+        }
+        ArmStats stats = stats(arm);
+        if (stats.pending > 0) {
+            stats.pending--;
+        }
+        stats.pulls++;
+        stats.rewardSum += reward;
+        int slash = arm.indexOf('/');
+        if (slash > 0) {
+            ArmStats parent = stats(arm.substring(0, slash));
+            parent.pulls++;
+            parent.rewardSum += reward;
+        }
+    }
+
+    /** Mean reward of the arm including persisted history, or {@link #DEFAULT_REWARD} when nothing is known. */
+    public synchronized double expectedReward(String arm) {
+        ArmStats stats = arms.get(arm);
+        if (stats == null || stats.priorPulls + stats.pulls == 0) {
+            return DEFAULT_REWARD;
+        }
+        return stats.mean();
+    }
+
+    public synchronized void load(Path file) throws IOException {
+        for (Map.Entry<String, double[]> entry : readHistory(file).entrySet()) {
+            double pulls = entry.getValue()[0];
+            double reward = entry.getValue()[1];
+            ArmStats stats = stats(entry.getKey());
+            stats.historyPulls = pulls;
+            stats.historyReward = reward;
+            double weight = Math.min(pulls, MAX_PRIOR_PULLS);
+            stats.priorPulls = weight;
+            stats.priorReward = reward / pulls * weight;
+        }
+    }
+
+    /**
+     * Adds everything observed in this run to the history in the file, once per run. The file is read again rather
+     * than trusting what {@link #load} saw, so runs sharing it at the same time, as server jobs do, keep each other's
+     * statistics.
+     */
+    public void save(Path file) throws IOException {
+        synchronized (FILE_LOCK) {
+            Map<String, double[]> totals;
+            try {
+                totals = readHistory(file);
+            } catch (IOException | IllegalArgumentException ex) {
+                totals = null;
+            }
+            StringBuilder sb = new StringBuilder();
+            synchronized (this) {
+                if (totals == null) {
+                    // The file became unreadable since it was loaded; keep the history this run started from.
+                    totals = new LinkedHashMap<>();
+                    for (Map.Entry<String, ArmStats> entry : arms.entrySet()) {
+                        totals.put(entry.getKey(), new double[]{entry.getValue().historyPulls, entry.getValue().historyReward});
+                    }
+                }
+                for (Map.Entry<String, ArmStats> entry : arms.entrySet()) {
+                    double[] total = totals.computeIfAbsent(entry.getKey(), key -> new double[2]);
+                    total[0] += entry.getValue().pulls;
+                    total[1] += entry.getValue().rewardSum;
+                }
+            }
+            sb.append("{\n  \"arms\": {");
+            boolean first = true;
+            for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+                double pulls = entry.getValue()[0];
+                double reward = entry.getValue()[1];
+                if (pulls == 0) {
+                    continue;
+                }
+                sb.append(first ? "\n" : ",\n");
+                first = false;
+                sb.append("    ").append(Json.quote(entry.getKey())).append(": {")
+                        .append("\"pulls\": ").append((long) pulls)
+                        .append(", \"reward\": ").append(String.format(Locale.ROOT, "%.4f", reward))
+                        .append(", \"mean\": ").append(String.format(Locale.ROOT, "%.4f", reward / pulls))
+                        .append('}');
+            }
+            sb.append(first ? "}\n}\n" : "\n  }\n}\n");
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // A run loading the file meanwhile sees either the old or the new statistics, never half of them.
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, sb.toString());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Pulls and summed reward per arm as persisted in {@code file}; nothing when the file does not exist.
+     */
+    private static Map<String, double[]> readHistory(Path file) throws IOException {
+        Map<String, double[]> history = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        Map<String, Object> root = Json.parseObject(Files.readString(file));
+        Object armsNode = root.get("arms");
+        if (!(armsNode instanceof Map)) {
+            return history;
+        }
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) armsNode).entrySet()) {
+            if (!(entry.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> values = (Map<?, ?>) entry.getValue();
+            double pulls = number(values.get("pulls"));
+            if (pulls <= 0) {
+                continue;
+            }
+            history.put(entry.getKey().toString(), new double[]{pulls, number(values.get("reward"))});
+        }
+        return history;
+    }
+
+    private ArmStats stats(String arm) {
+        return arms.computeIfAbsent(arm, key -> new ArmStats());
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static final class ArmStats {
+        private double historyPulls;
+        private double historyReward;
+        private double priorPulls;
+        private double priorReward;
+        private int pulls;
+        private double rewardSum;
+        private int pending;
+
+        double effectivePulls() {
+            return priorPulls + pulls + pending;
+        }
+
+        double mean() {
+            double observed = priorPulls + pulls;
+            return observed == 0 ? DEFAULT_REWARD : (priorReward + rewardSum) / observed;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.par.tool;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the life of a candidate, from generation to a new best. They are registered but
+ * disabled by default and cost next to nothing until a recording enables them, for example with
+ * {@code -XX:StartFlightRecording:settings=default,settings=jfr/par.jfc}. Call sites fill in the fields only once
+ * {@code shouldCommit()} says the event will be recorded, and stack traces are left out because the fields already
+ * say where an event came from.
+ */
+final class ParEvents {
+    private static final String CATEGORY = "PAR";
+
+    private ParEvents() {}
+
+    @Name("com.par.tool.CandidateGenerated")
+    @Label("Candidates Generated")
+    @Description("One mutation operator producing a batch of candidates")
+    @Category({CATEGORY, "Generation"})
+    @StackTrace(false)
+    static final class CandidateGenerated extends Event {
+        @Label("Operator")
+        String operator;
+
+        @Label("Requested")
+        int requested;
+
+        @Label("Candidates")
+        int candidates;
+
+        @Label("Source Size")
+        @DataAmount
+        long sourceBytes;
+    }
+
+    @Name("com.par.tool.CandidateScheduled")
+    @Label("Candidate Scheduled")
+    @Description("A candidate handed to a test slot under an attempt number")
+    @Category({CATEGORY, "Evaluation"})
+    @StackTrace(false)
+    static final class CandidateScheduled extends Event {
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Operator")
+        String operator;
+
+        @Label("Description")
+        String description;
+    }
+
+    @Name("com.par.tool.WorkerLeased")
+    @Label("Worker Leased")
+    @Description("Waiting for and taking an idle test slot; the duration is the time spent waiting")
+    @Category({CATEGORY, "Evaluation"})
+    @StackTrace(false)
+    static final class WorkerLeased extends Event {
+        @Label("Worker")
+        String worker;
+
+        @Label("Idle Workers Left")
+        int idle;
+    }
+
+    @Name("com.par.tool.FileWritten")
+    @Label("File Written")
+    @Description("A candidate written into, or the resting source restored to, a worker copy")
+    @Category({CATEGORY, "Evaluation"})
+    @StackTrace(false)
+    static final class FileWritten extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Restore")
+        boolean restore;
+    }
+
+    @Name("com.par.tool.ProcessStarted")
+    @Label("Process Started")
+    @Category({CATEGORY, "Process"})
+    @StackTrace(false)
+    static final class ProcessStarted extends Event {
+        @Label("PID")
+        long pid;
+
+        @Label("Command")
+        String command;
+
+        @Label("Directory")
+        String directory;
+    }
+
+    @Name("com.par.tool.ProcessExited")
+    @Label("Process Exited")
+    @Description("A test command from start to exit; the duration is its wall time")
+    @Category({CATEGORY, "Process"})
+    @StackTrace(false)
+    static final class ProcessExited extends Event {
+        @Label("PID")
+        long pid;
+
+        @Label("Exit Code")
+        int exitCode;
+
+        @Label("Timed Out")
+        boolean timedOut;
+
+        @Label("Standard Output")
+        @DataAmount
+        long stdoutBytes;
+
+        @Label("Standard Error")
+        @DataAmount
+        long stderrBytes;
+    }
+
+    @Name("com.par.tool.ScoreComputed")
+    @Label("Score Computed")
+    @Description("Parsing the test output of an attempt into a score")
+    @Category({CATEGORY, "Evaluation"})
+    @StackTrace(false)
+    static final class ScoreComputed extends Event {
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Operator")
+        String operator;
+
+        @Label("Exit Code")
+        int exitCode;
+
+        @Label("Score")
+        int score;
+
+        @Label("Failed")
+        int failed;
+
+        @Label("Errors")
+        int errors;
+
+        @Label("Passed")
+        int passed;
+    }
+
+    @Name("com.par.tool.BestImproved")
+    @Label("Best Improved")
+    @Description("A candidate replacing the best one so far; the duration is the time spent holding the best-candidate lock")
+    @Category({CATEGORY, "Search"})
+    @StackTrace(false)
+    static final class BestImproved extends Event {
+        @Label("Operator")
+        String operator;
+
+        @Label("Description")
+        String description;
+
+        @Label("Previous Score")
+        int previousScore;
+
+        @Label("Score")
+        int score;
+    }
+}
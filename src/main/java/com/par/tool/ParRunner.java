@@ -14,26 +14,57 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
 
 import com.par.tool.MutationOperator;
 
 public final class ParRunner {
+    // How long the end of a run waits for cancelled startup work before leaving it behind.
+    private static final long STARTUP_CANCEL_GRACE_MILLIS = 2000;
+
     private final Config config;
     private final FaultDatabase faultDatabase;
     private final FixDatabase fixDatabase;
     private final PatternMatcher patternMatcher;
+    private final List<MutationOperator> operators;
+    private final OperatorBandit bandit;
     private final CandidateGenerator candidateGenerator;
+    private final Path resultsDir;
+    private final TestExecutor executor;
+    private final RunTimings timings = new RunTimings();
+    private final Metrics metrics = new Metrics();
+    private final SharedWorkerPool pool;
+    private ProgressEvents progress;
 
     public ParRunner(Config config) {
+        this(config, Path.of("_apr_results"));
+    }
+
+    ParRunner(Config config, Path resultsDir) {
+        this(config, resultsDir, null);
+    }
+
+    /**
+     * With a {@code pool}, candidates are evaluated on the pool's shared slots instead of private worker copies, and
+     * the per-attempt console lines are left to the events stream.
+     */
+    ParRunner(Config config, Path resultsDir, SharedWorkerPool pool) {
         this.config = config;
+        this.pool = pool;
+        this.resultsDir = resultsDir;
+        this.executor = config.getSimulation() == null
+                ? TestExecutor.PROCESS
+                : SimulatedTestExecutor.parse(config.getSimulation(), config.getSeed());
         this.faultDatabase = new FaultDatabase();
         this.fixDatabase = new FixDatabase();
         this.patternMatcher = new PatternMatcher(faultDatabase, fixDatabase);
@@ -46,178 +77,461 @@ public final class ParRunner {
         operators.add(new IfNegationOperator());
         operators.add(new SmallIntTweakerOperator());
         operators.add(new PatternBasedOperator(patternMatcher));
-        this.candidateGenerator = new CandidateGenerator(operators);
+        this.operators = List.copyOf(operators);
+        this.bandit = new OperatorBandit();
+        // Shards must all derive the same candidate sequence, so their generation cannot depend on local operator history.
+        this.candidateGenerator = config.isSharded() ? new CandidateGenerator(operators, null, metrics)
+                : new CandidateGenerator(operators, bandit, metrics);
+    }
+
+    /**
+     * Milestones of the last {@link #run()}, for the benchmark harness.
+     */
+    RunTimings timings() {
+        return timings;
+    }
+
+    /**
+     * Phase timings and counters of the last {@link #run()}.
+     */
+    Metrics metrics() {
+        return metrics;
     }
 
     public void run() throws IOException, InterruptedException {
-        Path resultsDir = Path.of("_apr_results");
+        timings.start();
         Files.createDirectories(resultsDir);
+        Metrics.Export export = config.getPrometheusFile() == null
+                ? null
+                : metrics.exportPeriodically(config.getPrometheusFile(), config.getPrometheusIntervalSeconds());
+        // Created per run so that console lines go wherever System.out points while it runs.
+        progress = new ProgressEvents(pool == null ? System.out : null, config.getEventsFile(), config.getBudget(), config.getEventsIntervalSeconds());
+        try {
+            repair();
+        } finally {
+            progress.close();
+            if (export != null) {
+                export.close();
+            }
+            metrics.writeJson(resultsDir.resolve("metrics.json"));
+        }
+    }
 
-        Path tempRoot = Files.createTempDirectory("apr_java_");
+    private void repair() throws IOException, InterruptedException {
+        long copyStart = System.nanoTime();
         Path projectName = config.getProject().getFileName();
         if (projectName == null) {
             throw new IllegalStateException("Project path has no file name");
         }
-        Path workingCopy = tempRoot.resolve(projectName);
-        FileUtils.copyRecursive(config.getProject(), workingCopy);
-        try {
-        Path relativeTarget = config.getProject().relativize(config.getTarget());
-        Path targetCopy = workingCopy.resolve(relativeTarget);
-        if (!Files.exists(targetCopy)) {
-            throw new IllegalStateException("Target file not found in working copy: " + targetCopy);
+        Path tempRoot = null;
+        SharedWorkerPool.Lease baselineLease = null;
+        Path workingCopy;
+        WorkerEnvironment baselineWorker;
+        if (pool == null) {
+            tempRoot = Files.createTempDirectory("apr_java_");
+            workingCopy = tempRoot.resolve(projectName);
+            FileUtils.copyRecursive(config.getProject(), workingCopy);
+            // The baseline runs before any worker, so it can borrow worker 0's ports.
+            baselineWorker = new WorkerEnvironment(0, WorkerEnvironment.tmpDirFor(workingCopy), config.getPortBase(),
+                    config.getPortsPerWorker(), null);
+        } else {
+            // The baseline waits its turn for a slot like any candidate and gives it back as soon as it is done.
+            while (baselineLease == null) {
+                baselineLease = pool.lease(config.getProject(), TimeUnit.SECONDS.toMillis(1));
+            }
+            workingCopy = baselineLease.copy();
+            baselineWorker = baselineLease.environment(config);
         }
+        TestExecutor baselineExecutor = TestExecutor.forWorker(executor, baselineWorker);
+        metrics.since("project_copy", copyStart);
+        // Startup work that only needs the original project runs on these threads while the baseline suite does.
+        ExecutorService startup = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-startup-", 0).factory());
+        Future<Coordinator> coordinatorSetup = null;
+        try {
+            Path relativeTarget = config.getProject().relativize(config.getTarget());
+            Path targetCopy = workingCopy.resolve(relativeTarget);
+            if (!Files.exists(targetCopy)) {
+                throw new IllegalStateException("Target file not found in working copy: " + targetCopy);
+            }
+            String originalSource = Files.readString(targetCopy);
 
-            TestRunResult baselineRun = ProcessUtils.runCommand(config.getTestsCommand(), workingCopy, config.getTimeoutSeconds());
+            if (!config.isSharded()) {
+                // Loaded before generation starts, which shares the candidate limit by past operator rewards.
+                loadOperatorStats();
+            }
+            Random random = new Random(config.getSeed());
+            MutationContext context = new MutationContext(random, faultDatabase, fixDatabase);
+            CandidateValidator validator = new CandidateValidator(originalSource);
+            // A candidate that does not compile costs no test run, but its operator still earns nothing for it.
+            validator.addRejectionListener(patch -> bandit.record(patch.origin(), 0.0));
+            Future<List<String>> faults = startup.submit(() -> {
+                long detectionStart = System.nanoTime();
+                List<String> detected = patternMatcher.detectFaults(originalSource);
+                metrics.since("fault_detection", detectionStart);
+                return detected;
+            });
+            Future<List<Patch>> generation = config.getSearchMode() == Config.SearchMode.ENUMERATE
+                    ? startup.submit(() -> enumerateCandidates(originalSource, context, validator, random, faults))
+                    : null;
+            Future<List<Path>> workerSetup = null;
+            boolean localWorkers = !config.isCoordinator() && pool == null;
+            Path workersRoot = tempRoot == null ? null : tempRoot.resolve("workers");
+            // Worker copies are cloned from the project itself, which the baseline run cannot disturb. With schemata
+            // they are cloned from the working copy once the meta-program is installed there.
+            if (localWorkers && !(config.isSchemata() && generation != null)) {
+                workerSetup = startup.submit(() -> prepareWorkerCopies(config.getProject(), workersRoot, projectName, config.getThreads()));
+            }
+            if (config.isCoordinator()) {
+                coordinatorSetup = startup.submit(() -> startCoordinator(relativeTarget, originalSource));
+            }
+
+            if (config.getSimulation() != null) {
+                System.out.println("Simulating test runs (" + (config.getSimulation().isEmpty() ? "defaults" : config.getSimulation())
+                        + "); the test command is not executed.");
+            }
+            long baselineStart = System.nanoTime();
+            TestRunResult baselineRun = baselineExecutor.run(config.getTestsCommand(), workingCopy, config.getTimeoutSeconds());
+            metrics.since("baseline", baselineStart);
+            if (baselineLease != null) {
+                baselineLease.close();
+            }
             Score.ScoreResult baselineScore = Score.evaluate(baselineRun);
             System.out.println("BASELINE EXIT: " + baselineRun.exitCode());
             System.out.println("BASELINE SUMMARY: " + baselineScore.summary());
             if (baselineRun.exitCode() == 127) {
                 System.out.println("Test command failed to launch (exit 127). Ensure the shell command is available and the tests command is valid.");
                 writeBaselineLogs(resultsDir, baselineRun);
+                progress.runFinished("test_command_failed", null, 0, baselineScore);
+                if (config.isSharded()) {
+                    writeShardResult(resultsDir, "test_command_failed", originalSource, baselineRun.exitCode(), baselineScore,
+                            null, Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+                    return;
+                }
                 String summary = SummaryWriter.createSummary(
                         "test_command_failed",
+                        null,
                         baselineRun.exitCode(),
                         baselineScore,
                         baselineScore,
                         0,
                         null,
-                        Collections.emptyList()
+                        Collections.emptyList(),
+                        Collections.emptyMap(),
+                        Collections.emptyMap()
                 );
                 Files.writeString(resultsDir.resolve("summary.json"), summary);
                 return;
             }
             if (baselineRun.exitCode() == 0) {
+                progress.runFinished("already_passing", null, 0, baselineScore);
+                if (config.isSharded()) {
+                    writeShardResult(resultsDir, "already_passing", originalSource, baselineRun.exitCode(), baselineScore,
+                            null, await(faults), Collections.emptyMap(), Collections.emptyMap());
+                    System.out.println("All tests already pass. Nothing to repair.");
+                    return;
+                }
                 String summary = SummaryWriter.createSummary(
                         "already_passing",
+                        null,
                         baselineRun.exitCode(),
                         baselineScore,
                         baselineScore,
                         0,
                         null,
-                        patternMatcher.detectFaults(Files.readString(targetCopy))
+                        await(faults),
+                        Collections.emptyMap(),
+                        Collections.emptyMap()
                 );
                 Files.writeString(resultsDir.resolve("summary.json"), summary);
                 System.out.println("All tests already pass. Nothing to repair.");
                 return;
             }
 
-            String originalSource = Files.readString(targetCopy);
-            Random random = new Random(config.getSeed());
-            MutationContext context = new MutationContext(random, faultDatabase, fixDatabase);
-            List<String> detectedFaults = patternMatcher.detectFaults(originalSource);
+            List<String> detectedFaults = await(faults);
             if (!detectedFaults.isEmpty()) {
                 System.out.println("Detected fault patterns: " + detectedFaults);
             }
-            int candidateLimit = Math.max(config.getBudget() * 3, config.getBudget() + 10);
-            List<Patch> candidates = candidateGenerator.generateCandidates(originalSource, context, candidateLimit);
-            Collections.shuffle(candidates, random);
 
-            System.out.printf("Detected %d logical processors; using %d worker threads.%n", config.getDetectedProcessors(), config.getThreads());
-            List<Path> workerCopies = prepareWorkerCopies(workingCopy, tempRoot.resolve("workers"), projectName, config.getThreads());
+            SearchState state = new SearchState(baselineScore, metrics, timings.startNanos(),
+                    TimeUnit.SECONDS.toNanos(config.getTimeBudgetSeconds()), config.getPlateau());
+            metrics.gauge("attempts", state::attempts);
+            metrics.gauge("best_score", () -> state.bestScore().score());
+            Path patchedName = Path.of(config.getTarget().toString() + " (patched)");
+            SearchState.DiffRenderer diffRenderer = patched -> FileUtils.computeDiff(originalSource, patched, config.getTarget(), patchedName);
+            List<Patch> candidates = generation == null ? null : await(generation);
+            MutantSchemata schemata = null;
+            if (config.isSchemata()) {
+                if (candidates == null || config.isCoordinator() || pool != null) {
+                    System.out.println("Mutant schemata only apply to local enumerate runs; evaluating candidates one file at a time.");
+                } else {
+                    long schemataStart = System.nanoTime();
+                    schemata = prepareSchemata(baselineExecutor, workingCopy, targetCopy, originalSource, candidates, baselineRun, baselineScore);
+                    metrics.since("schemata", schemataStart);
+                }
+            }
 
-            AtomicInteger attempts = new AtomicInteger();
-            AtomicBoolean foundFix = new AtomicBoolean(false);
-            AtomicReference<Score.ScoreResult> bestScore = new AtomicReference<>(baselineScore);
-            AtomicReference<String> bestSource = new AtomicReference<>(null);
-            AtomicReference<String> bestDescription = new AtomicReference<>(null);
-            AtomicReference<String> bestDiff = new AtomicReference<>(null);
-            Object bestLock = new Object();
+            BanditCandidateQueue queue = candidates == null ? null : new BanditCandidateQueue(candidates, bandit);
+            // Genetic search evaluates one population at a time.
+            IntSupplier remaining = () -> Math.min(config.getBudget() - state.attempts(),
+                    queue == null ? config.getPopulation() : queue.remaining());
+            Coordinator coordinator = null;
+            CandidateEvaluator evaluator;
+            if (config.isCoordinator()) {
+                coordinator = await(coordinatorSetup);
+                coordinatorSetup = null;
+                if (config.isAdaptive() || config.isPinCpus() || config.getSuiteWorkers() >= 0) {
+                    System.out.println("Adaptive concurrency, CPU pinning and suite workers only apply to local workers; remote workers run at their own slot counts.");
+                }
+                evaluator = new CandidateEvaluator(config, SlotPool.of(coordinator.idleSlots()), state, diffRenderer, progress);
+            } else if (pool != null) {
+                if (config.isPinCpus()) {
+                    System.out.println("CPU pinning does not apply to a shared worker pool; its slots run unpinned.");
+                }
+                if (config.getSuiteWorkers() >= 0) {
+                    System.out.println("Suite workers do not apply to a shared worker pool; each run uses one test process.");
+                }
+                long setupStart = System.nanoTime();
+                evaluator = new CandidateEvaluator(config,
+                        AdaptiveConcurrency.limit(config, pool.slots(config, relativeTarget, originalSource, executor, metrics), metrics),
+                        state, diffRenderer, progress);
+                timings.workerSetup(System.nanoTime() - setupStart);
+                metrics.since("worker_setup", setupStart);
+            } else {
+                System.out.printf("Detected %d logical processors; evaluating up to %d candidates concurrently.%n", config.getDetectedProcessors(), config.getThreads());
+                List<Path> workerCopies = workerSetup != null
+                        ? await(workerSetup)
+                        : prepareWorkerCopies(workingCopy, workersRoot, projectName, config.getThreads());
+                evaluator = new CandidateEvaluator(config, workerCopies, relativeTarget, originalSource, schemata, executor,
+                        WorkerEnvironment.forCopies(workerCopies, config.getPortBase(), config.getPortsPerWorker(), cpuSets(workerCopies.size())),
+                        config.getSuiteWorkers() >= 0 && suiteFlagWorks(baselineExecutor, workingCopy, schemata, baselineRun, baselineScore)
+                                ? remaining : null,
+                        state, diffRenderer, progress);
+            }
+            evaluator.addListener(evaluation -> bandit.record(evaluation.patch().origin(), OperatorBandit.reward(baselineScore, evaluation)));
+            evaluator.addAbandonListener(patch -> bandit.abandon(patch.origin()));
+            evaluator.addListener(evaluation -> {
+                if (evaluation.score().score() == 0) {
+                    timings.firstFix();
+                }
+            });
 
-            ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+            progress.runStarted(baselineScore, pool == null ? config.getThreads() : pool.size(), config.getSearchMode().name().toLowerCase(Locale.ROOT));
+            long searchStart = System.nanoTime();
             try {
-                for (Patch patch : candidates) {
-                    if (attempts.get() >= config.getBudget() || foundFix.get()) {
-                        break;
-                    }
-                    Patch candidate = patch;
-                    executor.submit(() -> {
-                        if (foundFix.get()) {
-                            return;
-                        }
-                        int attemptNumber = attempts.incrementAndGet();
-                        if (attemptNumber > config.getBudget()) {
-                            return;
-                        }
-
-                        Path workerCopy = workerCopies.get((attemptNumber - 1) % workerCopies.size());
-                        Path workerTarget = workerCopy.resolve(relativeTarget);
-                        try {
-                            Files.writeString(workerTarget, candidate.source());
-                            TestRunResult attempt = ProcessUtils.runCommand(config.getTestsCommand(), workerCopy, config.getTimeoutSeconds());
-                            Score.ScoreResult attemptScore = Score.evaluate(attempt);
-                            System.out.printf("[%d/%d] %s -> exit=%d score=%d summary=%s%n",
-                                    attemptNumber,
-                                    config.getBudget(),
-                                    candidate.description(),
-                                    attempt.exitCode(),
-                                    attemptScore.score(),
-                                    attemptScore.summary());
-
-                            synchronized (bestLock) {
-                                Score.ScoreResult currentBest = bestScore.get();
-                                if (attemptScore.score() < currentBest.score()) {
-                                    Path patchedName = Path.of(config.getTarget().toString() + " (patched)");
-                                    String diff = FileUtils.computeDiff(originalSource, candidate.source(), config.getTarget(), patchedName);
-                                    bestScore.set(attemptScore);
-                                    bestSource.set(candidate.source());
-                                    bestDescription.set(candidate.description());
-                                    bestDiff.set(diff);
-                                }
-                            }
-
-                            if (attempt.exitCode() == 0) {
-                                System.out.println("🎉 Found a full fix!");
-                                foundFix.set(true);
-                            }
-                        } catch (IOException | InterruptedException e) {
-                            throw new RuntimeException(e);
-                        } finally {
-                            try {
-                                Files.writeString(workerTarget, originalSource);
-                            } catch (IOException ignore) {
-                                // If we fail to reset the target, subsequent attempts may still succeed because each worker has an isolated copy.
-                            }
-                        }
-                    });
+                if (config.getSearchMode() == Config.SearchMode.GENETIC) {
+                    new GeneticSearch(config, operators, candidateGenerator, evaluator, state, bandit, validator).run(originalSource, context, baselineScore);
+                } else {
+                    evaluator.evaluateAll(queue);
                 }
             } finally {
-                executor.shutdown();
-                long waitSeconds = Math.max((long) config.getTimeoutSeconds() * config.getBudget(), config.getTimeoutSeconds());
-                if (!executor.awaitTermination(waitSeconds + 30, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
+                timings.search(System.nanoTime() - searchStart);
+                metrics.since("search", searchStart);
+                if (coordinator != null) {
+                    coordinator.close();
+                    coordinator.workerReport().forEach(line -> System.out.println("Worker " + line));
                 }
             }
+            if (!config.isSharded()) {
+                // Shards often run side by side on shared storage; their statistics are not merged into the file.
+                bandit.save(config.getOperatorStats());
+            }
+            if (validator.checked() > 0) {
+                System.out.printf("Syntax pre-validation rejected %d of %d candidates: %s%n",
+                        validator.rejectedTotal(), validator.checked(), validator.rejectedByOrigin());
+                System.out.printf("Skipped %d semantically equivalent candidates (%d identical to the original): %s%n",
+                        validator.equivalentTotal(), validator.noOps(), validator.equivalentByOrigin());
+            }
 
-            String status;
-            Score.ScoreResult best = bestScore.get();
-            if (best.score() == 0) {
-                status = "fixed";
-            } else if (best.score() < baselineScore.score()) {
-                status = "improved";
-            } else {
-                status = "no_fix";
+            Score.ScoreResult best = state.bestScore();
+            String status = SummaryWriter.status(best, baselineScore);
+            String stopReason = stopReason(state);
+            if (stopReason.equals(SearchState.TIME_BUDGET)) {
+                System.out.printf("Stopped after %d attempts: the time budget of %d seconds is used up.%n",
+                        state.attempts(), config.getTimeBudgetSeconds());
+            } else if (stopReason.equals(SearchState.PLATEAU)) {
+                System.out.printf("Stopped after %d attempts: the best score has not improved in %d evaluations.%n",
+                        state.attempts(), config.getPlateau());
+            }
+            progress.runFinished(status, stopReason, state.attempts(), best);
+            if (config.isSharded()) {
+                writeShardResult(resultsDir, status, originalSource, baselineRun.exitCode(), baselineScore, state,
+                        detectedFaults, validator.rejectedByOrigin(), validator.equivalentByOrigin());
+                return;
             }
 
             String summary = SummaryWriter.createSummary(
                     status,
+                    stopReason,
                     baselineRun.exitCode(),
                     baselineScore,
                     best,
-                    attempts.get(),
-                    bestDescription.get(),
-                    detectedFaults
+                    state.attempts(),
+                    state.bestDescription(),
+                    detectedFaults,
+                    validator.rejectedByOrigin(),
+                    validator.equivalentByOrigin()
             );
             Files.writeString(resultsDir.resolve("summary.json"), summary);
-            String bestSourceText = bestSource.get();
+            String bestSourceText = state.bestSource();
             if (bestSourceText != null) {
                 Files.writeString(resultsDir.resolve("best_patch.py"), bestSourceText);
             }
-            String diffText = bestDiff.get();
+            String diffText = state.bestDiff();
             if (diffText != null && !diffText.isBlank()) {
                 Files.writeString(resultsDir.resolve("best_patch.diff"), diffText);
             }
         } finally {
-            FileUtils.deleteRecursive(tempRoot);
+            // Startup work the run did not get to use is cancelled. It stops at the next operator, worker copy or
+            // Python process, so it normally ends within the grace period; whatever is still running then does not
+            // hold up the result.
+            startup.shutdownNow();
+            boolean stopped = false;
+            try {
+                stopped = startup.awaitTermination(STARTUP_CANCEL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            if (coordinatorSetup != null && coordinatorSetup.state() == Future.State.SUCCESS) {
+                coordinatorSetup.resultNow().close();
+            }
+            if (baselineLease != null) {
+                baselineLease.close();
+            }
+            if (tempRoot != null) {
+                if (stopped) {
+                    FileUtils.deleteRecursive(tempRoot);
+                } else {
+                    removeAfterStartup(startup, tempRoot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the run's temporary directory once startup work that ignored its cancellation is gone, since a worker
+     * copy may still be writing into it. Runs in the background so the caller can report its result now.
+     */
+    private static void removeAfterStartup(ExecutorService startup, Path tempRoot) {
+        System.out.println("Startup work is still winding down; its temporary files are removed when it ends.");
+        Thread.ofVirtual().name("par-startup-cleanup").start(() -> {
+            startup.close();
+            try {
+                FileUtils.deleteRecursive(tempRoot);
+            } catch (IOException | RuntimeException ex) {
+                System.out.println("Could not remove " + tempRoot + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Installs the meta-program in the working copy, which worker copies are cloned from, but only if running the
+     * tests against it with no mutant selected reproduces the baseline exactly.
+     */
+    private MutantSchemata prepareSchemata(TestExecutor baselineExecutor,
+                                           Path workingCopy,
+                                           Path targetCopy,
+                                           String originalSource,
+                                           List<Patch> candidates,
+                                           TestRunResult baselineRun,
+                                           Score.ScoreResult baselineScore) throws IOException, InterruptedException {
+        MutantSchemata schemata = MutantSchemata.build(originalSource, candidates);
+        if (schemata == null) {
+            System.out.println("Mutant schemata: no candidate could be folded into a meta-program.");
+            return null;
+        }
+        Files.writeString(targetCopy, schemata.metaSource());
+        TestRunResult check = baselineExecutor.run(config.getTestsCommand(), workingCopy, config.getTimeoutSeconds(),
+                Map.of(MutantSchemata.SWITCH, ""));
+        Score.ScoreResult checkScore = Score.evaluate(check);
+        if (check.exitCode() != baselineRun.exitCode() || checkScore.score() != baselineScore.score()) {
+            Files.writeString(targetCopy, originalSource);
+            System.out.println("Mutant schemata disabled: the meta-program does not reproduce the baseline (" + checkScore.summary() + ").");
+            return null;
+        }
+        System.out.printf("Mutant schemata: %d of %d candidates are selected through %s without rewriting the target.%n",
+                schemata.size(), candidates.size(), MutantSchemata.SWITCH);
+        return schemata;
+    }
+
+    /**
+     * Runs the suite once more with the runner option a {@link ParallelismPlanner} would pass, and plans suite workers
+     * only if that reproduces the baseline. A runner that rejects the option would otherwise fail every planned run.
+     */
+    private boolean suiteFlagWorks(TestExecutor baselineExecutor,
+                                   Path workingCopy,
+                                   MutantSchemata schemata,
+                                   TestRunResult baselineRun,
+                                   Score.ScoreResult baselineScore) throws IOException, InterruptedException {
+        int suiteWorkers = config.getSuiteWorkers() > 0 ? config.getSuiteWorkers() : Math.min(2, config.getThreads());
+        if (executor != TestExecutor.PROCESS || suiteWorkers <= 1) {
+            // Simulated runs ignore the command, and a single suite worker never passes the option.
+            return true;
+        }
+        String flag = ParallelismPlanner.flag(config.getSuiteFlag(), suiteWorkers);
+        Map<String, String> environment = new HashMap<>();
+        environment.put(ParallelismPlanner.SUITE_WORKERS, Integer.toString(suiteWorkers));
+        environment.put(ParallelismPlanner.SUITE_FLAG, flag);
+        if (schemata != null) {
+            environment.put(MutantSchemata.SWITCH, "");
+        }
+        long checkStart = System.nanoTime();
+        TestRunResult check = baselineExecutor.run(config.getTestsCommand(), workingCopy, config.getTimeoutSeconds(), environment);
+        metrics.since("suite_check", checkStart);
+        Score.ScoreResult checkScore = Score.evaluate(check);
+        if (check.exitCode() != baselineRun.exitCode() || checkScore.score() != baselineScore.score()) {
+            System.out.println("Suite workers disabled: the tests with '" + flag + "' do not reproduce the baseline ("
+                    + checkScore.summary() + "); every suite runs in one process.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Keeps this shard's share of the candidate sequence, capped at its share of the budget.
+     */
+    private List<Patch> shardSlice(List<Patch> candidates) {
+        List<Patch> slice = ShardResult.slice(candidates, config.getShardIndex(), config.getShardCount());
+        int shardBudget = (config.getBudget() + config.getShardCount() - 1) / config.getShardCount();
+        System.out.printf("Shard %d/%d: evaluating up to %d of %d candidates.%n",
+                config.getShardIndex(), config.getShardCount(), Math.min(shardBudget, slice.size()), candidates.size());
+        return slice.size() > shardBudget ? new ArrayList<>(slice.subList(0, shardBudget)) : slice;
+    }
+
+    private void writeShardResult(Path resultsDir,
+                                  String status,
+                                  String originalSource,
+                                  int baselineExit,
+                                  Score.ScoreResult baselineScore,
+                                  SearchState state,
+                                  List<String> detectedFaults,
+                                  Map<String, Integer> rejectedInvalid,
+                                  Map<String, Integer> rejectedEquivalent) throws IOException {
+        ShardResult result = new ShardResult(
+                status,
+                config.getShardIndex(),
+                config.getShardCount(),
+                config.getSeed(),
+                PatchDelta.hash(originalSource),
+                baselineExit,
+                baselineScore,
+                state == null ? baselineScore : state.bestScore(),
+                state == null ? 0 : state.attempts(),
+                state == null ? null : state.bestDescription(),
+                state == null ? null : state.bestSource(),
+                state == null ? null : state.bestDiff(),
+                detectedFaults,
+                rejectedInvalid,
+                rejectedEquivalent);
+        Path file = resultsDir.resolve(ShardResult.fileName(config.getShardIndex(), config.getShardCount()));
+        result.write(file);
+        System.out.println("Wrote shard result " + file + "; combine the shards with the merge subcommand.");
+    }
+
+    private void loadOperatorStats() {
+        try {
+            bandit.load(config.getOperatorStats());
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println("Ignoring unreadable operator statistics " + config.getOperatorStats() + ": " + ex.getMessage());
         }
     }
 
@@ -226,15 +540,145 @@ public final class ParRunner {
         Files.writeString(resultsDir.resolve("baseline_stderr.log"), baselineRun.stderr());
     }
 
-    private List<Path> prepareWorkerCopies(Path workingCopy, Path workersRoot, Path projectName, int threads) throws IOException {
+    private List<Path> prepareWorkerCopies(Path source, Path workersRoot, Path projectName, int threads) throws IOException, InterruptedException {
+        long setupStart = System.nanoTime();
         List<Path> copies = new ArrayList<>();
         Files.createDirectories(workersRoot);
         for (int i = 0; i < threads; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Worker setup cancelled");
+            }
             Path workerRoot = workersRoot.resolve("worker_" + i);
             Path workerProject = workerRoot.resolve(projectName);
-            FileUtils.copyRecursive(workingCopy, workerProject);
+            FileUtils.copyRecursive(source, workerProject);
             copies.add(workerProject);
         }
+        timings.workerSetup(System.nanoTime() - setupStart);
+        metrics.since("worker_setup", setupStart);
         return copies;
     }
+
+    /**
+     * One CPU list per local worker when {@code --pin-cpus} is on and affinity can be set, otherwise none.
+     */
+    private List<String> cpuSets(int workers) {
+        if (!config.isPinCpus()) {
+            return List.of();
+        }
+        if (executor != TestExecutor.PROCESS) {
+            System.out.println("CPU pinning does not apply to simulated test runs.");
+            return List.of();
+        }
+        List<Integer> cpus = ProcessUtils.allowedCpus();
+        if (cpus.isEmpty()) {
+            System.out.println("CPU pinning needs taskset on Linux; running workers unpinned.");
+            return List.of();
+        }
+        List<String> sets = ProcessUtils.cpuSets(cpus, workers);
+        if (workers > cpus.size()) {
+            System.out.printf("Pinning %d workers to %d CPUs, so some workers share a CPU.%n", workers, cpus.size());
+        } else {
+            System.out.printf("Pinning each worker to its own CPUs: %s.%n", String.join(" | ", sets));
+        }
+        return sets;
+    }
+
+    /**
+     * What ended a finished search: a fix, the time budget or a plateau, the candidate budget, or running out of
+     * candidates to try.
+     */
+    private String stopReason(SearchState state) {
+        if (state.foundFix()) {
+            return "fix_found";
+        }
+        if (state.stoppedBy() != null) {
+            return state.stoppedBy();
+        }
+        return state.attempts() >= config.getBudget() ? "budget_exhausted" : "candidates_exhausted";
+    }
+
+    /**
+     * Generates, screens and orders the candidates of an enumerate search. Generation runs alongside fault detection;
+     * the prior needs its result only for the final ordering.
+     */
+    private List<Patch> enumerateCandidates(String originalSource, MutationContext context, CandidateValidator validator, Random random,
+                                            Future<List<String>> faults) throws IOException, InterruptedException {
+        int candidateLimit = Math.max(config.getBudget() * 3, config.getBudget() + 10);
+        long generationStart = System.nanoTime();
+        List<Patch> generated = candidateGenerator.generateCandidates(originalSource, context, candidateLimit);
+        metrics.since("generation", generationStart);
+        long validationStart = System.nanoTime();
+        List<Patch> candidates = validator.filter(generated);
+        metrics.since("validation", validationStart);
+        if (Thread.currentThread().isInterrupted()) {
+            // The run ended during the baseline; generation and screening stopped early, so the list is incomplete.
+            throw new InterruptedException("Candidate generation cancelled");
+        }
+        // The prior decides the order within each operator and which operator the bandit tries first; past that,
+        // the bandit decides which operator goes next.
+        long orderingStart = System.nanoTime();
+        candidates = CandidatePrior.order(candidates, candidatePrior(originalSource, await(faults)), random);
+        metrics.since("ordering", orderingStart);
+        if (config.isSharded()) {
+            candidates = shardSlice(candidates);
+        }
+        return candidates;
+    }
+
+    private CandidatePrior candidatePrior(String originalSource, List<String> detectedFaults) throws IOException {
+        if (config.getPrior() == Config.Prior.UNIFORM) {
+            return CandidatePrior.UNIFORM;
+        }
+        Map<Integer, Double> suspiciousness = config.getSuspiciousness() == null
+                ? Map.of()
+                : FixLikelihoodPrior.readSuspiciousness(config.getSuspiciousness());
+        return new FixLikelihoodPrior(originalSource, faultDatabase.fixesFor(detectedFaults), suspiciousness, bandit);
+    }
+
+    private Coordinator startCoordinator(Path relativeTarget, String originalSource) throws IOException, InterruptedException {
+        long setupStart = System.nanoTime();
+        String secret = config.getSecret() != null ? config.getSecret() : WireAuth.newSecret();
+        Coordinator coordinator = new Coordinator(config.getBindAddress(), config.getListenPort(), secret, relativeTarget,
+                originalSource, config.getTestsCommand(), config.getTimeoutSeconds(), config.getHeartbeatSeconds());
+        try {
+            System.out.printf("Coordinating on %s port %d; waiting up to %d seconds for the first worker.%n",
+                    config.getBindAddress().getHostAddress(), coordinator.port(), config.getWorkerWaitSeconds());
+            if (config.getSecret() == null) {
+                System.out.println("Start workers with --secret " + secret + " (or " + WireAuth.SECRET_ENV + " set to it).");
+            }
+            if (!coordinator.awaitWorkers(config.getWorkerWaitSeconds())) {
+                throw new IllegalStateException("No worker connected within " + config.getWorkerWaitSeconds() + " seconds");
+            }
+        } catch (InterruptedException | RuntimeException ex) {
+            coordinator.close();
+            throw ex;
+        }
+        timings.workerSetup(System.nanoTime() - setupStart);
+        metrics.since("worker_setup", setupStart);
+        return coordinator;
+    }
+
+    /**
+     * Waits for a startup task and rethrows its failure as if it had run on this thread.
+     */
+    private static <T> T await(Future<T> task) throws IOException, InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
 }
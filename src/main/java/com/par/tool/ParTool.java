@@ -1,8 +1,30 @@
 package com.par.tool;
 
+import java.util.Arrays;
+
 public final class ParTool {
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && args[0].equals("worker")) {
+                WorkerAgent.parse(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
+            if (args.length > 0 && args[0].equals("merge")) {
+                ShardMerger.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            if (args.length > 0 && args[0].equals("bench")) {
+                BenchmarkSuite.parse(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
+            if (args.length > 0 && args[0].equals("batch")) {
+                BatchRunner.parse(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
+            if (args.length > 0 && args[0].equals("serve")) {
+                RepairServer.parse(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
             Config config = Config.parse(args);
             ParRunner runner = new ParRunner(config);
             runner.run();
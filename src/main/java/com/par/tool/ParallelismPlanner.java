@@ -0,0 +1,257 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Splits {@code --threads} between candidates evaluated at once and processes the test runner uses inside one suite run,
+ * for runners that can spread a suite over several processes, as pytest-xdist does with {@code -n}. The split
+ * minimizes the time to get through the candidates still queued, modelling one run with {@code m} suite workers as
+ * {@code suite / min(m, tests) + }{@link #SUITE_WORKER_STARTUP_SECONDS}. The baseline run provides the suite duration
+ * and test count. Many candidates and a short suite give one suite worker per run and every slot to candidates; few
+ * candidates and a long suite give a few runs with many suite workers each. The plan is recomputed whenever a slot is
+ * requested, so the tail of the queue spreads over the slots freed by candidates that finished.
+ */
+final class ParallelismPlanner implements SlotPool {
+    /** What starting the runner's extra worker processes costs a run that uses them. */
+    static final double SUITE_WORKER_STARTUP_SECONDS = 1.0;
+    static final String SUITE_WORKERS = "PAR_SUITE_WORKERS";
+    static final String SUITE_FLAG = "PAR_SUITE_FLAG";
+
+    private final SlotPool slots;
+    private final int capacity;
+    private final double suiteSeconds;
+    private final int testCount;
+    private final int fixedSuiteWorkers;
+    private final String suiteFlag;
+    private final IntSupplier remaining;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private volatile Plan plan;
+    private int running;
+    private int busy;
+
+    /**
+     * @param capacity          processes to keep busy in total, {@code --threads}
+     * @param fixedSuiteWorkers suite workers for every run, or {@code 0} to plan them
+     * @param remaining         candidates not started yet
+     */
+    ParallelismPlanner(SlotPool slots, int capacity, double suiteSeconds, int testCount, int fixedSuiteWorkers, String suiteFlag,
+                       IntSupplier remaining, Metrics metrics) {
+        this.slots = slots;
+        this.capacity = capacity;
+        this.suiteSeconds = suiteSeconds;
+        this.testCount = testCount;
+        this.fixedSuiteWorkers = fixedSuiteWorkers;
+        this.suiteFlag = suiteFlag;
+        this.remaining = remaining;
+        metrics.gauge("planned_candidates", () -> plan == null ? 0 : plan.candidates());
+        metrics.gauge("planned_suite_workers", () -> plan == null ? 0 : plan.suiteWorkers());
+    }
+
+    /**
+     * Wraps {@code slots} in a planner when {@code --suite-workers} is set and {@code remaining} is given; without it
+     * every suite runs in one process. No attempt has finished yet, so the suite duration and test count come from the
+     * baseline run.
+     */
+    static SlotPool split(Config config, SlotPool slots, SearchState state, IntSupplier remaining) {
+        if (config.getSuiteWorkers() < 0 || remaining == null) {
+            return slots;
+        }
+        Metrics.Histogram baseline = state.metrics().timer("baseline");
+        Score.ScoreResult baselineScore = state.bestScore();
+        return new ParallelismPlanner(slots, config.getThreads(), baseline == null ? 0 : baseline.max() / 1e9,
+                baselineScore.failed() + baselineScore.errors() + baselineScore.passed(), config.getSuiteWorkers(),
+                config.getSuiteFlag(), remaining, state.metrics());
+    }
+
+    /**
+     * The split that gets through {@code remaining} candidates soonest with {@code capacity} processes. Among equally
+     * fast splits, the one with more candidates at once wins, since it reaches a fix with fewer runs.
+     */
+    static Plan plan(int capacity, double suiteSeconds, int testCount, int remaining) {
+        int maxSuiteWorkers = testCount > 0 ? testCount : capacity;
+        Plan best = null;
+        double bestSeconds = Double.MAX_VALUE;
+        for (int candidates = Math.max(1, Math.min(capacity, remaining)); candidates >= 1; candidates--) {
+            int rounds = (Math.max(1, remaining) + candidates - 1) / candidates;
+            int most = Math.max(1, Math.min(capacity / candidates, maxSuiteWorkers));
+            for (int suiteWorkers : new int[]{1, most}) {
+                double seconds = rounds * runSeconds(suiteSeconds, testCount, suiteWorkers);
+                if (seconds < bestSeconds - 1e-9) {
+                    best = new Plan(candidates, suiteWorkers);
+                    bestSeconds = seconds;
+                }
+            }
+        }
+        return best;
+    }
+
+    static double runSeconds(double suiteSeconds, int testCount, int suiteWorkers) {
+        if (suiteWorkers <= 1) {
+            return suiteSeconds;
+        }
+        int effective = testCount > 0 ? Math.min(suiteWorkers, testCount) : suiteWorkers;
+        return suiteSeconds / effective + SUITE_WORKER_STARTUP_SECONDS;
+    }
+
+    /**
+     * The runner flag for {@code suiteWorkers} processes, or nothing for a plain run.
+     */
+    static String flag(String suiteFlag, int suiteWorkers) {
+        return suiteWorkers > 1 ? suiteFlag.replace("{n}", Integer.toString(suiteWorkers)) : "";
+    }
+
+    Plan currentPlan() {
+        lock.lock();
+        try {
+            return plan == null ? replan() : plan;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public TestSlot acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int suiteWorkers;
+        lock.lock();
+        try {
+            while (running >= replan().candidates() || busy >= capacity) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return null;
+                }
+                released.awaitNanos(left);
+            }
+            // Runs started under an earlier plan may still hold processes; take what is free now.
+            suiteWorkers = Math.max(1, Math.min(plan.suiteWorkers(), capacity - busy));
+            running++;
+            busy += suiteWorkers;
+        } finally {
+            lock.unlock();
+        }
+        TestSlot slot = null;
+        try {
+            slot = slots.acquire(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        } finally {
+            if (slot == null) {
+                leave(suiteWorkers);
+            }
+        }
+        if (slot == null) {
+            return null;
+        }
+        return new PlannedSlot(slot, suiteWorkers);
+    }
+
+    @Override
+    public void release(TestSlot slot) {
+        PlannedSlot planned = (PlannedSlot) slot;
+        slots.release(planned.slot);
+        leave(planned.suiteWorkers);
+    }
+
+    @Override
+    public int idle() {
+        lock.lock();
+        try {
+            return Math.max(0, Math.min(slots.idle(), currentPlan().candidates() - running));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leave(int suiteWorkers) {
+        lock.lock();
+        try {
+            running--;
+            busy -= suiteWorkers;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held. Candidates still running count as left, since they hold slots. */
+    private Plan replan() {
+        Plan next = fixedSuiteWorkers > 0
+                ? new Plan(Math.max(1, capacity / fixedSuiteWorkers), fixedSuiteWorkers)
+                : plan(capacity, suiteSeconds, testCount, remaining.getAsInt() + running);
+        if (!next.equals(plan)) {
+            System.out.printf(Locale.ROOT, "Parallelism plan: %d candidates x %d suite workers (suite %.1fs, %d tests, %d slots, %d candidates left).%n",
+                    next.candidates(), next.suiteWorkers(), suiteSeconds, testCount, capacity, remaining.getAsInt() + running);
+            plan = next;
+        }
+        return plan;
+    }
+
+    /**
+     * How many candidates to evaluate at once and how many suite workers each run gets.
+     */
+    static final class Plan {
+        private final int candidates;
+        private final int suiteWorkers;
+
+        Plan(int candidates, int suiteWorkers) {
+            this.candidates = candidates;
+            this.suiteWorkers = suiteWorkers;
+        }
+
+        int candidates() {
+            return candidates;
+        }
+
+        int suiteWorkers() {
+            return suiteWorkers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Plan other && candidates == other.candidates && suiteWorkers == other.suiteWorkers;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * candidates + suiteWorkers;
+        }
+
+        @Override
+        public String toString() {
+            return candidates + "x" + suiteWorkers;
+        }
+    }
+
+    /**
+     * A slot lent out under the plan: its runs tell the test runner how many suite workers to use.
+     */
+    private final class PlannedSlot implements TestSlot {
+        private final TestSlot slot;
+        private final int suiteWorkers;
+
+        PlannedSlot(TestSlot slot, int suiteWorkers) {
+            this.slot = slot;
+            this.suiteWorkers = suiteWorkers;
+        }
+
+        @Override
+        public TestRunResult run(Patch candidate) throws IOException, InterruptedException {
+            return slot.run(candidate, Map.of(SUITE_WORKERS, Integer.toString(suiteWorkers), SUITE_FLAG, flag(suiteFlag, suiteWorkers)));
+        }
+
+        @Override
+        public boolean alive() {
+            return slot.alive();
+        }
+
+        @Override
+        public String toString() {
+            return slot.toString();
+        }
+    }
+}
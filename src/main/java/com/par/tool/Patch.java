@@ -3,10 +3,16 @@ package com.par.tool;
 public final class Patch {
     private final String source;
     private final String description;
+    private final String origin;
 
     public Patch(String source, String description) {
+        this(source, description, "");
+    }
+
+    public Patch(String source, String description, String origin) {
         this.source = source;
         this.description = description;
+        this.origin = origin;
     }
 
     public String source() {
@@ -16,4 +22,15 @@ public final class Patch {
     public String description() {
         return description;
     }
+
+    /**
+     * Name of the operator (or {@code Operator/FixPattern}) that produced this patch; empty when unknown.
+     */
+    public String origin() {
+        return origin;
+    }
+
+    public Patch withOrigin(String origin) {
+        return new Patch(source, description, origin);
+    }
 }
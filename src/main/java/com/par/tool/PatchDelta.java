@@ -0,0 +1,66 @@
+package com.par.tool;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Encodes a candidate as line edits against a base source, so remote workers receive a few lines per candidate
+ * instead of the whole file. Each edit is written as {@code "<start> <end> <count>\n"} followed by its replacement
+ * lines; the base is identified by its content hash.
+ */
+final class PatchDelta {
+    private PatchDelta() {}
+
+    static String encode(String base, String candidate) {
+        StringBuilder delta = new StringBuilder();
+        for (LineDiff.Edit edit : LineDiff.diff(split(base), split(candidate))) {
+            delta.append(edit.start()).append(' ').append(edit.end()).append(' ').append(edit.lines().size()).append('\n');
+            for (String line : edit.lines()) {
+                delta.append(line).append('\n');
+            }
+        }
+        return delta.toString();
+    }
+
+    static String apply(String base, String delta) {
+        String[] lines = delta.split("\n", -1);
+        List<LineDiff.Edit> edits = new ArrayList<>();
+        int index = 0;
+        // The encoding always ends with a newline, so the last element of the split is an empty remainder.
+        while (index < lines.length - 1) {
+            String[] header = lines[index++].split(" ");
+            if (header.length != 3) {
+                throw new IllegalArgumentException("Malformed delta header: " + lines[index - 1]);
+            }
+            int start = Integer.parseInt(header[0]);
+            int end = Integer.parseInt(header[1]);
+            int count = Integer.parseInt(header[2]);
+            if (count < 0 || index + count > lines.length - 1) {
+                throw new IllegalArgumentException("Delta is truncated");
+            }
+            List<String> replacement = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                replacement.add(lines[index++]);
+            }
+            edits.add(new LineDiff.Edit(start, end, replacement));
+        }
+        return String.join("\n", LineDiff.apply(split(base), edits));
+    }
+
+    static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static String[] split(String source) {
+        return source.split("\n", -1);
+    }
+}
@@ -2,6 +2,10 @@ package com.par.tool;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class PatternMatcher {
     private final FaultDatabase faultDatabase;
@@ -15,6 +19,9 @@ public final class PatternMatcher {
     public List<String> detectFaults(String source) {
         List<String> matches = new ArrayList<>();
         for (FaultPattern pattern : faultDatabase.patterns()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
             int occurrences = PythonAstService.countFaultOccurrences(source, pattern.detectorKey());
             if (occurrences > 0) {
                 matches.add(pattern.name());
@@ -23,15 +30,42 @@ public final class PatternMatcher {
         return matches;
     }
 
+    /**
+     * Applies every fix pattern concurrently, since each one waits on its own Python process. Every pattern is
+     * asked for the full limit and the results are concatenated in database order before truncating, which yields
+     * exactly what applying them one after another would.
+     */
     public List<Patch> createFixes(String source, MutationContext context, int limit) {
         List<Patch> patches = new ArrayList<>();
-        for (FixPattern pattern : fixDatabase.patterns()) {
-            if (patches.size() >= limit) {
-                break;
+        if (limit <= 0) {
+            return patches;
+        }
+        List<FixPattern> patterns = fixDatabase.patterns();
+        List<Future<List<Patch>>> produced = new ArrayList<>(patterns.size());
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-fix-", 0).factory())) {
+            for (FixPattern pattern : patterns) {
+                produced.add(executor.submit(() -> pattern.apply(source, context, limit)));
+            }
+        }
+        for (int index = 0; index < patterns.size() && patches.size() < limit; index++) {
+            for (Patch patch : join(produced.get(index))) {
+                if (patches.size() >= limit) {
+                    break;
+                }
+                patches.add(patch.withOrigin(patterns.get(index).name()));
             }
-            List<Patch> produced = pattern.apply(source, context, limit - patches.size());
-            patches.addAll(produced);
         }
         return patches;
     }
+
+    private static List<Patch> join(Future<List<Patch>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Fix pattern failed", ex.getCause());
+        }
+    }
 }
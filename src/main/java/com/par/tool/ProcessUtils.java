@@ -1,39 +1,170 @@
 package com.par.tool;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.concurrent.Callable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public final class ProcessUtils {
+    // Pipe drainers only block on I/O, so they run on virtual threads instead of a per-call platform pool.
+    private static final Executor PIPE_DRAINERS = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("par-pipe-", 0).factory());
+    private static final long DRAIN_GRACE_SECONDS = 5;
+
     private ProcessUtils() {}
 
     public static TestRunResult runCommand(String command, Path cwd, int timeoutSeconds) throws IOException, InterruptedException {
-        ProcessBuilder builder = new ProcessBuilder(shellCommand(), shellFlag(), command);
+        return runCommand(command, cwd, timeoutSeconds, Map.of());
+    }
+
+    /**
+     * Runs the command with {@code environment} added to (and overriding) the inherited environment.
+     */
+    public static TestRunResult runCommand(String command, Path cwd, int timeoutSeconds, Map<String, String> environment)
+            throws IOException, InterruptedException {
+        return runCommand(command, cwd, timeoutSeconds, environment, null);
+    }
+
+    /**
+     * Runs the command in {@code worker}'s environment: its placeholders are substituted into the command, its
+     * variables are added to the environment ({@code environment} still wins), its temporary directory is emptied
+     * first, and with a CPU set the shell, and so every process it starts, runs under {@code taskset}. A {@code null}
+     * worker runs the command as is. The {@code {suite_flag}} and {@code {suite_workers}} placeholders take the values
+     * a {@link ParallelismPlanner} put in {@code environment}.
+     */
+    static TestRunResult runCommand(String command, Path cwd, int timeoutSeconds, Map<String, String> environment,
+                                    WorkerEnvironment worker) throws IOException, InterruptedException {
+        List<String> argv = new ArrayList<>();
+        // Without a plan, as in the baseline run, the suite runs in a single process.
+        command = command.replace("{suite_flag}", environment.getOrDefault(ParallelismPlanner.SUITE_FLAG, ""))
+                .replace("{suite_workers}", environment.getOrDefault(ParallelismPlanner.SUITE_WORKERS, "1"));
+        if (worker != null) {
+            worker.resetTmpDir();
+            command = worker.expand(command);
+            if (worker.cpus() != null) {
+                argv.addAll(List.of("taskset", "-c", worker.cpus()));
+            }
+        }
+        argv.addAll(List.of(shellCommand(), shellFlag(), command));
+        ProcessBuilder builder = new ProcessBuilder(argv);
         builder.directory(cwd.toFile());
+        if (worker != null) {
+            builder.environment().putAll(worker.variables());
+        }
+        builder.environment().putAll(environment);
+        ParEvents.ProcessExited exited = new ParEvents.ProcessExited();
+        exited.begin();
         Process process = builder.start();
+        ParEvents.ProcessStarted started = new ParEvents.ProcessStarted();
+        if (started.shouldCommit()) {
+            started.pid = process.pid();
+            started.command = command;
+            started.directory = cwd.toString();
+            started.commit();
+        }
+
+        CompletableFuture<String> stdout = drain(process.getInputStream());
+        CompletableFuture<String> stderr = drain(process.getErrorStream());
+        try {
+            process.onExit().get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException ex) {
+            destroyTree(process);
+            return exited(exited, process, new TestRunResult(124, getSafely(stdout), getSafely(stderr) + "\nTIMEOUT"), true);
+        } catch (InterruptedException ie) {
+            destroyTree(process);
+            throw ie;
+        } catch (ExecutionException ex) {
+            destroyTree(process);
+            throw new IOException("Failed waiting for test command: " + command, ex.getCause());
+        }
+        int exit = process.exitValue();
+        return exited(exited, process, new TestRunResult(exit, getSafely(stdout), getSafely(stderr)), false);
+    }
+
+    private static TestRunResult exited(ParEvents.ProcessExited event, Process process, TestRunResult result, boolean timedOut) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pid = process.pid();
+            event.exitCode = result.exitCode();
+            event.timedOut = timedOut;
+            event.stdoutBytes = result.stdout().length();
+            event.stderrBytes = result.stderr().length();
+            event.commit();
+        }
+        return result;
+    }
 
-        ExecutorService executor = Executors.newFixedThreadPool(2);
+    /**
+     * The CPUs this process may run on, as {@code taskset} reports them, or an empty list where CPU affinity cannot
+     * be set (no {@code taskset}, or not Linux).
+     */
+    static List<Integer> allowedCpus() {
+        if (!System.getProperty("os.name").toLowerCase().contains("linux")) {
+            return List.of();
+        }
         try {
-            Future<String> stdout = executor.submit(streamToString(process.inputReader(StandardCharsets.UTF_8)));
-            Future<String> stderr = executor.submit(streamToString(process.errorReader(StandardCharsets.UTF_8)));
+            Process process = new ProcessBuilder("taskset", "-pc", Long.toString(ProcessHandle.current().pid()))
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() != 0) {
+                return List.of();
+            }
+            // "pid 4242's current affinity list: 0-3,8"
+            return parseCpuList(output.substring(output.lastIndexOf(':') + 1));
+        } catch (IOException | IllegalArgumentException ex) {
+            return List.of();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
 
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                return new TestRunResult(124, getSafely(stdout), getSafely(stderr) + "\nTIMEOUT");
+    static List<Integer> parseCpuList(String list) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String part : list.trim().split(",")) {
+            int dash = part.indexOf('-');
+            try {
+                int first = Integer.parseInt(part.substring(0, dash < 0 ? part.length() : dash).trim());
+                int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1).trim());
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid CPU list: " + list, ex);
             }
-            int exit = process.exitValue();
-            return new TestRunResult(exit, getSafely(stdout), getSafely(stderr));
-        } finally {
-            executor.shutdownNow();
         }
+        return cpus;
+    }
+
+    /**
+     * Splits {@code cpus} into one CPU list per worker: disjoint, contiguous and as even as possible. With more
+     * workers than CPUs, workers take one CPU each, round robin.
+     */
+    static List<String> cpuSets(List<Integer> cpus, int workers) {
+        List<String> sets = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            if (workers >= cpus.size()) {
+                sets.add(Integer.toString(cpus.get(worker % cpus.size())));
+                continue;
+            }
+            List<Integer> share = cpus.subList(worker * cpus.size() / workers, (worker + 1) * cpus.size() / workers);
+            StringBuilder set = new StringBuilder();
+            for (int cpu : share) {
+                set.append(set.isEmpty() ? "" : ",").append(cpu);
+            }
+            sets.add(set.toString());
+        }
+        return sets;
     }
 
     private static String shellCommand() {
@@ -44,24 +175,30 @@ public final class ProcessUtils {
         return System.getProperty("os.name").toLowerCase().contains("win") ? "/c" : "-lc";
     }
 
-    private static Callable<String> streamToString(BufferedReader reader) {
-        return () -> {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append('\n');
+    private static CompletableFuture<String> drain(InputStream stream) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = stream) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                return "";
             }
-            return sb.toString();
-        };
+        }, PIPE_DRAINERS);
+    }
+
+    private static void destroyTree(Process process) {
+        // Test commands run under a shell, so the interesting work usually lives in a child process.
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
     }
 
-    private static String getSafely(Future<String> future) {
+    private static String getSafely(CompletableFuture<String> future) {
         try {
-            return future.get();
+            // A grandchild that inherited the pipe can keep it open after the shell exits; do not wait on it forever.
+            return future.get(DRAIN_GRACE_SECONDS, TimeUnit.SECONDS);
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
             return "";
-        } catch (ExecutionException ex) {
+        } catch (ExecutionException | TimeoutException ex) {
             return "";
         }
     }
@@ -0,0 +1,497 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Live progress of a repair run. Evaluating threads hand events to bounded queues without blocking. One virtual thread
+ * drains the console queue in batches and prints the human-readable lines; when a file is given, a second one appends
+ * one JSON object per event to it. The file may be a named pipe; only its own writer waits for a reader to attach, so a
+ * pipe nobody reads delays neither the search nor the console.
+ *
+ * <p>Besides the events it is handed, the file writer adds a {@code progress} event every interval with the attempt
+ * rate, an ETA against the budget and the utilization of the test slots. When a queue is full an event is dropped and
+ * counted rather than making a worker wait; the one exception is the console line announcing a fix, which is then
+ * printed by the caller.
+ */
+final class ProgressEvents implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int BATCH = 1024;
+    private static final long CLOSE_GRACE_SECONDS = 5;
+    private static final long FLUSH_GRACE_SECONDS = 5;
+    private static final long IDLE_MILLIS = 1000;
+
+    private final PrintStream console;
+    private final Path file;
+    private final int budget;
+    private final long intervalNanos;
+    private final long startNanos = System.nanoTime();
+    private final BlockingQueue<Event> lines = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Event> records;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicInteger workers = new AtomicInteger();
+    private volatile Thread consoleWriter;
+    private volatile Thread fileWriter;
+    private volatile boolean closed;
+    private volatile boolean fileFailed;
+
+    // Only touched by the file writer thread.
+    private int attempts;
+    private int bestScore = -1;
+    private int lastAttempts;
+    private long lastProgressNanos = startNanos;
+    private long busyNanosSinceProgress;
+
+    /**
+     * @param console receives the human-readable lines, or {@code null} to keep the console quiet
+     * @param file    receives the JSONL stream, or {@code null} for console output only
+     */
+    ProgressEvents(PrintStream console, Path file, int budget, int intervalSeconds) {
+        this.console = console;
+        this.file = file;
+        this.budget = budget;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.records = file == null ? null : new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    }
+
+    void runStarted(Score.ScoreResult baseline, int threads, String searchMode) {
+        emit("run_started",
+                "budget", budget,
+                "threads", threads,
+                "search", searchMode,
+                "baseline_score", baseline.score(),
+                "baseline_summary", baseline.summary());
+    }
+
+    void attempt(int attempt, Patch candidate, TestRunResult run, Score.ScoreResult score, long durationNanos) {
+        emit("attempt",
+                "attempt", attempt,
+                "operator", candidate.origin(),
+                "description", candidate.description(),
+                "exit", run.exitCode(),
+                "score", score.score(),
+                "failed", score.failed(),
+                "errors", score.errors(),
+                "passed", score.passed(),
+                "summary", score.summary(),
+                "duration_seconds", durationNanos / 1e9);
+    }
+
+    void attemptFailed(int attempt, Patch candidate, String message, long durationNanos) {
+        emit("attempt_failed",
+                "attempt", attempt,
+                "operator", candidate.origin(),
+                "description", candidate.description(),
+                "message", message,
+                "duration_seconds", durationNanos / 1e9);
+    }
+
+    void reassigned(int attempt, Patch candidate, String message) {
+        emit("attempt_reassigned",
+                "attempt", attempt,
+                "operator", candidate.origin(),
+                "description", candidate.description(),
+                "message", message);
+    }
+
+    void bestImproved(int attempt, Patch candidate, int previousScore, Score.ScoreResult score) {
+        emit("best",
+                "attempt", attempt,
+                "operator", candidate.origin(),
+                "description", candidate.description(),
+                "previous_score", previousScore,
+                "score", score.score(),
+                "summary", score.summary());
+    }
+
+    void fixFound(int attempt, Patch candidate) {
+        emit("fix",
+                "attempt", attempt,
+                "operator", candidate.origin(),
+                "description", candidate.description());
+    }
+
+    void runFinished(String status, String stopReason, int attempts, Score.ScoreResult best) {
+        emit("run_finished",
+                "status", status,
+                "stop_reason", stopReason,
+                "attempts", attempts,
+                "best_score", best.score(),
+                "elapsed_seconds", (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    /**
+     * Marks a test slot busy. The slots still idle let the capacity used for the utilization figure grow as remote
+     * workers join.
+     */
+    void workerLeased(int idle) {
+        int leased = busy.incrementAndGet();
+        workers.accumulateAndGet(leased + idle, Math::max);
+    }
+
+    void workerReleased() {
+        busy.decrementAndGet();
+    }
+
+    /**
+     * Waits until the console lines emitted so far have been printed, so that those of a finished search come before
+     * whatever the caller prints next. The events file is not waited for, and neither is a console that stays stuck
+     * for longer than a grace period.
+     */
+    void flush() throws InterruptedException {
+        if (closed || consoleWriter == null) {
+            return;
+        }
+        CountDownLatch printed = new CountDownLatch(1);
+        if (lines.offer(new Event("flush", printed, null), FLUSH_GRACE_SECONDS, TimeUnit.SECONDS)) {
+            ensureConsoleWriter();
+            printed.await(FLUSH_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Prints what is still queued, writes the remaining events plus a final progress event and stops both writers,
+     * giving up on each after a grace period when the console is stuck or a pipe has no reader. If the calling thread
+     * is interrupted, both writers are stopped without waiting and the interrupt flag is left set.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (consoleWriter != null) {
+            stop(lines, this::ensureConsoleWriter);
+        }
+        if (records != null) {
+            stop(records, this::ensureFileWriter);
+        }
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    private void stop(BlockingQueue<Event> queue, Supplier<Thread> writer) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_GRACE_SECONDS);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            boolean queued = queue.offer(new Event("close", done, null), CLOSE_GRACE_SECONDS, TimeUnit.SECONDS);
+            Thread running = writer.get();
+            if (queued && done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            running.interrupt();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            writer.get().interrupt();
+        }
+    }
+
+    private void emit(String type, Object... fields) {
+        if (closed) {
+            return;
+        }
+        Event event = new Event(type, null, fields);
+        if (console != null) {
+            if (lines.offer(event)) {
+                ensureConsoleWriter();
+            } else if (type.equals("fix")) {
+                // Whoever is watching the console must learn about a fix even when the writer is far behind.
+                StringBuilder line = new StringBuilder();
+                line(event, line);
+                console.print(line);
+                console.flush();
+            } else {
+                dropped.increment();
+            }
+        }
+        if (records != null) {
+            if (!records.offer(event)) {
+                dropped.increment();
+            }
+            ensureFileWriter();
+        }
+    }
+
+    private Thread ensureConsoleWriter() {
+        Thread running = consoleWriter;
+        if (running != null) {
+            return running;
+        }
+        synchronized (this) {
+            if (consoleWriter == null) {
+                consoleWriter = Thread.ofVirtual().name("par-progress").start(this::drainConsole);
+            }
+            return consoleWriter;
+        }
+    }
+
+    private Thread ensureFileWriter() {
+        Thread running = fileWriter;
+        if (running != null) {
+            return running;
+        }
+        synchronized (this) {
+            if (fileWriter == null) {
+                fileWriter = Thread.ofVirtual().name("par-progress-file").start(this::drainFile);
+            }
+            return fileWriter;
+        }
+    }
+
+    /**
+     * Stops a console writer that has run out of work; it is restarted by the next event. Clearing the field before
+     * looking at the queue means an event offered concurrently is either seen here or starts a new writer.
+     */
+    private boolean retire() {
+        synchronized (this) {
+            consoleWriter = null;
+            if (lines.isEmpty()) {
+                return true;
+            }
+            consoleWriter = Thread.currentThread();
+            return false;
+        }
+    }
+
+    private void drainConsole() {
+        List<Event> batch = new ArrayList<>(BATCH);
+        try {
+            boolean stop = false;
+            while (!stop) {
+                Event first = lines.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (retire()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                lines.drainTo(batch, BATCH - 1);
+                StringBuilder text = new StringBuilder();
+                for (Event event : batch) {
+                    if (event.type.equals("close")) {
+                        stop = true;
+                    } else {
+                        line(event, text);
+                    }
+                }
+                if (text.length() > 0) {
+                    console.print(text);
+                    console.flush();
+                }
+                release(batch);
+            }
+        } catch (InterruptedException ex) {
+            // Closed while the console was stuck.
+        }
+    }
+
+    private void drainFile() {
+        Writer out = null;
+        try {
+            if (!fileFailed) {
+                try {
+                    out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                } catch (IOException ex) {
+                    report(ex);
+                }
+            }
+            List<Event> batch = new ArrayList<>(BATCH);
+            long nextProgress = startNanos + intervalNanos;
+            boolean stop = false;
+            while (!stop) {
+                Event first = records.poll(Math.max(0, nextProgress - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    records.drainTo(batch, BATCH - 1);
+                }
+                StringBuilder json = new StringBuilder();
+                for (Event event : batch) {
+                    if (event.type.equals("close")) {
+                        stop = true;
+                    } else {
+                        record(event, json);
+                    }
+                }
+                if (stop || System.nanoTime() >= nextProgress) {
+                    json.append(progress());
+                    nextProgress = System.nanoTime() + intervalNanos;
+                }
+                if (out != null) {
+                    try {
+                        out.write(json.toString());
+                        out.flush();
+                    } catch (IOException ex) {
+                        // Keep draining so that close() is not left waiting on a pipe that went away.
+                        report(ex);
+                        closeQuietly(out);
+                        out = null;
+                    }
+                }
+                release(batch);
+            }
+        } catch (InterruptedException ex) {
+            // Closed while a pipe had no reader.
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void release(List<Event> batch) {
+        for (Event event : batch) {
+            if (event.written != null) {
+                event.written.countDown();
+            }
+        }
+        batch.clear();
+    }
+
+    private void report(IOException ex) {
+        fileFailed = true;
+        if (console != null) {
+            console.println("Progress events could not be written to " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Writer out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignore) {
+                // Nothing left to report to.
+            }
+        }
+    }
+
+    private void line(Event event, StringBuilder lines) {
+        Object[] fields = event.fields;
+        switch (event.type) {
+            case "attempt":
+                lines.append(String.format("[%d/%d] %s -> exit=%d score=%d summary=%s%n", field(fields, "attempt"), budget,
+                        field(fields, "description"), field(fields, "exit"), field(fields, "score"), field(fields, "summary")));
+                break;
+            case "attempt_failed":
+                lines.append(String.format("[%d/%d] %s -> failed: %s%n", field(fields, "attempt"), budget,
+                        field(fields, "description"), field(fields, "message")));
+                break;
+            case "attempt_reassigned":
+                lines.append(String.format("[%d/%d] %s -> reassigning: %s%n", field(fields, "attempt"), budget,
+                        field(fields, "description"), field(fields, "message")));
+                break;
+            case "fix":
+                lines.append("🎉 Found a full fix!").append(System.lineSeparator());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void record(Event event, StringBuilder json) {
+        Object[] fields = event.fields;
+        switch (event.type) {
+            case "attempt":
+            case "attempt_failed":
+                attempts++;
+                busyNanosSinceProgress += (long) ((double) field(fields, "duration_seconds") * 1e9);
+                break;
+            case "run_started":
+                bestScore = (int) field(fields, "baseline_score");
+                break;
+            case "best":
+                bestScore = (int) field(fields, "score");
+                break;
+            default:
+                break;
+        }
+        json.append(json(event.type, event.epochMillis, fields));
+    }
+
+    private String progress() {
+        long now = System.nanoTime();
+        double elapsed = (now - startNanos) / 1e9;
+        double interval = Math.max(1e-9, (now - lastProgressNanos) / 1e9);
+        double rate = elapsed > 0 ? attempts / elapsed : 0;
+        double recentRate = (attempts - lastAttempts) / interval;
+        double etaRate = recentRate > 0 ? recentRate : rate;
+        int capacity = Math.max(1, workers.get());
+        double utilization = Math.min(1.0, busyNanosSinceProgress / 1e9 / (capacity * interval));
+        String line = json("progress", System.currentTimeMillis(), new Object[]{
+                "attempts", attempts,
+                "budget", budget,
+                "elapsed_seconds", elapsed,
+                "candidates_per_second", rate,
+                "recent_candidates_per_second", recentRate,
+                "eta_seconds", etaRate > 0 ? Math.max(0, budget - attempts) / etaRate : null,
+                "busy_workers", busy.get(),
+                "workers", workers.get(),
+                "utilization", utilization,
+                "best_score", bestScore < 0 ? null : bestScore,
+                "dropped_events", dropped.sum()});
+        lastAttempts = attempts;
+        lastProgressNanos = now;
+        busyNanosSinceProgress = 0;
+        return line;
+    }
+
+    private static Object field(Object[] fields, String key) {
+        for (int i = 0; i < fields.length; i += 2) {
+            if (fields[i].equals(key)) {
+                return fields[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static String json(String type, long epochMillis, Object[] fields) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"type\": ").append(Json.quote(type)).append(", \"time_ms\": ").append(epochMillis);
+        for (int i = 0; i < fields.length; i += 2) {
+            sb.append(", ").append(Json.quote((String) fields[i])).append(": ");
+            Object value = fields[i + 1];
+            if (value == null) {
+                sb.append("null");
+            } else if (value instanceof String text) {
+                sb.append(Json.quote(text));
+            } else if (value instanceof Double number) {
+                sb.append(String.format(Locale.ROOT, "%.4f", number));
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static final class Event {
+        final String type;
+        final long epochMillis = System.currentTimeMillis();
+        final CountDownLatch written;
+        final Object[] fields;
+
+        Event(String type, CountDownLatch written, Object[] fields) {
+            this.type = type;
+            this.written = written;
+            this.fields = fields;
+        }
+    }
+}
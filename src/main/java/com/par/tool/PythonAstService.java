@@ -1,20 +1,27 @@
 package com.par.tool;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 final class PythonAstService {
-    private static final String PYTHON_CMD = detectPython();
-    private static final String SCRIPT = String.join("\n",
+    static final String PYTHON_CMD = detectPython();
+    static final String SCRIPT = String.join("\n",
             "import ast",
             "import copy",
+            "import hashlib",
             "import sys",
             "",
             "class NullGuardTransformer(ast.NodeTransformer):",
@@ -182,7 +189,62 @@ final class PythonAstService {
             "                count += 1",
             "    return count",
             "",
+            "_TERMINAL = (ast.Return, ast.Raise, ast.Continue, ast.Break)",
+            "_KIND_MARKERS = (ast.Yield, ast.YieldFrom, ast.Await)",
+            "",
+            "def changes_kind(statements):",
+            "    # A yield or await makes its function a generator or coroutine even where it can never run.",
+            "    return any(isinstance(node, _KIND_MARKERS) for statement in statements for node in ast.walk(statement))",
+            "",
+            "class DeadCodeStripper(ast.NodeTransformer):",
+            "    def generic_visit(self, node):",
+            "        super().generic_visit(node)",
+            "        for field in ('body', 'orelse', 'finalbody'):",
+            "            statements = getattr(node, field, None)",
+            "            if isinstance(statements, list) and statements and isinstance(statements[0], ast.stmt):",
+            "                for index, statement in enumerate(statements):",
+            "                    if isinstance(statement, _TERMINAL) and not changes_kind(statements[index + 1:]):",
+            "                        del statements[index + 1:]",
+            "                        break",
+            "        return node",
+            "",
+            "def fingerprint(source):",
+            "    tree = DeadCodeStripper().visit(ast.parse(source))",
+            "    return hashlib.sha256(ast.dump(tree).encode('utf-8')).hexdigest()[:32]",
+            "",
+            "def check_syntax(source):",
+            "    try:",
+            "        compile(source, '<candidate>', 'exec', dont_inherit=True)",
+            "        return 'ok ' + fingerprint(source)",
+            "    except SyntaxError as exc:",
+            "        message = (exc.msg or 'invalid syntax').replace('\\n', ' ')",
+            "        return f'err {exc.lineno or 0} {type(exc).__name__}: {message}'",
+            "    except (ValueError, OverflowError, RecursionError, MemoryError) as exc:",
+            "        return f'err 0 {type(exc).__name__}'",
+            "",
+            "def serve():",
+            "    stdin = sys.stdin.buffer",
+            "    stdout = sys.stdout.buffer",
+            "    while True:",
+            "        header = stdin.readline()",
+            "        if not header:",
+            "            break",
+            "        parts = header.decode('utf-8').split()",
+            "        if len(parts) == 2 and parts[0] == 'validate':",
+            "            results = []",
+            "            for _ in range(int(parts[1])):",
+            "                length = int(stdin.readline())",
+            "                source = stdin.read(length).decode('utf-8', 'replace')",
+            "                results.append(check_syntax(source))",
+            "            stdout.write(''.join(result + '\\n' for result in results).encode('utf-8'))",
+            "        else:",
+            "            stdout.write(b'unknown request\\n')",
+            "        stdout.flush()",
+            "",
             "def main():",
+            "    if len(sys.argv) == 2 and sys.argv[1] == 'serve':",
+            "        serve()",
+            "        return",
             "    if len(sys.argv) < 3:",
             "        sys.exit('missing args')",
             "    mode = sys.argv[1]",
@@ -213,12 +275,37 @@ final class PythonAstService {
             "    main()"
     );
 
+    /** Resident helpers that may run at once; callers beyond that wait for one to come back. */
+    private static final int MAX_HELPERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    /** How long one request may take before its helper is presumed stuck on a candidate and killed. */
+    private static final long RESPONSE_TIMEOUT_MILLIS = 30_000;
+    private static final HelperPool HELPERS =
+            new HelperPool(List.of(PYTHON_CMD, "-c", SCRIPT, "serve"), MAX_HELPERS, RESPONSE_TIMEOUT_MILLIS);
+
     private PythonAstService() {}
 
+    /**
+     * Compiles and fingerprints every source with a resident helper, one round-trip per batch. Concurrent callers get
+     * helpers of their own, up to {@link #MAX_HELPERS}. Returns {@code null} when no Python helper is available, or
+     * when the caller is interrupted while waiting for one, in which case callers should treat every source as valid
+     * and distinct.
+     */
+    static List<SourceCheck> inspect(List<String> sources) {
+        return HELPERS.inspect(sources);
+    }
+
+    /**
+     * Runs one fix transform in its own Python process. An interrupted caller gets nothing back, and the process is
+     * killed rather than left to finish on its own.
+     */
     static List<Patch> applyFix(String source, String fixName, int limit) {
+        if (Thread.currentThread().isInterrupted()) {
+            return List.of();
+        }
+        Process process = null;
         try {
             ProcessBuilder builder = new ProcessBuilder(PYTHON_CMD, "-c", SCRIPT, "transform", fixName, Integer.toString(limit));
-            Process process = builder.start();
+            process = builder.start();
             try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
                 writer.write(source);
             }
@@ -230,17 +317,28 @@ final class PythonAstService {
             }
             return parsePatches(stdout);
         } catch (InterruptedException ie) {
+            process.destroyForcibly();
             Thread.currentThread().interrupt();
             return List.of();
         } catch (IOException ex) {
+            if (process != null) {
+                process.destroyForcibly();
+            }
             return List.of();
         }
     }
 
+    /**
+     * Counts matches of one fault detector in its own Python process; cancelled like {@link #applyFix}.
+     */
     static int countFaultOccurrences(String source, String faultName) {
+        if (Thread.currentThread().isInterrupted()) {
+            return 0;
+        }
+        Process process = null;
         try {
             ProcessBuilder builder = new ProcessBuilder(PYTHON_CMD, "-c", SCRIPT, "detect", faultName, "0");
-            Process process = builder.start();
+            process = builder.start();
             try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
                 writer.write(source);
             }
@@ -257,13 +355,203 @@ final class PythonAstService {
                 return Integer.parseInt(line.trim());
             }
         } catch (InterruptedException ie) {
+            process.destroyForcibly();
             Thread.currentThread().interrupt();
             return 0;
         } catch (IOException | NumberFormatException ex) {
+            if (process != null) {
+                process.destroyForcibly();
+            }
             return 0;
         }
     }
 
+    /**
+     * Outcome of compiling one source: either a compiler error or a fingerprint of its normalized AST (formatting,
+     * comments and statements after a return/raise/break/continue do not affect it, unless they hold a {@code yield} or
+     * {@code await} that decides whether the function is a generator or coroutine).
+     */
+    static final class SourceCheck {
+        private final String error;
+        private final String fingerprint;
+
+        SourceCheck(String error, String fingerprint) {
+            this.error = error;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean valid() {
+            return error == null;
+        }
+
+        String error() {
+            return error;
+        }
+
+        String fingerprint() {
+            return fingerprint;
+        }
+    }
+
+    /**
+     * Resident helpers shared by concurrent callers. A helper that dies or stops answering is replaced, and the batch
+     * it was working on is checked again one source at a time, so that only the source that brought it down is
+     * rejected.
+     */
+    static final class HelperPool {
+        private final List<String> command;
+        private final long responseTimeoutMillis;
+        private final Semaphore permits;
+        private final BlockingQueue<ResidentHelper> idle = new LinkedBlockingQueue<>();
+        private final AtomicInteger started = new AtomicInteger();
+
+        HelperPool(List<String> command, int size, long responseTimeoutMillis) {
+            this.command = command;
+            this.responseTimeoutMillis = responseTimeoutMillis;
+            this.permits = new Semaphore(size);
+        }
+
+        List<SourceCheck> inspect(List<String> sources) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ResidentHelper helper = idle.poll();
+            try {
+                try {
+                    helper = live(helper);
+                    List<SourceCheck> checks = helper.inspect(sources, responseTimeoutMillis);
+                    idle.add(helper);
+                    helper = null;
+                    return checks;
+                } catch (IOException | RuntimeException ex) {
+                    if (helper != null) {
+                        helper.close();
+                        helper = null;
+                    }
+                }
+                List<SourceCheck> checks = new ArrayList<>(sources.size());
+                boolean answered = false;
+                for (String source : sources) {
+                    try {
+                        helper = live(helper);
+                        checks.addAll(helper.inspect(List.of(source), responseTimeoutMillis));
+                        answered = true;
+                    } catch (IOException | RuntimeException ex) {
+                        if (helper != null) {
+                            helper.close();
+                            helper = null;
+                        }
+                        checks.add(new SourceCheck("0 HelperFailure: the compiler crashed or took longer than "
+                                + responseTimeoutMillis + " ms", null));
+                    }
+                }
+                if (helper != null) {
+                    idle.add(helper);
+                    helper = null;
+                }
+                // A helper that cannot check anything at all is broken, not the sources; treat it as missing.
+                return answered ? checks : null;
+            } finally {
+                if (helper != null) {
+                    helper.close();
+                }
+                permits.release();
+            }
+        }
+
+        /**
+         * Helper processes started so far, replacements included.
+         */
+        int started() {
+            return started.get();
+        }
+
+        private ResidentHelper live(ResidentHelper helper) throws IOException {
+            if (helper != null && helper.isAlive()) {
+                return helper;
+            }
+            if (helper != null) {
+                helper.close();
+            }
+            ResidentHelper fresh = new ResidentHelper(command);
+            started.incrementAndGet();
+            return fresh;
+        }
+    }
+
+    /**
+     * Long-lived {@code python -c SCRIPT serve} process that answers framed requests on its standard streams, so batch
+     * requests do not pay interpreter startup each time.
+     */
+    private static final class ResidentHelper {
+        private final Process process;
+        private final OutputStream requests;
+        private final BufferedReader responses;
+
+        ResidentHelper(List<String> command) throws IOException {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+            this.process = builder.start();
+            this.requests = new BufferedOutputStream(process.getOutputStream());
+            this.responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Sends one batch and reads its results, killing the helper if they take longer than {@code timeoutMillis}.
+         */
+        List<SourceCheck> inspect(List<String> sources, long timeoutMillis) throws IOException {
+            Thread watchdog = Thread.ofVirtual().name("par-helper-watchdog").start(() -> {
+                try {
+                    Thread.sleep(timeoutMillis);
+                    process.destroyForcibly();
+                } catch (InterruptedException ex) {
+                    // Answered in time.
+                }
+            });
+            try {
+                return exchange(sources);
+            } finally {
+                watchdog.interrupt();
+            }
+        }
+
+        private List<SourceCheck> exchange(List<String> sources) throws IOException {
+            requests.write(("validate " + sources.size() + "\n").getBytes(StandardCharsets.UTF_8));
+            for (String source : sources) {
+                byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+                requests.write((bytes.length + "\n").getBytes(StandardCharsets.UTF_8));
+                requests.write(bytes);
+            }
+            requests.flush();
+            List<SourceCheck> results = new ArrayList<>(sources.size());
+            for (int i = 0; i < sources.size(); i++) {
+                String line = responses.readLine();
+                if (line == null) {
+                    throw new IOException("Python helper exited unexpectedly");
+                }
+                if (line.startsWith("ok ")) {
+                    results.add(new SourceCheck(null, line.substring(3)));
+                } else if (line.startsWith("err ")) {
+                    results.add(new SourceCheck(line.substring(4), null));
+                } else {
+                    throw new IOException("Unexpected helper response: " + line);
+                }
+            }
+            return results;
+        }
+
+        void close() {
+            process.destroyForcibly();
+        }
+    }
+
     private static String readAll(Process process) throws IOException {
         try (BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
             StringBuilder sb = new StringBuilder();
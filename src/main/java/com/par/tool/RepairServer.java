@@ -0,0 +1,489 @@
+package com.par.tool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code serve} subcommand: a long-running process that accepts repair jobs over HTTP on the loopback interface.
+ * Jobs are the same JSON objects as the lines of a {@code batch} manifest and run on one {@link SharedWorkerPool}, so
+ * the JVM, the resident Python helper and the project copies stay warm from one job to the next.
+ *
+ * <ul>
+ *   <li>{@code POST /jobs} queues a job and answers {@code 202} with its id; with {@code ?wait=true} it answers once
+ *       the job has finished, with the same body as {@code GET /jobs/<id>}.</li>
+ *   <li>{@code GET /jobs} lists every job and its state.</li>
+ *   <li>{@code GET /jobs/<id>} returns the state, and for a finished job its summary and best diff.</li>
+ *   <li>{@code GET /jobs/<id>/events} streams the job's progress events as JSON lines until it finishes.</li>
+ * </ul>
+ *
+ * <p>Loopback alone does not keep a web page in a local browser from posting a job, so every request must carry the
+ * server's token in an {@code Authorization: Bearer} header, name this server in {@code Host}, and come from no other
+ * {@code Origin}; jobs must be posted as {@code application/json}.
+ */
+public final class RepairServer implements AutoCloseable {
+    private static final long EVENTS_POLL_MILLIS = 100;
+    /** How long interrupted jobs get to restore their targets and hand back their copies before those are deleted. */
+    private static final long SHUTDOWN_GRACE_SECONDS = 30;
+    /** Finished jobs whose status stays available; older ones are forgotten, though their results stay on disk. */
+    static final int FINISHED_JOBS_KEPT = 200;
+    /** Jobs queued or running at once; more are refused until some finish. */
+    static final int PENDING_JOBS_MAX = 1000;
+
+    private final HttpServer server;
+    private final SharedWorkerPool pool;
+    private final Path out;
+    private final int threads;
+    private final Semaphore running;
+    private final ExecutorService jobRunner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-job-", 0).factory());
+    private final ExecutorService requestHandlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, ServerJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final String token;
+    private final AtomicInteger ids = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    RepairServer(int port, int threads, int concurrentJobs, Path out) throws IOException {
+        this(port, threads, concurrentJobs, out, null);
+    }
+
+    /**
+     * @param token the token clients must send, or {@code null} for a random one
+     */
+    RepairServer(int port, int threads, int concurrentJobs, Path out, String token) throws IOException {
+        this.threads = threads;
+        this.token = token != null ? token : newToken();
+        this.out = out;
+        this.running = new Semaphore(concurrentJobs, true);
+        this.pool = new SharedWorkerPool(threads);
+        // Jobs run arbitrary test commands, so the API is never exposed beyond this machine.
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/jobs", this::handle);
+        server.setExecutor(requestHandlers);
+    }
+
+    public static RepairServer parse(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String key = arg.substring(2);
+                String value = "true";
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    value = args[++i];
+                }
+                options.put(key, value);
+            }
+        }
+        int port = parseInt(options.getOrDefault("port", "7171"), "port");
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("--port must be between 0 and 65535, received: " + port);
+        }
+        int detectedProcessors = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int threads = parseInt(options.getOrDefault("threads", Integer.toString(detectedProcessors)), "threads");
+        int concurrentJobs = parseInt(options.getOrDefault("jobs", Integer.toString(threads)), "jobs");
+        if (threads <= 0 || concurrentJobs <= 0) {
+            throw new IllegalArgumentException("--threads and --jobs must be positive integers");
+        }
+        String token = options.get("token");
+        if (token != null && (token.equals("true") || token.length() < 16)) {
+            throw new IllegalArgumentException("--token must be at least 16 characters");
+        }
+        return new RepairServer(port, threads, concurrentJobs, Path.of(options.getOrDefault("out", "_apr_results/server")), token);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static int parseInt(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for --" + option + ": " + value);
+        }
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    String token() {
+        return token;
+    }
+
+    void start() {
+        // Starts the resident Python helper now rather than during the first job.
+        PythonAstService.inspect(List.of(""));
+        server.start();
+    }
+
+    /**
+     * Serves until the JVM is asked to exit.
+     */
+    public void run() throws InterruptedException {
+        start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                close();
+            } catch (IOException ex) {
+                System.err.println("Could not remove the worker copies: " + ex.getMessage());
+            }
+        }));
+        System.out.println("Serving repair jobs on http://127.0.0.1:" + port() + "/jobs with " + threads + " shared test slots.");
+        System.out.println("Send every request with the header: Authorization: Bearer " + token);
+        stopped.await();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        stopped.countDown();
+        server.stop(0);
+        jobRunner.shutdownNow();
+        requestHandlers.shutdownNow();
+        try {
+            if (!jobRunner.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)
+                    || !requestHandlers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Jobs still running after " + SHUTDOWN_GRACE_SECONDS + "s; removing the worker copies anyway.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        boolean answerLater = false;
+        try {
+            if (refused(exchange)) {
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String[] parts = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            // parts[0] is empty and parts[1] is "jobs".
+            if (!parts[1].equals("jobs")) {
+                respond(exchange, 404, error("Not found"));
+            } else if (parts.length == 2 && method.equals("POST")) {
+                answerLater = submit(exchange);
+            } else if (parts.length == 2 && method.equals("GET")) {
+                List<String> entries = new ArrayList<>();
+                for (int id = 1; id <= ids.get(); id++) {
+                    ServerJob job = jobs.get(Integer.toString(id));
+                    if (job != null) {
+                        entries.add(job.brief());
+                    }
+                }
+                respond(exchange, 200, "[" + String.join(", ", entries) + "]");
+            } else if (parts.length >= 3 && parts.length <= 4 && jobs.containsKey(parts[2])) {
+                ServerJob job = jobs.get(parts[2]);
+                if (!method.equals("GET")) {
+                    respond(exchange, 405, error("Use GET for " + exchange.getRequestURI().getPath()));
+                } else if (parts.length == 3) {
+                    respond(exchange, 200, job.status());
+                } else if (parts[3].equals("events")) {
+                    streamEvents(exchange, job);
+                } else {
+                    respond(exchange, 404, error("Not found"));
+                }
+            } else if (parts.length == 2) {
+                respond(exchange, 405, error("Use GET or POST for /jobs"));
+            } else {
+                respond(exchange, 404, error("Not found"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!answerLater) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Answers a request that may not be served and returns {@code true}, or returns {@code false} when it may.
+     */
+    private boolean refused(HttpExchange exchange) throws IOException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        Set<String> hosts = Set.of("127.0.0.1:" + port(), "localhost:" + port(), "[::1]:" + port());
+        // A DNS-rebound page reaches this socket under its own host name.
+        if (host == null || !hosts.contains(host.toLowerCase(Locale.ROOT))) {
+            respond(exchange, 403, error("Host must be 127.0.0.1:" + port() + " or localhost:" + port()));
+            return true;
+        }
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin != null && !hosts.contains(origin.toLowerCase(Locale.ROOT).replaceFirst("^http://", ""))) {
+            respond(exchange, 403, error("Requests from other origins are not accepted"));
+            return true;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            respond(exchange, 401, error("Missing Authorization: Bearer <token> header; the token is printed when the server starts"));
+            return true;
+        }
+        if (!MessageDigest.isEqual(authorization.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            respond(exchange, 401, error("Wrong token"));
+            return true;
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        // A cross-site form can only send text/plain, form or multipart bodies without a preflight.
+        if (exchange.getRequestMethod().equals("POST")
+                && (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("application/json"))) {
+            respond(exchange, 415, error("Jobs must be posted as application/json"));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Queues the job in the request. Returns whether the response is sent later, once the job is done, in which case
+     * the exchange is closed then.
+     */
+    private boolean submit(HttpExchange exchange) throws IOException {
+        ServerJob job;
+        try (InputStream body = exchange.getRequestBody()) {
+            Object parsed = Json.parse(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            if (!(parsed instanceof Map<?, ?> entry)) {
+                throw new IllegalArgumentException("A job is a JSON object of options");
+            }
+            if (pending.get() >= PENDING_JOBS_MAX) {
+                respond(exchange, 503, error(PENDING_JOBS_MAX + " jobs are already queued or running; try again later"));
+                return false;
+            }
+            String id = Integer.toString(ids.incrementAndGet());
+            // Operator statistics live outside the job directories, which are replaced, so every job warm-starts from
+            // the jobs before it, in this server run and earlier ones.
+            Map<Object, Object> options = new LinkedHashMap<>(entry);
+            options.putIfAbsent("operator-stats", out.resolve("operator_stats.json").toString());
+            BatchRunner.Job config = BatchRunner.job(options, id, Path.of("").toAbsolutePath(), out, threads);
+            Object name = entry.get("name");
+            job = new ServerJob(id, name == null ? null : name.toString(), config);
+        } catch (IllegalArgumentException | ClassCastException ex) {
+            respond(exchange, 400, error(ex.getMessage()));
+            return false;
+        }
+        // The results of a job with the same id from an earlier server run must not show up as this job's.
+        FileUtils.deleteRecursive(job.job.results());
+        pending.incrementAndGet();
+        jobs.put(job.id, job);
+        jobRunner.submit(() -> runJob(job));
+        if (!isTrue(query(exchange.getRequestURI()).get("wait"))) {
+            respond(exchange, 202, job.brief());
+            return false;
+        }
+        // No thread waits for the job; the answer is sent when it completes.
+        job.done.thenRunAsync(() -> {
+            try (exchange) {
+                respond(exchange, 200, job.status());
+            } catch (IOException ex) {
+                // The client went away.
+            }
+        }, requestHandlers);
+        return true;
+    }
+
+    private void runJob(ServerJob job) {
+        try {
+            running.acquire();
+        } catch (InterruptedException ex) {
+            job.finish("error", "Server shut down before the job started");
+            retire(job);
+            return;
+        }
+        try {
+            job.start();
+            Files.createDirectories(job.job.results());
+            pool.refresh(job.job.config().getProject());
+            new ParRunner(job.job.config(), job.job.results(), pool).run();
+            job.finish("done", null);
+        } catch (Exception ex) {
+            job.finish("error", ex.getMessage() == null ? ex.toString() : ex.getMessage());
+        } finally {
+            running.release();
+            retire(job);
+        }
+    }
+
+    /**
+     * Counts the finished job out of the pending ones and forgets the oldest finished jobs past the ones kept.
+     */
+    private void retire(ServerJob job) {
+        pending.decrementAndGet();
+        finished.add(job.id);
+        while (finished.size() > FINISHED_JOBS_KEPT) {
+            String oldest = finished.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Copies the job's events file to the response as it grows, one complete line at a time, until the job is over
+     * and everything it wrote has been sent.
+     */
+    private static void streamEvents(HttpExchange exchange, ServerJob job) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        Path file = job.job.config().getEventsFile();
+        OutputStream body = exchange.getResponseBody();
+        long position = 0;
+        while (true) {
+            boolean finished = job.done.isDone();
+            if (Files.exists(file)) {
+                try (RandomAccessFile events = new RandomAccessFile(file.toFile(), "r")) {
+                    long length = events.length();
+                    if (length > position) {
+                        byte[] bytes = new byte[(int) Math.min(length - position, 1 << 20)];
+                        events.seek(position);
+                        events.readFully(bytes);
+                        int end = bytes.length;
+                        while (end > 0 && bytes[end - 1] != '\n') {
+                            end--;
+                        }
+                        body.write(bytes, 0, end);
+                        body.flush();
+                        position += end;
+                        if (end > 0) {
+                            continue;
+                        }
+                    }
+                }
+            }
+            if (finished) {
+                return;
+            }
+            Thread.sleep(EVENTS_POLL_MILLIS);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> values = new HashMap<>();
+        if (uri.getQuery() != null) {
+            for (String pair : uri.getQuery().split("&")) {
+                int equals = pair.indexOf('=');
+                values.put(equals < 0 ? pair : pair.substring(0, equals), equals < 0 ? "true" : pair.substring(equals + 1));
+            }
+        }
+        return values;
+    }
+
+    private static boolean isTrue(String value) {
+        return value != null && (value.equals("true") || value.equals("1"));
+    }
+
+    private static String error(String message) {
+        return "{\"error\": " + Json.quote(message == null ? "Invalid request" : message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static final class ServerJob {
+        final String id;
+        final String name;
+        final BatchRunner.Job job;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile String state = "queued";
+        private volatile String error;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        ServerJob(String id, String name, BatchRunner.Job job) {
+            this.id = id;
+            this.name = name;
+            this.job = job;
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            state = "running";
+        }
+
+        void finish(String finalState, String message) {
+            endNanos = System.nanoTime();
+            error = message;
+            state = finalState;
+            done.complete(null);
+        }
+
+        String brief() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"id\": ").append(Json.quote(id));
+            if (name != null) {
+                sb.append(", \"name\": ").append(Json.quote(name));
+            }
+            sb.append(", \"state\": ").append(Json.quote(state));
+            if (startNanos != 0) {
+                long end = endNanos != 0 ? endNanos : System.nanoTime();
+                sb.append(", \"wall_seconds\": ").append(String.format(Locale.ROOT, "%.4f", (end - startNanos) / 1e9));
+            }
+            if (error != null) {
+                sb.append(", \"error\": ").append(Json.quote(error));
+            }
+            sb.append(", \"results\": ").append(Json.quote(job.results().toAbsolutePath().toString()));
+            sb.append('}');
+            return sb.toString();
+        }
+
+        String status() throws IOException {
+            String brief = brief();
+            if (!done.isDone()) {
+                return brief;
+            }
+            StringBuilder sb = new StringBuilder(brief.substring(0, brief.length() - 1));
+            Path summary = job.results().resolve("summary.json");
+            if (Files.exists(summary)) {
+                sb.append(", \"summary\": ").append(Files.readString(summary).strip());
+            }
+            Path diff = job.results().resolve("best_patch.diff");
+            if (Files.exists(diff)) {
+                sb.append(", \"diff\": ").append(Json.quote(Files.readString(diff)));
+            }
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.par.tool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wall-clock milestones of one {@link ParRunner#run()}, measured from its start. Values stay {@code -1} for phases
+ * the run never reached.
+ */
+final class RunTimings {
+    private volatile long startNanos = System.nanoTime();
+    private volatile long workerSetupNanos = -1;
+    private volatile long searchNanos = -1;
+    private final AtomicLong firstFixNanos = new AtomicLong(-1);
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    void workerSetup(long nanos) {
+        workerSetupNanos = nanos;
+    }
+
+    void search(long nanos) {
+        searchNanos = nanos;
+    }
+
+    /**
+     * Records the first full fix; later calls keep the earliest time.
+     */
+    void firstFix() {
+        firstFixNanos.compareAndSet(-1, elapsedNanos());
+    }
+
+    long workerSetupNanos() {
+        return workerSetupNanos;
+    }
+
+    long searchNanos() {
+        return searchNanos;
+    }
+
+    long firstFixNanos() {
+        return firstFixNanos.get();
+    }
+}
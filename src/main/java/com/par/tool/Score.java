@@ -1,5 +1,6 @@
 package com.par.tool;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -9,6 +10,12 @@ public final class Score {
     private static final Pattern NUMBER_TOKEN = Pattern.compile("(\\d+)\\s+(failed|errors?|passed|skipped|xfailed|xpassed)");
     private static final Pattern JSON_TOKEN = Pattern.compile("\"(failed|errors?|passed|skipped|xfailed|xpassed)\"\\s*:\\s*(\\d+)");
 
+    /** Orders results from most to least fit: fewer failures and errors first, then more passing tests. */
+    public static final Comparator<ScoreResult> FITNESS_ORDER = Comparator
+            .comparingInt(ScoreResult::score)
+            .thenComparingInt(ScoreResult::errors)
+            .thenComparing(Comparator.comparingInt(ScoreResult::passed).reversed());
+
     private Score() {}
 
     public static ScoreResult evaluate(TestRunResult result) {
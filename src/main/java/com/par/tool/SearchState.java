@@ -0,0 +1,195 @@
+package com.par.tool;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared, thread-safe progress of a repair search: attempt accounting, the first-fix flag, the best candidate so far
+ * and whether the time budget or a plateau has ended the search.
+ */
+final class SearchState {
+    static final String TIME_BUDGET = "time_budget";
+    static final String PLATEAU = "plateau";
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private volatile int lastImprovement;
+    private final AtomicReference<String> stopReason = new AtomicReference<>(null);
+    private final long startNanos;
+    private final long timeBudgetNanos;
+    private final int plateauWindow;
+    private final AtomicBoolean foundFix = new AtomicBoolean(false);
+    private final AtomicReference<Score.ScoreResult> bestScore;
+    private final AtomicReference<String> bestSource = new AtomicReference<>(null);
+    private final AtomicReference<String> bestDescription = new AtomicReference<>(null);
+    private final AtomicReference<DiffRenderer> bestDiffRenderer = new AtomicReference<>(null);
+    private final AtomicReference<RenderedDiff> renderedDiff = new AtomicReference<>(null);
+    private final Object bestLock = new Object();
+    private final Metrics metrics;
+
+    SearchState(Score.ScoreResult baselineScore) {
+        this(baselineScore, new Metrics());
+    }
+
+    SearchState(Score.ScoreResult baselineScore, Metrics metrics) {
+        this(baselineScore, metrics, System.nanoTime(), 0, 0);
+    }
+
+    /**
+     * A search that stops dispatching once less than an attempt's worth of {@code timeBudgetNanos}, counted from
+     * {@code startNanos}, is left, or once {@code plateauWindow} evaluations in a row have not improved the best score.
+     * Zero disables either limit.
+     */
+    SearchState(Score.ScoreResult baselineScore, Metrics metrics, long startNanos, long timeBudgetNanos, int plateauWindow) {
+        this.bestScore = new AtomicReference<>(baselineScore);
+        this.metrics = metrics;
+        this.startNanos = startNanos;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.plateauWindow = plateauWindow;
+    }
+
+    /**
+     * The run's metrics registry, shared by everything that works on this search.
+     */
+    Metrics metrics() {
+        return metrics;
+    }
+
+    int nextAttempt() {
+        return attempts.incrementAndGet();
+    }
+
+    int attempts() {
+        return attempts.get();
+    }
+
+    boolean foundFix() {
+        return foundFix.get();
+    }
+
+    void markFixed() {
+        foundFix.set(true);
+    }
+
+    /**
+     * {@link #TIME_BUDGET} or {@link #PLATEAU} once either limit says no further candidate should be dispatched, and
+     * {@code null} until then. The time budget keeps back the 90th percentile of the attempts so far (before the
+     * first one, the baseline run), so attempts already running can normally finish within it. The first reason
+     * found is kept.
+     */
+    String stopReason() {
+        String reason = stopReason.get();
+        if (reason != null) {
+            return reason;
+        }
+        if (timeBudgetNanos > 0 && timeBudgetNanos - (System.nanoTime() - startNanos) < expectedAttemptNanos()) {
+            reason = TIME_BUDGET;
+        } else if (plateauWindow > 0 && evaluations.get() - lastImprovement >= plateauWindow) {
+            reason = PLATEAU;
+        }
+        if (reason != null) {
+            stopReason.compareAndSet(null, reason);
+        }
+        return stopReason.get();
+    }
+
+    /**
+     * The reason {@link #stopReason()} has recorded, without checking the limits again.
+     */
+    String stoppedBy() {
+        return stopReason.get();
+    }
+
+    private long expectedAttemptNanos() {
+        Metrics.Histogram runs = metrics.timer("test_run");
+        if (runs != null && runs.count() > 0) {
+            return runs.percentile(0.9);
+        }
+        Metrics.Histogram baseline = metrics.timer("baseline");
+        return baseline == null ? 0 : baseline.max();
+    }
+
+    /**
+     * Counts an evaluation towards the plateau window and records the candidate if it beats the current best score.
+     * Returns the best score it replaced, or {@code null} when the candidate was no improvement. The diff is not
+     * rendered here but by {@link #bestDiff()}, outside the lock and only for the candidate that is still best when it
+     * is asked for.
+     */
+    Score.ScoreResult offer(Patch candidate, Score.ScoreResult score, DiffRenderer diffRenderer) {
+        int evaluation = evaluations.incrementAndGet();
+        synchronized (bestLock) {
+            Score.ScoreResult currentBest = bestScore.get();
+            if (score.score() >= currentBest.score()) {
+                return null;
+            }
+            lastImprovement = Math.max(lastImprovement, evaluation);
+            ParEvents.BestImproved event = new ParEvents.BestImproved();
+            event.begin();
+            bestScore.set(score);
+            bestSource.set(candidate.source());
+            bestDescription.set(candidate.description());
+            bestDiffRenderer.set(diffRenderer);
+            metrics.increment("best_improved");
+            event.end();
+            if (event.shouldCommit()) {
+                event.operator = candidate.origin();
+                event.description = candidate.description();
+                event.previousScore = currentBest.score();
+                event.score = score.score();
+                event.commit();
+            }
+            return currentBest;
+        }
+    }
+
+    Score.ScoreResult bestScore() {
+        return bestScore.get();
+    }
+
+    String bestSource() {
+        return bestSource.get();
+    }
+
+    String bestDescription() {
+        return bestDescription.get();
+    }
+
+    /**
+     * Renders the diff of the current best candidate, once per candidate.
+     */
+    String bestDiff() {
+        String source;
+        DiffRenderer renderer;
+        synchronized (bestLock) {
+            source = bestSource.get();
+            renderer = bestDiffRenderer.get();
+        }
+        if (source == null || renderer == null) {
+            return null;
+        }
+        RenderedDiff cached = renderedDiff.get();
+        if (cached != null && cached.source == source) {
+            return cached.diff;
+        }
+        long start = System.nanoTime();
+        String diff = renderer.render(source);
+        metrics.since("diff", start);
+        renderedDiff.set(new RenderedDiff(source, diff));
+        return diff;
+    }
+
+    interface DiffRenderer {
+        String render(String patchedSource);
+    }
+
+    private static final class RenderedDiff {
+        final String source;
+        final String diff;
+
+        RenderedDiff(String source, String diff) {
+            this.source = source;
+            this.diff = diff;
+        }
+    }
+}
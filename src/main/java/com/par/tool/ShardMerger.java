@@ -0,0 +1,135 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * The {@code merge} subcommand: folds the {@link ShardResult}s of a sharded run into the same {@code summary.json},
+ * {@code best_patch.py} and {@code best_patch.diff} a single invocation would have written.
+ */
+public final class ShardMerger {
+    private static final Comparator<ShardResult> BEST_FIRST = Comparator
+            .comparing(ShardResult::bestScore, Score.FITNESS_ORDER)
+            .thenComparingInt(ShardResult::shardIndex);
+
+    private ShardMerger() {}
+
+    /**
+     * Accepts shard files or directories holding them, plus an optional {@code --out <dir>} (default
+     * {@code _apr_results}).
+     */
+    public static void run(String[] args) throws IOException {
+        Path out = Path.of("_apr_results");
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out")) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for --out");
+                }
+                out = Path.of(args[++i]);
+            } else {
+                inputs.add(Path.of(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Usage: merge [--out <dir>] <shard result file or directory>...");
+        }
+        List<ShardResult> results = new ArrayList<>();
+        for (Path file : shardFiles(inputs)) {
+            results.add(ShardResult.read(file));
+        }
+        merge(results, out);
+    }
+
+    static void merge(List<ShardResult> results, Path out) throws IOException {
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("No shard results to merge");
+        }
+        ShardResult first = results.get(0);
+        TreeSet<Integer> seen = new TreeSet<>();
+        for (ShardResult result : results) {
+            if (result.shardCount() != first.shardCount() || result.seed() != first.seed()
+                    || !result.baseHash().equals(first.baseHash())) {
+                throw new IllegalArgumentException("Shard " + result.shardIndex() + "/" + result.shardCount()
+                        + " belongs to a different run (shard count, seed or target differ)");
+            }
+            if (!seen.add(result.shardIndex())) {
+                throw new IllegalArgumentException("Shard " + result.shardIndex() + " appears more than once");
+            }
+        }
+        if (seen.size() < first.shardCount()) {
+            List<Integer> missing = new ArrayList<>();
+            for (int index = 1; index <= first.shardCount(); index++) {
+                if (!seen.contains(index)) {
+                    missing.add(index);
+                }
+            }
+            System.out.println("Warning: merging an incomplete run; missing shards " + missing);
+        }
+
+        int tried = 0;
+        ShardResult best = null;
+        boolean sameStatus = true;
+        for (ShardResult result : results) {
+            tried += result.tried();
+            if (result.bestSource() != null && (best == null || BEST_FIRST.compare(result, best) < 0)) {
+                best = result;
+            }
+            sameStatus &= result.status().equals(first.status());
+        }
+
+        Score.ScoreResult bestScore = best == null ? first.baselineScore() : best.bestScore();
+        String status;
+        if (sameStatus && (first.status().equals("test_command_failed") || first.status().equals("already_passing"))) {
+            // Every shard stopped at the baseline, so there is no search to summarise.
+            status = first.status();
+        } else {
+            status = SummaryWriter.status(bestScore, first.baselineScore());
+        }
+        Files.createDirectories(out);
+        Files.writeString(out.resolve("summary.json"), SummaryWriter.createSummary(
+                status,
+                // Shards stop independently of each other, so the merged run has no single stop reason.
+                null,
+                first.baselineExit(),
+                first.baselineScore(),
+                bestScore,
+                tried,
+                best == null ? null : best.bestDescription(),
+                first.detectedFaults(),
+                // Every shard screens the whole candidate sequence before slicing it, so the counts are the same in each.
+                first.rejectedInvalid(),
+                first.rejectedEquivalent()));
+        if (best != null) {
+            Files.writeString(out.resolve("best_patch.py"), best.bestSource());
+            if (best.bestDiff() != null && !best.bestDiff().isBlank()) {
+                Files.writeString(out.resolve("best_patch.diff"), best.bestDiff());
+            }
+        }
+        System.out.printf("Merged %d shard results (%d candidates tried): %s%n", results.size(), tried, status);
+    }
+
+    private static List<Path> shardFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> listing = Files.list(input)) {
+                    listing.filter(path -> path.getFileName().toString().matches("shard-\\d+-of-\\d+\\.json"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else if (Files.exists(input)) {
+                files.add(input);
+            } else {
+                throw new IllegalArgumentException("Shard result does not exist: " + input);
+            }
+        }
+        return files;
+    }
+}
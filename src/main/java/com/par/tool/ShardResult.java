@@ -0,0 +1,256 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What one {@code --shard i/n} invocation found, written as {@code shard-i-of-n.json} so that the {@code merge}
+ * subcommand can combine independent runs without talking to any of them.
+ */
+final class ShardResult {
+    private final String status;
+    private final int shardIndex;
+    private final int shardCount;
+    private final long seed;
+    private final String baseHash;
+    private final int baselineExit;
+    private final Score.ScoreResult baselineScore;
+    private final Score.ScoreResult bestScore;
+    private final int tried;
+    private final String bestDescription;
+    private final String bestSource;
+    private final String bestDiff;
+    private final List<String> detectedFaults;
+    private final Map<String, Integer> rejectedInvalid;
+    private final Map<String, Integer> rejectedEquivalent;
+
+    ShardResult(String status,
+                int shardIndex,
+                int shardCount,
+                long seed,
+                String baseHash,
+                int baselineExit,
+                Score.ScoreResult baselineScore,
+                Score.ScoreResult bestScore,
+                int tried,
+                String bestDescription,
+                String bestSource,
+                String bestDiff,
+                List<String> detectedFaults,
+                Map<String, Integer> rejectedInvalid,
+                Map<String, Integer> rejectedEquivalent) {
+        this.status = status;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.seed = seed;
+        this.baseHash = baseHash;
+        this.baselineExit = baselineExit;
+        this.baselineScore = baselineScore;
+        this.bestScore = bestScore;
+        this.tried = tried;
+        this.bestDescription = bestDescription;
+        this.bestSource = bestSource;
+        this.bestDiff = bestDiff;
+        this.detectedFaults = List.copyOf(detectedFaults);
+        this.rejectedInvalid = new TreeMap<>(rejectedInvalid);
+        this.rejectedEquivalent = new TreeMap<>(rejectedEquivalent);
+    }
+
+    static Path fileName(int shardIndex, int shardCount) {
+        return Path.of("shard-" + shardIndex + "-of-" + shardCount + ".json");
+    }
+
+    /**
+     * Keeps every {@code count}-th candidate starting at the one-based {@code index}. Interleaving rather than cutting
+     * the sequence into blocks gives every shard a similar mix of operators.
+     */
+    static <T> List<T> slice(List<T> candidates, int index, int count) {
+        List<T> slice = new ArrayList<>(candidates.size() / count + 1);
+        for (int position = index - 1; position < candidates.size(); position += count) {
+            slice.add(candidates.get(position));
+        }
+        return slice;
+    }
+
+    String status() {
+        return status;
+    }
+
+    int shardIndex() {
+        return shardIndex;
+    }
+
+    int shardCount() {
+        return shardCount;
+    }
+
+    long seed() {
+        return seed;
+    }
+
+    String baseHash() {
+        return baseHash;
+    }
+
+    int baselineExit() {
+        return baselineExit;
+    }
+
+    Score.ScoreResult baselineScore() {
+        return baselineScore;
+    }
+
+    Score.ScoreResult bestScore() {
+        return bestScore;
+    }
+
+    int tried() {
+        return tried;
+    }
+
+    String bestDescription() {
+        return bestDescription;
+    }
+
+    String bestSource() {
+        return bestSource;
+    }
+
+    String bestDiff() {
+        return bestDiff;
+    }
+
+    List<String> detectedFaults() {
+        return detectedFaults;
+    }
+
+    Map<String, Integer> rejectedInvalid() {
+        return rejectedInvalid;
+    }
+
+    Map<String, Integer> rejectedEquivalent() {
+        return rejectedEquivalent;
+    }
+
+    void write(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"status\": ").append(Json.quote(status)).append(",\n");
+        sb.append("  \"shard\": ").append(shardIndex).append(",\n");
+        sb.append("  \"shards\": ").append(shardCount).append(",\n");
+        // Seeds can exceed the precision of a JSON number, so they travel as text.
+        sb.append("  \"seed\": ").append(Json.quote(Long.toString(seed))).append(",\n");
+        sb.append("  \"base_hash\": ").append(Json.quote(baseHash)).append(",\n");
+        sb.append("  \"baseline_exit\": ").append(baselineExit).append(",\n");
+        sb.append("  \"baseline\": ");
+        appendScore(sb, baselineScore);
+        sb.append(",\n");
+        sb.append("  \"best\": ");
+        appendScore(sb, bestScore);
+        sb.append(",\n");
+        sb.append("  \"tried\": ").append(tried).append(",\n");
+        sb.append("  \"best_description\": ").append(quoteNullable(bestDescription)).append(",\n");
+        sb.append("  \"best_source\": ").append(quoteNullable(bestSource)).append(",\n");
+        sb.append("  \"best_diff\": ").append(quoteNullable(bestDiff)).append(",\n");
+        sb.append("  \"detected_faults\": [");
+        for (int i = 0; i < detectedFaults.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Json.quote(detectedFaults.get(i)));
+        }
+        sb.append("],\n");
+        sb.append("  \"rejected_invalid\": ");
+        appendCounts(sb, rejectedInvalid);
+        sb.append(",\n");
+        sb.append("  \"rejected_equivalent\": ");
+        appendCounts(sb, rejectedEquivalent);
+        sb.append("\n}\n");
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, sb.toString());
+    }
+
+    static ShardResult read(Path file) throws IOException {
+        Map<String, Object> root = Json.parseObject(Files.readString(file));
+        try {
+            List<String> faults = new ArrayList<>();
+            for (Object fault : (List<?>) root.get("detected_faults")) {
+                faults.add((String) fault);
+            }
+            return new ShardResult(
+                    (String) root.get("status"),
+                    intValue(root, "shard"),
+                    intValue(root, "shards"),
+                    Long.parseLong((String) root.get("seed")),
+                    (String) root.get("base_hash"),
+                    intValue(root, "baseline_exit"),
+                    readScore(root.get("baseline")),
+                    readScore(root.get("best")),
+                    intValue(root, "tried"),
+                    (String) root.get("best_description"),
+                    (String) root.get("best_source"),
+                    (String) root.get("best_diff"),
+                    faults,
+                    readCounts(root.get("rejected_invalid")),
+                    readCounts(root.get("rejected_equivalent")));
+        } catch (ClassCastException | NullPointerException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Malformed shard result " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private static void appendScore(StringBuilder sb, Score.ScoreResult score) {
+        sb.append("{\"score\": ").append(score.score())
+                .append(", \"failed\": ").append(score.failed())
+                .append(", \"errors\": ").append(score.errors())
+                .append(", \"passed\": ").append(score.passed())
+                .append(", \"summary\": ").append(Json.quote(score.summary()))
+                .append('}');
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, Integer> counts) {
+        sb.append('{');
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (index++ > 0) {
+                sb.append(", ");
+            }
+            sb.append(Json.quote(entry.getKey())).append(": ").append(entry.getValue());
+        }
+        sb.append('}');
+    }
+
+    private static String quoteNullable(String value) {
+        return value == null ? "null" : Json.quote(value);
+    }
+
+    private static Score.ScoreResult readScore(Object value) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> score = (Map<String, Object>) value;
+        return new Score.ScoreResult(
+                intValue(score, "score"),
+                intValue(score, "failed"),
+                intValue(score, "errors"),
+                intValue(score, "passed"),
+                (String) score.get("summary"));
+    }
+
+    private static Map<String, Integer> readCounts(Object value) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            counts.put((String) entry.getKey(), ((Number) entry.getValue()).intValue());
+        }
+        return counts;
+    }
+
+    private static int intValue(Map<String, Object> map, String key) {
+        return ((Number) map.get(key)).intValue();
+    }
+}
@@ -0,0 +1,220 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of test slots shared by every search of a batch. A slot is a permit plus a copy of the project the
+ * search works on. Permits are handed out first come, first served, and every search asks for one slot at a time, so
+ * concurrent searches take turns instead of the first one crowding out the rest. Copies are made the first time a
+ * project needs another one and are kept for later searches on the same project; slots restore their target after
+ * every run, so a copy is back to the original project whenever it is idle. When the project itself may have changed
+ * since, {@link #refresh(Path)} makes every copy catch up with it before its next lease.
+ */
+final class SharedWorkerPool implements AutoCloseable {
+    private final Semaphore permits;
+    private final int size;
+    private final Path root;
+    private final Map<Path, Workspace> workspaces = new ConcurrentHashMap<>();
+    private final AtomicInteger projects = new AtomicInteger();
+    private final AtomicInteger copies = new AtomicInteger();
+
+    SharedWorkerPool(int size) throws IOException {
+        this.size = size;
+        this.permits = new Semaphore(size, true);
+        this.root = Files.createTempDirectory("apr_batch_");
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Project copies made so far, across all projects.
+     */
+    int copies() {
+        return copies.get();
+    }
+
+    /**
+     * Waits for a permit and a copy of {@code project}, or returns {@code null} after {@code timeoutMillis}.
+     */
+    Lease lease(Path project, long timeoutMillis) throws IOException, InterruptedException {
+        if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        try {
+            Workspace workspace = workspaces.computeIfAbsent(project, this::workspace);
+            int version = workspace.version.get();
+            Copy copy = workspace.idle.poll();
+            if (copy == null) {
+                copy = new Copy(workspace.root.resolve("worker_" + workspace.created.getAndIncrement()).resolve(project.getFileName()),
+                        copies.getAndIncrement());
+                FileUtils.copyRecursive(project, copy.path);
+            } else if (copy.version != version) {
+                FileUtils.syncRecursive(project, copy.path);
+            }
+            copy.version = version;
+            return new Lease(workspace, copy);
+        } catch (IOException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Marks the copies of {@code project} as stale, for example when a new search starts on a project that may have
+     * been edited since the last one. Each copy is brought up to date the next time it is leased.
+     */
+    void refresh(Path project) {
+        Workspace workspace = workspaces.get(project);
+        if (workspace != null) {
+            workspace.version.incrementAndGet();
+        }
+    }
+
+    /**
+     * The slots of one search: each acquisition leases a copy of the search's project and wraps it in a
+     * {@link LocalTestSlot} for the search's target and test command.
+     */
+    SlotPool slots(Config config, Path relativeTarget, String originalSource, TestExecutor executor, Metrics metrics) {
+        return new SlotPool() {
+            @Override
+            public TestSlot acquire(long timeoutMillis) throws InterruptedException {
+                Lease lease;
+                try {
+                    lease = lease(config.getProject(), timeoutMillis);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not copy " + config.getProject(), ex);
+                }
+                if (lease == null) {
+                    return null;
+                }
+                TestExecutor leaseExecutor = TestExecutor.forWorker(executor, lease.environment(config));
+                return new PooledSlot(lease, new LocalTestSlot(lease.copy(), relativeTarget, originalSource,
+                        config.getTestsCommand(), config.getTimeoutSeconds(), null, leaseExecutor, metrics));
+            }
+
+            @Override
+            public void release(TestSlot slot) {
+                ((PooledSlot) slot).lease.close();
+            }
+
+            @Override
+            public int idle() {
+                return permits.availablePermits();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        FileUtils.deleteRecursive(root);
+    }
+
+    private Workspace workspace(Path project) {
+        Path directory = root.resolve(projects.getAndIncrement() + "_" + project.getFileName());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new Workspace(directory);
+    }
+
+    private static final class Workspace {
+        final Path root;
+        final Queue<Copy> idle = new ConcurrentLinkedQueue<>();
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger version = new AtomicInteger();
+
+        Workspace(Path root) {
+            this.root = root;
+        }
+    }
+
+    /**
+     * A copy of a project, its number among all copies of the pool, and the version of the project it was last
+     * brought up to date with.
+     */
+    private static final class Copy {
+        final Path path;
+        final int index;
+        int version;
+
+        Copy(Path path, int index) {
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    /**
+     * One permit and one project copy, both given back on {@link #close()}.
+     */
+    final class Lease implements AutoCloseable {
+        private final Workspace workspace;
+        private final Copy copy;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Workspace workspace, Copy copy) {
+            this.workspace = workspace;
+            this.copy = copy;
+        }
+
+        Path copy() {
+            return copy.path;
+        }
+
+        /**
+         * The worker environment of this copy. Copies are numbered across the whole pool, so the searches sharing it
+         * never hand the same ports or temporary directory to two runs at once.
+         */
+        WorkerEnvironment environment(Config config) {
+            return new WorkerEnvironment(copy.index, WorkerEnvironment.tmpDirFor(copy.path), config.getPortBase(),
+                    config.getPortsPerWorker(), null);
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                workspace.idle.add(copy);
+                permits.release();
+            }
+        }
+    }
+
+    private static final class PooledSlot implements TestSlot {
+        private final Lease lease;
+        private final TestSlot slot;
+
+        PooledSlot(Lease lease, TestSlot slot) {
+            this.lease = lease;
+            this.slot = slot;
+        }
+
+        @Override
+        public TestRunResult run(Patch candidate) throws IOException, InterruptedException {
+            return slot.run(candidate);
+        }
+
+        @Override
+        public TestRunResult run(Patch candidate, Map<String, String> environment) throws IOException, InterruptedException {
+            return slot.run(candidate, environment);
+        }
+
+        @Override
+        public String toString() {
+            return slot.toString();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TestExecutor} that never starts a process: every run sleeps for a latency drawn from a configurable
+ * distribution and returns a scripted pytest-style result. It exists to load-test scheduling, cancellation and
+ * best-candidate tracking at rates no real test suite can reach.
+ *
+ * <p>The specification is a comma-separated list of {@code key=value} pairs, all optional:
+ * <ul>
+ *   <li>{@code latency} &ndash; {@code fixed:MS}, {@code uniform:MIN-MAX}, {@code exp:MEAN} or
+ *       {@code lognormal:MEDIAN:SIGMA}, in (fractional) milliseconds; default {@code fixed:0}</li>
+ *   <li>{@code fix} &ndash; probability that a run passes every test; default {@code 0.001}</li>
+ *   <li>{@code timeout} &ndash; probability that a run hangs until the timeout; default {@code 0}</li>
+ *   <li>{@code error} &ndash; probability that a run fails to start; default {@code 0}</li>
+ *   <li>{@code tests} &ndash; size of the simulated suite; default {@code 20}</li>
+ *   <li>{@code failing} &ndash; failures in the baseline run, {@code 0} for a suite that already passes; default
+ *       {@code 5}</li>
+ * </ul>
+ * The first run an executor serves is the baseline. Every later run draws its outcome independently from a stream
+ * derived from the seed and the run's sequence number, so there is no shared random state to contend on.
+ */
+final class SimulatedTestExecutor implements TestExecutor {
+    private final Latency latency;
+    private final double fixRate;
+    private final double timeoutRate;
+    private final double errorRate;
+    private final int tests;
+    private final int baselineFailures;
+    private final long seed;
+    private final AtomicLong runs = new AtomicLong();
+
+    SimulatedTestExecutor(Latency latency, double fixRate, double timeoutRate, double errorRate, int tests,
+                          int baselineFailures, long seed) {
+        this.latency = latency;
+        this.fixRate = fixRate;
+        this.timeoutRate = timeoutRate;
+        this.errorRate = errorRate;
+        this.tests = tests;
+        this.baselineFailures = baselineFailures;
+        this.seed = seed;
+    }
+
+    static SimulatedTestExecutor parse(String spec, long seed) {
+        Map<String, String> options = new HashMap<>();
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int equals = part.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Invalid --simulate entry (expected key=value): " + part);
+            }
+            options.put(part.substring(0, equals).trim().toLowerCase(Locale.ROOT), part.substring(equals + 1).trim());
+        }
+        for (String key : options.keySet()) {
+            if (!key.matches("latency|fix|timeout|error|tests|failing")) {
+                throw new IllegalArgumentException("Unknown --simulate key: " + key);
+            }
+        }
+        Latency latency = Latency.parse(options.getOrDefault("latency", "fixed:0"));
+        double fix = probability(options.getOrDefault("fix", "0.001"), "fix");
+        double timeout = probability(options.getOrDefault("timeout", "0"), "timeout");
+        double error = probability(options.getOrDefault("error", "0"), "error");
+        if (fix + timeout + error > 1) {
+            throw new IllegalArgumentException("--simulate fix, timeout and error rates must add up to at most 1");
+        }
+        int tests = parseInt(options.getOrDefault("tests", "20"), "tests");
+        int failing = parseInt(options.getOrDefault("failing", "5"), "failing");
+        if (tests <= 0 || failing < 0 || failing > tests) {
+            throw new IllegalArgumentException("--simulate needs 0 <= failing <= tests, received failing=" + failing + " tests=" + tests);
+        }
+        return new SimulatedTestExecutor(latency, fix, timeout, error, tests, failing, seed);
+    }
+
+    private static double probability(String value, String key) {
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number for --simulate " + key + ": " + value);
+        }
+        if (parsed < 0 || parsed > 1) {
+            throw new IllegalArgumentException("--simulate " + key + " must be a probability between 0 and 1, received: " + value);
+        }
+        return parsed;
+    }
+
+    private static int parseInt(String value, String key) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for --simulate " + key + ": " + value);
+        }
+    }
+
+    @Override
+    public TestRunResult run(String command, Path cwd, int timeoutSeconds, Map<String, String> environment)
+            throws IOException, InterruptedException {
+        long run = runs.getAndIncrement();
+        SplittableRandom random = new SplittableRandom(seed ^ (run * 0x9E3779B97F4A7C15L));
+        if (run == 0) {
+            pause(latency.sampleNanos(random));
+            return baselineFailures == 0 ? new TestRunResult(0, tests + " passed in 0.01s\n", "") : failing(baselineFailures);
+        }
+        double roll = random.nextDouble();
+        if (roll < errorRate) {
+            throw new IOException("Simulated launch failure");
+        }
+        if (roll < errorRate + timeoutRate) {
+            pause(Duration.ofSeconds(timeoutSeconds).toNanos());
+            return new TestRunResult(124, "", "\nTIMEOUT");
+        }
+        pause(Math.min(latency.sampleNanos(random), Duration.ofSeconds(timeoutSeconds).toNanos()));
+        if (roll < errorRate + timeoutRate + fixRate) {
+            return new TestRunResult(0, tests + " passed in 0.01s\n", "");
+        }
+        return failing(1 + random.nextInt(tests));
+    }
+
+    /**
+     * A slot that goes straight to this executor without a workspace, so the scheduler can be driven without any
+     * file system traffic.
+     */
+    TestSlot slot(int timeoutSeconds) {
+        return candidate -> run(candidate.description(), null, timeoutSeconds, Map.of());
+    }
+
+    long runs() {
+        return runs.get();
+    }
+
+    private TestRunResult failing(int failed) {
+        return new TestRunResult(1, failed + " failed, " + (tests - failed) + " passed in 0.01s\n", "");
+    }
+
+    private static void pause(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } else if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Per-run latency in nanoseconds.
+     */
+    interface Latency {
+        long sampleNanos(SplittableRandom random);
+
+        static Latency parse(String value) {
+            String[] parts = value.split(":");
+            try {
+                switch (parts[0].toLowerCase(Locale.ROOT)) {
+                    case "fixed": {
+                        long nanos = millisToNanos(Double.parseDouble(parts[1]));
+                        return random -> nanos;
+                    }
+                    case "uniform": {
+                        String[] range = parts[1].split("-");
+                        long min = millisToNanos(Double.parseDouble(range[0]));
+                        long max = millisToNanos(Double.parseDouble(range[1]));
+                        if (max < min) {
+                            throw new IllegalArgumentException("uniform latency needs MIN <= MAX: " + value);
+                        }
+                        return random -> min == max ? min : random.nextLong(min, max + 1);
+                    }
+                    case "exp": {
+                        double mean = millisToNanos(Double.parseDouble(parts[1]));
+                        return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+                    }
+                    case "lognormal": {
+                        double mu = Math.log(millisToNanos(Double.parseDouble(parts[1])));
+                        double sigma = Double.parseDouble(parts[2]);
+                        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown latency distribution (expected fixed, uniform, exp or lognormal): " + value);
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid --simulate latency: " + value);
+            }
+        }
+
+        private static long millisToNanos(double millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Latencies must not be negative, received: " + millis);
+            }
+            return (long) (millis * 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.par.tool;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where a {@link CandidateEvaluator} takes idle test slots from and gives them back to once a run is over.
+ */
+interface SlotPool {
+    /**
+     * Waits up to {@code timeoutMillis} for an idle slot, returning {@code null} if none became available.
+     */
+    TestSlot acquire(long timeoutMillis) throws InterruptedException;
+
+    void release(TestSlot slot);
+
+    /**
+     * Slots idle right now, for progress reporting.
+     */
+    int idle();
+
+    /**
+     * A pool that owns a fixed set of slots, or one that grows as remote workers add theirs to {@code queue}.
+     */
+    static SlotPool of(BlockingQueue<TestSlot> queue) {
+        return new SlotPool() {
+            @Override
+            public TestSlot acquire(long timeoutMillis) throws InterruptedException {
+                return queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void release(TestSlot slot) {
+                queue.add(slot);
+            }
+
+            @Override
+            public int idle() {
+                return queue.size();
+            }
+        };
+    }
+}
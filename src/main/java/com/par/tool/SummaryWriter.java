@@ -1,21 +1,32 @@
 package com.par.tool;
 
 import java.util.List;
+import java.util.Map;
 
 public final class SummaryWriter {
     private SummaryWriter() {}
 
+    /**
+     * Renders {@code summary.json}. {@code stopReason} says what ended the search and is left out when {@code null},
+     * as it is for runs that never searched.
+     */
     public static String createSummary(
             String status,
+            String stopReason,
             int baselineExit,
             Score.ScoreResult baselineScore,
             Score.ScoreResult bestScore,
             int tried,
             String bestDescription,
-            List<String> detectedFaults) {
+            List<String> detectedFaults,
+            Map<String, Integer> rejectedInvalid,
+            Map<String, Integer> rejectedEquivalent) {
         StringBuilder sb = new StringBuilder();
         sb.append("{\n");
         sb.append("  \"status\": \"").append(escape(status)).append("\",\n");
+        if (stopReason != null) {
+            sb.append("  \"stop_reason\": \"").append(escape(stopReason)).append("\",\n");
+        }
         sb.append("  \"baseline\": {\n");
         sb.append("    \"exit\": ").append(baselineExit).append(",\n");
         sb.append("    \"failed\": ").append(baselineScore.failed()).append(",\n");
@@ -36,11 +47,41 @@ public final class SummaryWriter {
             }
             sb.append('\"').append(escape(detectedFaults.get(i))).append('\"');
         }
-        sb.append("]\n");
+        sb.append("],\n");
+        sb.append("  \"rejected_invalid\": ");
+        appendCounts(sb, rejectedInvalid);
+        sb.append(",\n");
+        sb.append("  \"rejected_equivalent\": ");
+        appendCounts(sb, rejectedEquivalent);
+        sb.append("\n");
         sb.append("}\n");
         return sb.toString();
     }
 
+    /**
+     * Classifies a finished search by comparing the best candidate with the baseline.
+     */
+    public static String status(Score.ScoreResult best, Score.ScoreResult baseline) {
+        if (best.score() == 0) {
+            return "fixed";
+        } else if (best.score() < baseline.score()) {
+            return "improved";
+        }
+        return "no_fix";
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, Integer> counts) {
+        sb.append('{');
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (index++ > 0) {
+                sb.append(", ");
+            }
+            sb.append('\"').append(escape(entry.getKey())).append("\": ").append(entry.getValue());
+        }
+        sb.append('}');
+    }
+
     private static String escape(String value) {
         return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
     }
@@ -0,0 +1,195 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a seeded, self-contained Python project with one injected fault: a target module of roughly the requested
+ * size, a pristine reference copy of it under {@code tests/}, and a plain {@code run_tests.py} that compares the two.
+ * Nothing beyond {@code python3} is needed to run the tests, so benchmarks work offline without pytest.
+ */
+final class SyntheticProject {
+    static final String MODULE = "module.py";
+    static final String TESTS_COMMAND = "python3 run_tests.py";
+
+    private static final int FILLER_LINES = 10;
+
+    /**
+     * Faults the built-in operators and fix patterns can repair, each with the buggy and the reference definition of
+     * {@code target_fault} and the calls its tests make.
+     */
+    enum Fault {
+        ARITHMETIC(
+                List.of("def target_fault(a, b):", "    return a - b"),
+                List.of("def target_fault(a, b):", "    return a + b"),
+                List.of("target_fault(2, 3)", "target_fault(-4, 9)")),
+        COMPARE(
+                List.of("def target_fault(x, limit):", "    return x < limit"),
+                List.of("def target_fault(x, limit):", "    return x <= limit"),
+                List.of("target_fault(3, 3)", "target_fault(2, 3)", "target_fault(4, 3)")),
+        NONE_EQUALITY(
+                List.of("def target_fault(token):", "    if token == None:", "        return True", "    return False"),
+                List.of("def target_fault(token):", "    if token is None:", "        return True", "    return False"),
+                List.of("target_fault(None)", "target_fault('ready')", "target_fault(Explosive())")),
+        NULL_GUARD(
+                List.of("def target_fault(items):", "    items.append(0)", "    return items"),
+                List.of("def target_fault(items):", "    if items is not None:", "        items.append(0)", "    return items"),
+                List.of("target_fault([1, 2])", "target_fault(None)"));
+
+        private final List<String> buggy;
+        private final List<String> fixed;
+        private final List<String> calls;
+
+        Fault(List<String> buggy, List<String> fixed, List<String> calls) {
+            this.buggy = buggy;
+            this.fixed = fixed;
+            this.calls = calls;
+        }
+
+        static Fault parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown fault type (expected arithmetic, compare, none_equality or null_guard): " + value);
+            }
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Path root;
+
+    private SyntheticProject(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Generates the project in {@code root}. The fault sits in the middle of {@code lines} lines of filler functions;
+     * {@code testCount} tests (at least one per fault call) each sleep {@code testMillis} before checking.
+     */
+    static SyntheticProject generate(Path root, long seed, int lines, int testCount, int testMillis, Fault fault) throws IOException {
+        Random random = new Random(seed);
+        List<List<String>> functions = new ArrayList<>();
+        int fillerLines = Math.max(0, lines - fault.buggy.size() - 1);
+        for (int index = 0; fillerLines > 0 && functions.size() * FILLER_LINES < fillerLines; index++) {
+            functions.add(filler(index, random));
+        }
+        int faultAt = functions.size() / 2;
+
+        Files.createDirectories(root.resolve("tests"));
+        Files.writeString(root.resolve(MODULE), module(functions, faultAt, fault.buggy));
+        Files.writeString(root.resolve("tests").resolve("_reference.py"), module(functions, faultAt, fault.fixed));
+
+        List<String> cases = new ArrayList<>(fault.calls);
+        for (int i = 0; cases.size() < testCount && !functions.isEmpty(); i++) {
+            int function = i % functions.size();
+            cases.add("f" + function + "(" + values(random) + ", " + random.nextInt(10) + ")");
+        }
+        Files.writeString(root.resolve("run_tests.py"), runner(cases, testMillis));
+        return new SyntheticProject(root);
+    }
+
+    Path root() {
+        return root;
+    }
+
+    Path target() {
+        return root.resolve(MODULE);
+    }
+
+    private static List<String> filler(int index, Random random) {
+        return List.of(
+                "def f" + index + "(values, k):",
+                "    total = " + random.nextInt(5),
+                "    for v in values:",
+                "        if v > " + random.nextInt(10) + ":",
+                "            total = total + v * " + (2 + random.nextInt(3)),
+                "        else:",
+                "            total = total - " + (1 + random.nextInt(4)),
+                "    if total < 0:",
+                "        return -total",
+                "    return total % " + (7 + random.nextInt(5)) + " + k");
+    }
+
+    private static String values(Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        int size = 1 + random.nextInt(5);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(random.nextInt(20) - 5);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String module(List<List<String>> functions, int faultAt, List<String> fault) {
+        List<String> out = new ArrayList<>();
+        out.add("\"\"\"Synthetic module generated for repair benchmarks.\"\"\"");
+        out.add("");
+        for (int i = 0; i <= functions.size(); i++) {
+            if (i == faultAt) {
+                out.addAll(fault);
+                out.add("");
+            }
+            if (i < functions.size()) {
+                out.addAll(functions.get(i));
+                out.add("");
+            }
+        }
+        return String.join("\n", out);
+    }
+
+    private static String runner(List<String> cases, int testMillis) {
+        List<String> out = new ArrayList<>();
+        out.add("import sys");
+        out.add("import time");
+        out.add("sys.dont_write_bytecode = True");
+        out.add("sys.path.insert(0, 'tests')");
+        out.add("");
+        out.add("");
+        out.add("class Explosive:");
+        out.add("    def __eq__(self, other):");
+        out.add("        raise RuntimeError('comparison should not be invoked')");
+        out.add("");
+        out.add("");
+        out.add("try:");
+        out.add("    import module");
+        out.add("except Exception as ex:");
+        out.add("    print(f'1 error: {ex!r}')");
+        out.add("    sys.exit(2)");
+        out.add("import _reference as reference");
+        out.add("");
+        out.add("CASES = [");
+        for (String call : cases) {
+            String quoted = call.replace("\\", "\\\\").replace("'", "\\'");
+            out.add("    ('" + quoted + "', lambda: module." + call + ", lambda: reference." + call + "),");
+        }
+        out.add("]");
+        out.add("DELAY = " + (testMillis / 1000.0));
+        out.add("");
+        out.add("failed = 0");
+        out.add("passed = 0");
+        out.add("for name, actual, expected in CASES:");
+        out.add("    if DELAY:");
+        out.add("        time.sleep(DELAY)");
+        out.add("    try:");
+        out.add("        ok = actual() == expected()");
+        out.add("    except Exception:");
+        out.add("        ok = False");
+        out.add("    if ok:");
+        out.add("        passed += 1");
+        out.add("    else:");
+        out.add("        failed += 1");
+        out.add("print(f'{failed} failed, {passed} passed')");
+        out.add("sys.exit(1 if failed else 0)");
+        return String.join("\n", out) + "\n";
+    }
+}
@@ -0,0 +1,36 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Runs the test command in a workspace. The search only ever reaches the tests through an executor, so real processes
+ * can be swapped for a {@link SimulatedTestExecutor} when exercising the scheduler itself.
+ */
+interface TestExecutor {
+    /** Spawns the command through the platform shell. */
+    TestExecutor PROCESS = ProcessUtils::runCommand;
+
+    /**
+     * Runs through {@code executor}, or, when that spawns real processes, through the shell in {@code worker}'s
+     * environment. Simulated runs start no processes, so there is nothing to isolate.
+     */
+    static TestExecutor forWorker(TestExecutor executor, WorkerEnvironment worker) {
+        if (executor != PROCESS || worker == null) {
+            return executor;
+        }
+        return (command, cwd, timeoutSeconds, environment) -> ProcessUtils.runCommand(command, cwd, timeoutSeconds, environment, worker);
+    }
+
+    /**
+     * Runs {@code command} in {@code cwd} with {@code environment} added to the inherited one. Exceeding the timeout
+     * yields exit code 124 rather than an exception.
+     */
+    TestRunResult run(String command, Path cwd, int timeoutSeconds, Map<String, String> environment)
+            throws IOException, InterruptedException;
+
+    default TestRunResult run(String command, Path cwd, int timeoutSeconds) throws IOException, InterruptedException {
+        return run(command, cwd, timeoutSeconds, Map.of());
+    }
+}
@@ -0,0 +1,43 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * One place a candidate's tests can run: an isolated local worker copy or a slot on a remote worker agent. A slot runs
+ * a single candidate at a time and is handed back to the evaluator's idle pool once the run is over.
+ */
+interface TestSlot {
+    /**
+     * Runs the test command against the candidate and leaves the workspace as it found it.
+     *
+     * @throws Lost if the slot disappeared mid-run and the candidate should be retried elsewhere
+     */
+    TestRunResult run(Patch candidate) throws IOException, InterruptedException;
+
+    /**
+     * Runs the candidate with {@code environment} added to the test command's environment. Slots that cannot pass
+     * it on run the candidate as is.
+     */
+    default TestRunResult run(Patch candidate, Map<String, String> environment) throws IOException, InterruptedException {
+        return run(candidate);
+    }
+
+    /**
+     * Whether the slot can still accept work. Dead slots are dropped when they come up in the idle pool.
+     */
+    default boolean alive() {
+        return true;
+    }
+
+    /**
+     * Signals that a candidate was not evaluated because its slot went away, not because the candidate failed.
+     */
+    final class Lost extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        Lost(String message) {
+            super(message);
+        }
+    }
+}
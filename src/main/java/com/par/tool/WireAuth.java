@@ -0,0 +1,72 @@
+package com.par.tool;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Shared-secret proofs for the coordinator/worker handshake. Each side sends a fresh nonce and the other answers it with
+ * an HMAC over its role and that nonce, so the secret itself never crosses the wire and an answer recorded from one
+ * connection is useless on the next.
+ */
+final class WireAuth {
+    /**
+     * Environment variable read when {@code --secret} is not given, which keeps the secret out of process listings.
+     */
+    static final String SECRET_ENV = "PAR_SECRET";
+    static final int MIN_SECRET_LENGTH = 16;
+    static final String COORDINATOR = "coordinator";
+    static final String WORKER = "worker";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private WireAuth() {
+    }
+
+    static String newSecret() {
+        return random(24);
+    }
+
+    static String nonce() {
+        return random(16);
+    }
+
+    /**
+     * The value {@code role} sends to prove it knows {@code secret} when challenged with {@code nonce}.
+     */
+    static String proof(String secret, String role, String nonce) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal((role + "\n" + nonce).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 is unavailable", ex);
+        }
+    }
+
+    static boolean verify(String secret, String role, String nonce, String proof) {
+        return MessageDigest.isEqual(proof(secret, role, nonce).getBytes(StandardCharsets.US_ASCII),
+                proof.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The secret from {@code --secret}, else from {@value #SECRET_ENV}, else {@code null}.
+     */
+    static String configuredSecret(String option) {
+        String secret = option != null ? option : System.getenv(SECRET_ENV);
+        if (secret != null && (secret.equals("true") || secret.length() < MIN_SECRET_LENGTH)) {
+            throw new IllegalArgumentException("--secret (or " + SECRET_ENV + ") must be at least " + MIN_SECRET_LENGTH + " characters");
+        }
+        return secret;
+    }
+
+    private static String random(int bytes) {
+        byte[] value = new byte[bytes];
+        RANDOM.nextBytes(value);
+        return HexFormat.of().formatHex(value);
+    }
+}
@@ -0,0 +1,108 @@
+package com.par.tool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One end of a coordinator/worker connection. Outgoing frames are queued and written by a dedicated thread: callers
+ * are often evaluation threads that get interrupted on cancellation, and interrupting a virtual thread blocked in
+ * socket I/O closes the socket for everyone else.
+ */
+final class WireChannel implements Closeable {
+    private static final WireMessage CLOSE = new WireMessage("");
+    private static final long FLUSH_ON_CLOSE_MILLIS = 1000;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final BlockingQueue<WireMessage> outbox = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    WireChannel(Socket socket, String name) throws IOException {
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.writer = Thread.ofVirtual().name("par-wire-" + name).start(this::drainOutbox);
+    }
+
+    /**
+     * Queues a frame; never blocks. Frames sent after the channel closed are dropped.
+     */
+    void send(WireMessage message) {
+        if (!closed) {
+            outbox.add(message);
+        }
+    }
+
+    /**
+     * Reads the next frame, or {@code null} once the peer hung up. Only one thread may read.
+     */
+    WireMessage read() throws IOException {
+        return WireMessage.readFrom(in);
+    }
+
+    /**
+     * Reads fail with a {@link java.net.SocketTimeoutException} if nothing arrives for this long.
+     */
+    void setReadTimeout(int millis) throws IOException {
+        socket.setSoTimeout(millis);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Flushes frames queued so far, giving up after a second, then closes the socket.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outbox.add(CLOSE);
+        try {
+            writer.join(FLUSH_ON_CLOSE_MILLIS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        closeSocket();
+    }
+
+    private void drainOutbox() {
+        try {
+            while (true) {
+                WireMessage message = outbox.poll(FLUSH_ON_CLOSE_MILLIS, TimeUnit.MILLISECONDS);
+                if (message == CLOSE) {
+                    return;
+                }
+                if (message != null) {
+                    message.writeTo(out);
+                } else if (socket.isClosed()) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ex) {
+            closed = true;
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+            // Nothing left to do with a connection that failed to close.
+        }
+    }
+}
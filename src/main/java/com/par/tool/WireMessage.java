@@ -0,0 +1,123 @@
+package com.par.tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A frame of the coordinator/worker protocol: a header line {@code "<command> <field count>"} followed by every
+ * field as {@code "<byte length>\n<bytes>"}. Fields are arbitrary UTF-8 text, so sources and test output need no
+ * escaping.
+ */
+final class WireMessage {
+    // Guards against a peer that is not speaking the protocol.
+    private static final int MAX_LINE = 1024;
+
+    private final String command;
+    private final List<String> fields;
+
+    WireMessage(String command, String... fields) {
+        this(command, List.of(fields));
+    }
+
+    WireMessage(String command, List<String> fields) {
+        this.command = command;
+        this.fields = List.copyOf(fields);
+    }
+
+    String command() {
+        return command;
+    }
+
+    String field(int index) {
+        if (index >= fields.size()) {
+            throw new IllegalArgumentException(command + " is missing field " + index);
+        }
+        return fields.get(index);
+    }
+
+    int intField(int index) {
+        try {
+            return Integer.parseInt(field(index));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(command + " field " + index + " is not an integer: " + field(index));
+        }
+    }
+
+    /**
+     * Writes the frame and flushes. Callers sharing a stream across threads must serialise calls themselves.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write((command + " " + fields.size() + "\n").getBytes(StandardCharsets.US_ASCII));
+        for (String field : fields) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            frame.write((bytes.length + "\n").getBytes(StandardCharsets.US_ASCII));
+            frame.write(bytes);
+        }
+        frame.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Reads the next frame, or returns {@code null} if the peer closed the connection between frames.
+     */
+    static WireMessage readFrom(InputStream in) throws IOException {
+        String header = readLine(in, true);
+        if (header == null) {
+            return null;
+        }
+        int space = header.indexOf(' ');
+        if (space <= 0) {
+            throw new IOException("Malformed frame header: " + header);
+        }
+        int count = parseLength(header.substring(space + 1));
+        List<String> fields = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = parseLength(readLine(in, false));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("Connection closed inside a frame");
+            }
+            fields.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return new WireMessage(header.substring(0, space), fields);
+    }
+
+    private static String readLine(InputStream in, boolean eofAllowed) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int next = in.read();
+            if (next == -1) {
+                if (eofAllowed && line.length() == 0) {
+                    return null;
+                }
+                throw new EOFException("Connection closed inside a frame");
+            }
+            if (next == '\n') {
+                return line.toString();
+            }
+            if (line.length() >= MAX_LINE) {
+                throw new IOException("Frame header too long");
+            }
+            line.append((char) next);
+        }
+    }
+
+    private static int parseLength(String value) throws IOException {
+        try {
+            int length = Integer.parseInt(value.trim());
+            if (length < 0) {
+                throw new IOException("Negative length in frame: " + value);
+            }
+            return length;
+        } catch (NumberFormatException ex) {
+            throw new IOException("Malformed length in frame: " + value);
+        }
+    }
+}
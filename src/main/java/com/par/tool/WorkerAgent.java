@@ -0,0 +1,290 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code worker} subcommand: connects to a {@link Coordinator}, keeps its own isolated copies of the project and
+ * runs the tests for every candidate delta it is sent until the coordinator says goodbye or goes away.
+ */
+public final class WorkerAgent {
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+    // Until SETUP names the heartbeat interval, the coordinator gets this long to answer each handshake step.
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 30_000;
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final String host;
+    private final int port;
+    private final String secret;
+    private final Path project;
+    private final int slots;
+    private final String name;
+    private final int connectTimeoutSeconds;
+    private final int portBase;
+    private final int portsPerWorker;
+
+    WorkerAgent(String host, int port, String secret, Path project, int slots, String name, int connectTimeoutSeconds) {
+        this(host, port, secret, project, slots, name, connectTimeoutSeconds, 20000, 10);
+    }
+
+    WorkerAgent(String host, int port, String secret, Path project, int slots, String name, int connectTimeoutSeconds,
+                int portBase, int portsPerWorker) {
+        this.host = host;
+        this.port = port;
+        this.secret = secret;
+        this.project = project;
+        this.slots = slots;
+        this.name = name;
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        this.portBase = portBase;
+        this.portsPerWorker = portsPerWorker;
+    }
+
+    public static WorkerAgent parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String key = arg.substring(2);
+                String value = "true";
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    value = args[++i];
+                }
+                options.put(key, value);
+            }
+        }
+
+        String coordinator = options.get("coordinator");
+        if (coordinator == null) {
+            throw new IllegalArgumentException("Missing required --coordinator <host:port> argument");
+        }
+        int colon = coordinator.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Invalid value for --coordinator (expected host:port): " + coordinator);
+        }
+        int port = parseInt(coordinator.substring(colon + 1), "coordinator");
+        String secret = WireAuth.configuredSecret(options.get("secret"));
+        if (secret == null) {
+            throw new IllegalArgumentException("Missing --secret <value> (or " + WireAuth.SECRET_ENV
+                    + "); the coordinator prints one when it starts");
+        }
+
+        String projectValue = options.get("project");
+        if (projectValue == null) {
+            throw new IllegalArgumentException("Missing required --project <dir> argument");
+        }
+        Path project = Path.of(projectValue).toAbsolutePath().normalize();
+        if (!Files.isDirectory(project)) {
+            throw new IllegalArgumentException("Project directory does not exist: " + project);
+        }
+
+        int detectedProcessors = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int slots = parseInt(options.getOrDefault("threads", String.valueOf(detectedProcessors)), "threads");
+        if (slots <= 0) {
+            throw new IllegalArgumentException("--threads must be a positive integer, received: " + slots);
+        }
+        int connectTimeout = parseInt(options.getOrDefault("connect-timeout", "60"), "connect-timeout");
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("--connect-timeout must not be negative, received: " + connectTimeout);
+        }
+        int portBase = parseInt(options.getOrDefault("port-base", "20000"), "port-base");
+        int portsPerWorker = parseInt(options.getOrDefault("ports-per-worker", "10"), "ports-per-worker");
+        if (portsPerWorker <= 0 || portBase < 1024 || portBase + (long) slots * portsPerWorker - 1 > 65535) {
+            throw new IllegalArgumentException("--threads " + slots + " workers with --ports-per-worker " + portsPerWorker
+                    + " do not fit between --port-base " + portBase + " and port 65535");
+        }
+        String name = options.getOrDefault("name", defaultName());
+        return new WorkerAgent(coordinator.substring(0, colon), port, secret, project, slots, name, connectTimeout, portBase, portsPerWorker);
+    }
+
+    private static int parseInt(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for --" + option + ": " + value);
+        }
+    }
+
+    private static String defaultName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException ex) {
+            return "worker";
+        }
+    }
+
+    /**
+     * Serves one coordinator session. Worker copies are prepared before connecting so the handshake stays short.
+     */
+    public void run() throws IOException, InterruptedException {
+        Path tempRoot = Files.createTempDirectory("apr_worker_");
+        Path projectName = project.getFileName();
+        List<Path> copies = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            Path copy = tempRoot.resolve("worker_" + i).resolve(projectName);
+            FileUtils.copyRecursive(project, copy);
+            copies.add(copy);
+        }
+        try (WireChannel channel = new WireChannel(connect(), "worker");
+             ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("par-worker-", 0).factory())) {
+            serve(channel, copies, executor);
+        } finally {
+            FileUtils.deleteRecursive(tempRoot);
+        }
+    }
+
+    private Socket connect() throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + connectTimeoutSeconds * 1_000_000_000L;
+        while (true) {
+            try {
+                Socket socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+                return socket;
+            } catch (ConnectException ex) {
+                // Agents may be started before the coordinator is listening.
+                if (System.nanoTime() >= deadline) {
+                    throw ex;
+                }
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void serve(WireChannel channel, List<Path> copies, ExecutorService executor) throws IOException {
+        channel.setReadTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        String nonce = WireAuth.nonce();
+        channel.send(new WireMessage("HELLO", name, String.valueOf(slots), nonce));
+        WireMessage challenge = channel.read();
+        if (challenge == null || !challenge.command().equals("CHALLENGE")
+                || !WireAuth.verify(secret, WireAuth.COORDINATOR, nonce, challenge.field(0))) {
+            throw new IOException("Coordinator did not prove it knows the shared secret");
+        }
+        channel.send(new WireMessage("AUTH", WireAuth.proof(secret, WireAuth.WORKER, challenge.field(1))));
+        WireMessage setup = channel.read();
+        if (setup == null || !setup.command().equals("SETUP")) {
+            throw new IOException("Coordinator did not send SETUP; check that both sides use the same secret");
+        }
+        Path relativeTarget = Path.of(setup.field(0)).normalize();
+        if (relativeTarget.isAbsolute() || relativeTarget.startsWith("..")) {
+            throw new IOException("Refusing target outside the project: " + relativeTarget);
+        }
+        String baseHash = setup.field(1);
+        String testsCommand = setup.field(2);
+        int timeoutSeconds = setup.intField(3);
+        int heartbeatSeconds = setup.intField(4);
+        // The coordinator pings as often as we do, so this much silence means it is gone without having hung up.
+        channel.setReadTimeout(heartbeatSeconds * MISSED_HEARTBEATS * 1000);
+
+        Path localTarget = project.resolve(relativeTarget);
+        String base = Files.exists(localTarget) ? Files.readString(localTarget) : null;
+        if (base == null || !PatchDelta.hash(base).equals(baseHash)) {
+            channel.send(new WireMessage("NEED"));
+            WireMessage source = channel.read();
+            if (source == null || !source.command().equals("SOURCE") || !PatchDelta.hash(source.field(0)).equals(baseHash)) {
+                throw new IOException("Coordinator sent no usable base snapshot");
+            }
+            base = source.field(0);
+        }
+        BlockingQueue<LocalTestSlot> idle = new ArrayBlockingQueue<>(copies.size());
+        List<WorkerEnvironment> environments = WorkerEnvironment.forCopies(copies, portBase, portsPerWorker, List.of());
+        for (int i = 0; i < copies.size(); i++) {
+            Path copy = copies.get(i);
+            Path target = copy.resolve(relativeTarget);
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, base);
+            idle.add(new LocalTestSlot(copy, relativeTarget, base, testsCommand, timeoutSeconds, null,
+                    TestExecutor.forWorker(TestExecutor.PROCESS, environments.get(i)), new Metrics()));
+        }
+        channel.send(new WireMessage("READY"));
+        System.out.printf("Worker %s serving %s:%d with %d slots.%n", name, host, port, slots);
+
+        Thread heartbeat = Thread.ofVirtual().name("par-worker-heartbeat").start(() -> {
+            try {
+                while (!channel.isClosed()) {
+                    channel.send(new WireMessage("PING"));
+                    Thread.sleep(heartbeatSeconds * 1000L);
+                }
+            } catch (InterruptedException ignore) {
+                // Session over.
+            }
+        });
+        Map<String, Future<?>> running = new ConcurrentHashMap<>();
+        String baseSource = base;
+        try {
+            while (true) {
+                WireMessage message;
+                try {
+                    message = channel.read();
+                } catch (SocketTimeoutException ex) {
+                    throw new IOException("Coordinator missed " + MISSED_HEARTBEATS + " heartbeats; giving up", ex);
+                }
+                if (message == null || message.command().equals("BYE")) {
+                    break;
+                }
+                switch (message.command()) {
+                    case "PING":
+                        break;
+                    case "TASK":
+                        String id = message.field(0);
+                        String delta = message.field(1);
+                        running.put(id, executor.submit(() -> runTask(channel, idle, baseSource, id, delta, running)));
+                        break;
+                    case "CANCEL":
+                        Future<?> task = running.get(message.field(0));
+                        if (task != null) {
+                            task.cancel(true);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unexpected " + message.command() + " from coordinator");
+                }
+            }
+        } finally {
+            heartbeat.interrupt();
+            for (Future<?> task : running.values()) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private static void runTask(WireChannel channel,
+                                BlockingQueue<LocalTestSlot> idle,
+                                String base,
+                                String id,
+                                String delta,
+                                Map<String, Future<?>> running) {
+        LocalTestSlot slot = null;
+        try {
+            slot = idle.take();
+            long started = System.nanoTime();
+            TestRunResult result = slot.run(new Patch(PatchDelta.apply(base, delta), "task " + id));
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            channel.send(new WireMessage("RESULT", id, String.valueOf(result.exitCode()), String.valueOf(millis),
+                    result.stdout(), result.stderr()));
+        } catch (InterruptedException ie) {
+            channel.send(new WireMessage("CANCELLED", id));
+        } catch (IOException | RuntimeException ex) {
+            channel.send(new WireMessage("ERROR", id, String.valueOf(ex.getMessage())));
+        } finally {
+            if (slot != null) {
+                idle.add(slot);
+            }
+            running.remove(id);
+        }
+    }
+}
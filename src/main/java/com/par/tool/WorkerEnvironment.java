@@ -0,0 +1,111 @@
+package com.par.tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What keeps the test runs of one worker from interfering with another's: a worker number, a private temporary
+ * directory that is emptied before every run, a reserved range of TCP ports and, optionally, a set of CPUs. The test
+ * command sees them as environment variables ({@code PAR_WORKER_ID}, {@code TMPDIR}, {@code PAR_PORT_BASE},
+ * {@code PAR_PORT_COUNT}) and as the placeholders {@code {worker_id}}, {@code {tmpdir}}, {@code {port}} and
+ * {@code {port_count}} in {@code --tests}. Worker {@code i} owns ports {@code portBase + i * portsPerWorker} up to,
+ * but not including, {@code portBase + (i + 1) * portsPerWorker}.
+ */
+final class WorkerEnvironment {
+    static final String WORKER_ID = "PAR_WORKER_ID";
+    static final String PORT_BASE = "PAR_PORT_BASE";
+    static final String PORT_COUNT = "PAR_PORT_COUNT";
+
+    private final int id;
+    private final Path tmpDir;
+    private final int firstPort;
+    private final int portCount;
+    private final String cpus;
+
+    /**
+     * @param cpus CPU list to pin the worker's processes to, in {@code taskset} syntax, or {@code null}
+     */
+    WorkerEnvironment(int id, Path tmpDir, int portBase, int portsPerWorker, String cpus) {
+        long lastPort = portBase + (long) (id + 1) * portsPerWorker - 1;
+        if (lastPort > 65535) {
+            throw new IllegalArgumentException("Worker " + id + " would need ports up to " + lastPort
+                    + "; lower --port-base or --ports-per-worker");
+        }
+        this.id = id;
+        this.tmpDir = tmpDir;
+        this.firstPort = portBase + id * portsPerWorker;
+        this.portCount = portsPerWorker;
+        this.cpus = cpus;
+    }
+
+    /**
+     * One environment per worker copy, with the temporary directory next to the copy rather than inside it.
+     */
+    static List<WorkerEnvironment> forCopies(List<Path> copies, int portBase, int portsPerWorker, List<String> cpuSets) {
+        List<WorkerEnvironment> environments = new ArrayList<>(copies.size());
+        for (int i = 0; i < copies.size(); i++) {
+            environments.add(new WorkerEnvironment(i, tmpDirFor(copies.get(i)), portBase, portsPerWorker,
+                    i < cpuSets.size() ? cpuSets.get(i) : null));
+        }
+        return environments;
+    }
+
+    static Path tmpDirFor(Path copy) {
+        return copy.toAbsolutePath().getParent().resolve("tmp");
+    }
+
+    int id() {
+        return id;
+    }
+
+    Path tmpDir() {
+        return tmpDir;
+    }
+
+    int firstPort() {
+        return firstPort;
+    }
+
+    int portCount() {
+        return portCount;
+    }
+
+    String cpus() {
+        return cpus;
+    }
+
+    /**
+     * Substitutes the placeholders in a test command.
+     */
+    String expand(String command) {
+        return command.replace("{worker_id}", Integer.toString(id))
+                .replace("{tmpdir}", tmpDir.toString())
+                .replace("{port}", Integer.toString(firstPort))
+                .replace("{port_count}", Integer.toString(portCount));
+    }
+
+    Map<String, String> variables() {
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put(WORKER_ID, Integer.toString(id));
+        variables.put("TMPDIR", tmpDir.toString());
+        // Windows and some runtimes look at these instead of TMPDIR.
+        variables.put("TMP", tmpDir.toString());
+        variables.put("TEMP", tmpDir.toString());
+        variables.put(PORT_BASE, Integer.toString(firstPort));
+        variables.put(PORT_COUNT, Integer.toString(portCount));
+        return variables;
+    }
+
+    /**
+     * Empties the temporary directory, so files a previous candidate left behind cannot change the next result.
+     */
+    void resetTmpDir() throws IOException {
+        FileUtils.deleteRecursive(tmpDir);
+        Files.createDirectories(tmpDir);
+    }
+}
@@ -5,6 +5,7 @@ import com.par.tool.MutationOperator;
 import com.par.tool.Patch;
 import com.par.tool.PatternMatcher;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public final class PatternBasedOperator implements MutationOperator {
@@ -16,7 +17,12 @@ public final class PatternBasedOperator implements MutationOperator {
 
     @Override
     public List<Patch> generate(String originalSource, MutationContext context, int limit) {
-        return matcher.createFixes(originalSource, context, limit);
+        List<Patch> patches = new ArrayList<>();
+        for (Patch fix : matcher.createFixes(originalSource, context, limit)) {
+            // Credit each fix to its pattern as well as to this operator when scheduling by past rewards.
+            patches.add(fix.withOrigin(name() + "/" + fix.origin()));
+        }
+        return patches;
     }
 
     @Override
@@ -0,0 +1,161 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdaptiveConcurrencyTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong();
+    private double load = 0.5;
+    private double memory = 0.8;
+
+    @Test
+    void growsByOneWhileLatencyHoldsAndBacksOffWhenItClimbs() throws Exception {
+        AdaptiveConcurrency limiter = limiter(8, SECOND);
+        assertEquals(4, limiter.limit());
+
+        for (int expected = 5; expected <= 8; expected++) {
+            runWindow(limiter, SECOND);
+            assertEquals(expected, limiter.limit());
+        }
+        runWindow(limiter, SECOND);
+        assertEquals(8, limiter.limit());
+
+        runWindow(limiter, 2 * SECOND);
+        assertEquals(6, limiter.limit());
+        runWindow(limiter, 2 * SECOND);
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void systemPressureStopsGrowthAndCutsTheLimit() throws Exception {
+        AdaptiveConcurrency limiter = limiter(8, SECOND);
+
+        load = 1.5;
+        runWindow(limiter, SECOND);
+        assertEquals(4, limiter.limit());
+
+        load = 0.5;
+        memory = 0.05;
+        runWindow(limiter, SECOND);
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void slowRunsAtALimitOfOneBecomeTheNewUncontendedLatency() throws Exception {
+        AdaptiveConcurrency limiter = limiter(2, SECOND);
+        assertEquals(1, limiter.limit());
+
+        runWindow(limiter, 3 * SECOND);
+        assertEquals(2, limiter.limit());
+        runWindow(limiter, 3 * SECOND);
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void withoutAnUncontendedLatencyTheFastestAttemptOfTheFirstWindowIsUsed() throws Exception {
+        AdaptiveConcurrency limiter = limiter(8, 0);
+        List<TestSlot> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            held.add(limiter.acquire(0));
+        }
+        // Attempts of 1, 2, 3 and 4 seconds: the median would tolerate up to 4.5 seconds, the fastest only 1.5.
+        for (TestSlot slot : held) {
+            clock.addAndGet(SECOND);
+            limiter.release(slot);
+        }
+        assertEquals(5, limiter.limit());
+
+        runWindow(limiter, 2 * SECOND);
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void acquireWaitsForRoomUnderTheLimit() throws Exception {
+        AdaptiveConcurrency limiter = limiter(2, SECOND);
+
+        TestSlot held = limiter.acquire(100);
+        assertNotNull(held);
+        assertNull(limiter.acquire(50));
+        assertEquals(0, limiter.idle());
+        limiter.release(held);
+        assertNotNull(limiter.acquire(50));
+    }
+
+    @Test
+    void anExhaustedInnerPoolGivesNoSlotAndKeepsNoPlace() throws Exception {
+        LinkedBlockingQueue<TestSlot> inner = new LinkedBlockingQueue<>();
+        AdaptiveConcurrency limiter = new AdaptiveConcurrency(SlotPool.of(inner), 2, SECOND, probe(), new Metrics(), clock::get);
+        assertEquals(1, limiter.limit());
+
+        assertNull(limiter.acquire(20));
+        assertNull(limiter.acquire(20));
+
+        // With a limit of one, a place leaked by the failed attempts would keep this slot from being handed out.
+        inner.add(candidate -> new TestRunResult(0, "", ""));
+        assertNotNull(limiter.acquire(50));
+    }
+
+    @Test
+    void memoryAvailableComesFromMeminfo() throws Exception {
+        Path meminfo = tempDir.resolve("meminfo");
+        Files.writeString(meminfo, "MemTotal:        8000000 kB\nMemFree:          100000 kB\nMemAvailable:    2000000 kB\n");
+
+        assertEquals(0.25, AdaptiveConcurrency.memoryAvailable(meminfo), 1e-9);
+        assertEquals(1.0, AdaptiveConcurrency.memoryAvailable(tempDir.resolve("missing")), 1e-9);
+    }
+
+    private AdaptiveConcurrency limiter(int maxLimit, long uncontendedNanos) {
+        LinkedBlockingQueue<TestSlot> slots = new LinkedBlockingQueue<>();
+        for (int i = 0; i < maxLimit; i++) {
+            String name = "slot " + i;
+            slots.add(candidate -> new TestRunResult(0, name, ""));
+        }
+        return new AdaptiveConcurrency(SlotPool.of(slots), maxLimit, uncontendedNanos, probe(), new Metrics(), clock::get);
+    }
+
+    private AdaptiveConcurrency.Probe probe() {
+        return new AdaptiveConcurrency.Probe() {
+            @Override
+            public double loadPerCore() {
+                return load;
+            }
+
+            @Override
+            public double memoryAvailable() {
+                return memory;
+            }
+        };
+    }
+
+    /**
+     * Fills the limit, lets every attempt take {@code latencyNanos} and repeats until the limit moves.
+     */
+    private void runWindow(AdaptiveConcurrency limiter, long latencyNanos) throws InterruptedException {
+        int before = limiter.limit();
+        for (int round = 0; round < AdaptiveConcurrency.MIN_WINDOW && limiter.limit() == before; round++) {
+            List<TestSlot> held = new ArrayList<>();
+            TestSlot slot;
+            while ((slot = limiter.acquire(0)) != null) {
+                held.add(slot);
+            }
+            clock.addAndGet(latencyNanos);
+            held.forEach(limiter::release);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void manifestEntriesBecomeConfigsWithPathsRelativeToTheManifest() throws Exception {
+        Path repo = Files.createDirectories(tempDir.resolve("repo"));
+        Files.writeString(repo.resolve("calc.py"), "def add(a, b):\n    return a - b\n");
+        Path manifest = tempDir.resolve("jobs.jsonl");
+        Files.writeString(manifest, """
+                # one job per line
+                {"name": "add", "project": "repo", "target": "repo/calc.py", "tests": "python3 run_tests.py", "budget": 40}
+
+                {"project": "repo", "target": "repo/calc.py", "tests": "python3 run_tests.py", "seed": 7}
+                """);
+
+        List<BatchRunner.Job> jobs = BatchRunner.readManifest(manifest, tempDir.resolve("out"), 3);
+
+        assertEquals(2, jobs.size());
+        assertEquals("add", jobs.get(0).name());
+        assertEquals("job-2", jobs.get(1).name());
+        assertEquals(repo.toAbsolutePath().normalize(), jobs.get(0).config().getProject());
+        assertEquals(40, jobs.get(0).config().getBudget());
+        assertEquals(7, jobs.get(1).config().getSeed());
+        assertEquals(tempDir.resolve("out").resolve("add"), jobs.get(0).results());
+        assertEquals(tempDir.resolve("out").resolve("add").resolve("events.jsonl"), jobs.get(0).config().getEventsFile());
+    }
+
+    @Test
+    void invalidManifestsAreRejectedBeforeAnyJobRuns() throws Exception {
+        Path repo = Files.createDirectories(tempDir.resolve("repo"));
+        Files.writeString(repo.resolve("calc.py"), "x = 1\n");
+        String job = "{\"name\": \"a\", \"project\": \"repo\", \"target\": \"repo/calc.py\", \"tests\": \"true\"";
+        Path duplicate = tempDir.resolve("duplicate.json");
+        Files.writeString(duplicate, "[" + job + "}, " + job + "}]");
+        Path listen = tempDir.resolve("listen.jsonl");
+        Files.writeString(listen, job + ", \"listen\": 9000}\n");
+        Path missingTests = tempDir.resolve("missing.jsonl");
+        Files.writeString(missingTests, "{\"project\": \"repo\", \"target\": \"repo/calc.py\"}\n");
+
+        Path out = tempDir.resolve("out");
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> BatchRunner.readManifest(duplicate, out, 1))
+                .getMessage().contains("Duplicate job name"));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> BatchRunner.readManifest(listen, out, 1))
+                .getMessage().contains("--listen"));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> BatchRunner.readManifest(missingTests, out, 1))
+                .getMessage().startsWith("Job job-1: "));
+    }
+
+    @Test
+    void jobsShareThePoolAndReuseProjectCopies() throws Exception {
+        SyntheticProject compare = SyntheticProject.generate(tempDir.resolve("compare"), 3, 60, 6, 0, SyntheticProject.Fault.COMPARE);
+        Path manifest = tempDir.resolve("jobs.jsonl");
+        Files.writeString(manifest, job("compare", compare) + job("compare-again", compare));
+        Path out = tempDir.resolve("out");
+
+        BatchRunner.parse(new String[]{"--manifest", manifest.toString(), "--threads", "2", "--out", out.toString()}).run();
+
+        Map<String, Object> batch = Json.parseObject(Files.readString(out.resolve("batch.json")));
+        List<?> jobs = (List<?>) batch.get("jobs");
+        assertEquals(2, jobs.size());
+        for (Object entry : jobs) {
+            Map<?, ?> job = (Map<?, ?>) entry;
+            assertEquals("fixed", job.get("status"), job.toString());
+            assertNull(job.get("error"));
+            assertNotNull(Files.readString(out.resolve(job.get("name").toString()).resolve("best_patch.diff")));
+        }
+        // Two slots never need more than two copies of a project, however many jobs share it.
+        assertTrue(((Double) batch.get("project_copies")) <= 2, batch.toString());
+        assertTrue(Files.readString(out.resolve("compare").resolve("events.jsonl")).contains("{\"type\": \"fix\""));
+    }
+
+    private static String job(String name, SyntheticProject project) {
+        return "{\"name\": " + Json.quote(name)
+                + ", \"project\": " + Json.quote(project.root().toString())
+                + ", \"target\": " + Json.quote(project.target().toString())
+                + ", \"tests\": " + Json.quote(SyntheticProject.TESTS_COMMAND)
+                + ", \"budget\": 200}\n";
+    }
+
+    @Test
+    void pooledSlotsPassPerRunVariablesToTheTestCommand() throws Exception {
+        Path repo = Files.createDirectories(tempDir.resolve("repo"));
+        Files.writeString(repo.resolve("calc.py"), "def add(a, b):\n    return a - b\n");
+        Config config = Config.parse(new String[]{"--project", repo.toString(), "--target", repo.resolve("calc.py").toString(),
+                "--tests", "unused"});
+        Map<String, String> seen = new ConcurrentHashMap<>();
+        TestExecutor executor = (command, cwd, timeoutSeconds, environment) -> {
+            seen.putAll(environment);
+            return new TestRunResult(0, "", "");
+        };
+
+        try (SharedWorkerPool pool = new SharedWorkerPool(1)) {
+            SlotPool slots = pool.slots(config, Path.of("calc.py"), "def add(a, b):\n    return a - b\n", executor, new Metrics());
+            TestSlot slot = slots.acquire(1000);
+            slot.run(new Patch("def add(a, b):\n    return a + b\n", "plus", "ArithmeticOperator"),
+                    Map.of(ParallelismPlanner.SUITE_WORKERS, "2"));
+            slots.release(slot);
+        }
+
+        assertEquals("2", seen.get(ParallelismPlanner.SUITE_WORKERS));
+    }
+}
@@ -0,0 +1,114 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandidateGeneratorTest {
+    @Test
+    void outputDoesNotDependOnWhichOperatorFinishesFirst() {
+        List<MutationOperator> operators = List.of(
+                new FixedOperator("slow", 40, 50),
+                new FixedOperator("fast", 40, 0),
+                new FixedOperator("short", 2, 10));
+        CandidateGenerator generator = new CandidateGenerator(operators);
+
+        List<String> first = sources(generator.generateCandidates("x = 0", context(7), 30));
+        List<String> second = sources(generator.generateCandidates("x = 0", context(7), 30));
+
+        assertEquals(first, second);
+        assertEquals(30, first.size());
+    }
+
+    @Test
+    void budgetLeftByExhaustedOperatorsGoesToTheOthers() {
+        List<MutationOperator> operators = List.of(
+                new FixedOperator("short", 1, 0),
+                new FixedOperator("long", 100, 0));
+        List<Patch> patches = new CandidateGenerator(operators).generateCandidates("x = 0", context(1), 20);
+
+        long fromLong = patches.stream().filter(patch -> patch.origin().equals("long")).count();
+        assertTrue(fromLong >= 19, "expected the long operator to absorb the leftover budget, got " + fromLong);
+    }
+
+    @Test
+    void everyOperatorIsCalledOnceForTheWholeLimit() {
+        FixedOperator exhausted = new FixedOperator("short", 1, 0);
+        FixedOperator plentiful = new FixedOperator("long", 100, 0);
+        new CandidateGenerator(List.of(exhausted, plentiful)).generateCandidates("x = 0", context(1), 20);
+
+        assertEquals(1, exhausted.calls.get());
+        assertEquals(1, plentiful.calls.get());
+        assertEquals(20, plentiful.lastLimit);
+    }
+
+    @Test
+    void interruptedGenerationReturnsPromptly() throws Exception {
+        FixedOperator slow = new FixedOperator("slow", 100, 30_000);
+        FixedOperator fast = new FixedOperator("fast", 100, 0);
+        CandidateGenerator generator = new CandidateGenerator(List.of(slow, fast));
+        Thread caller = Thread.ofVirtual().start(() -> generator.generateCandidates("x = 0", context(3), 50));
+        while (slow.calls.get() == 0) {
+            Thread.sleep(10);
+        }
+
+        caller.interrupt();
+        caller.join(5_000);
+
+        assertFalse(caller.isAlive(), "generation ignored the interrupt");
+    }
+
+    private static MutationContext context(long seed) {
+        return new MutationContext(new Random(seed), new FaultDatabase(), new FixDatabase());
+    }
+
+    private static List<String> sources(List<Patch> patches) {
+        List<String> sources = new ArrayList<>();
+        for (Patch patch : patches) {
+            sources.add(patch.origin() + ":" + patch.source());
+        }
+        return sources;
+    }
+
+    private static final class FixedOperator implements MutationOperator {
+        private final String name;
+        private final int available;
+        private final long delayMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int lastLimit;
+
+        FixedOperator(String name, int available, long delayMillis) {
+            this.name = name;
+            this.available = available;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public List<Patch> generate(String originalSource, MutationContext context, int limit) {
+            calls.incrementAndGet();
+            lastLimit = limit;
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            List<Patch> patches = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, available); i++) {
+                patches.add(new Patch("x = " + name + context.random().nextInt(1000) + "_" + i, name + " #" + i));
+            }
+            return patches;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
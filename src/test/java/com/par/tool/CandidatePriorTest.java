@@ -0,0 +1,69 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandidatePriorTest {
+    private static final String SOURCE = "def f(x):\n    if x == None:\n        return 0\n    y = x + 1\n    return y\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void uniformPriorIsTheSeededShuffle() {
+        List<Patch> candidates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            candidates.add(new Patch("x = " + i, "set " + i, "ArithmeticOperator"));
+        }
+        List<Patch> shuffled = new ArrayList<>(candidates);
+        Collections.shuffle(shuffled, new Random(7));
+
+        assertEquals(shuffled, CandidatePrior.order(candidates, CandidatePrior.UNIFORM, new Random(7)));
+        assertEquals(CandidatePrior.order(candidates, candidate -> 1, new Random(7)), shuffled);
+    }
+
+    @Test
+    void fixesForDetectedFaultsComeFirstThenSmallAndSuspiciousEdits() {
+        Patch noneFix = new Patch(SOURCE.replace("x == None", "x is None"), "none identity", "PatternBasedOperator/NoneEquality");
+        Patch boundsFix = new Patch(SOURCE.replace("    y = x + 1\n", "    if x:\n        y = x + 1\n"), "bounds guard", "PatternBasedOperator/BoundsGuard");
+        Patch arithmetic = new Patch(SOURCE.replace("x + 1", "x - 1"), "arithmetic", "ArithmeticOperator");
+        Patch deletion = new Patch(SOURCE.replace("    return y\n", ""), "delete return", "StatementDeleteOperator");
+        FaultDatabase faults = new FaultDatabase();
+        CandidatePrior prior = new FixLikelihoodPrior(SOURCE, faults.fixesFor(List.of("LooseNoneEquality")),
+                Map.of(5, 1.0), new OperatorBandit());
+
+        List<Patch> ordered = CandidatePrior.order(List.of(arithmetic, boundsFix, deletion, noneFix), prior, new Random(3));
+
+        assertEquals(List.of(noneFix, deletion, arithmetic, boundsFix), ordered);
+    }
+
+    @Test
+    void historicalRewardsLiftAnOperator() {
+        Patch arithmetic = new Patch(SOURCE.replace("x + 1", "x - 1"), "arithmetic", "ArithmeticOperator");
+        Patch compare = new Patch(SOURCE.replace("x == None", "x != None"), "compare", "CompareOperator");
+        OperatorBandit bandit = new OperatorBandit();
+        bandit.record("CompareOperator", 1.0);
+        bandit.record("ArithmeticOperator", 0.0);
+        CandidatePrior prior = new FixLikelihoodPrior(SOURCE, List.of(), Map.of(), bandit);
+
+        assertEquals(List.of(compare, arithmetic), CandidatePrior.order(List.of(arithmetic, compare), prior, new Random(1)));
+    }
+
+    @Test
+    void suspiciousnessIsScaledByTheHighestScore() throws Exception {
+        Path report = tempDir.resolve("suspiciousness.json");
+        Files.writeString(report, "{\"2\": 0.8, \"4\": 0.2, \"5\": 0}");
+
+        assertEquals(Map.of(2, 1.0, 4, 0.25, 5, 0.0), FixLikelihoodPrior.readSuspiciousness(report));
+    }
+}
@@ -0,0 +1,64 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandidateValidatorTest {
+    @Test
+    void dropsCandidatesThatDoNotCompileAndCountsThemPerOperator() {
+        CandidateValidator validator = new CandidateValidator(null);
+        List<Patch> candidates = List.of(
+                new Patch("def f(x):\n    return x + 1\n", "ok", "ArithmeticOperator"),
+                new Patch("def f(x):\nreturn x\n", "dedent", "StatementDeleteOperator"),
+                new Patch("if x:\n", "empty body", "StatementDeleteOperator"),
+                new Patch("return 1\n", "outside function", "StatementSwapOperator"));
+
+        List<Patch> valid = validator.filter(candidates);
+
+        assertEquals(1, valid.size());
+        assertEquals("ok", valid.get(0).description());
+        assertEquals(Map.of("StatementDeleteOperator", 2, "StatementSwapOperator", 1), validator.rejectedByOrigin());
+        assertEquals(3, validator.rejectedTotal());
+    }
+
+    @Test
+    void skipsSemanticDuplicatesAndNoOpMutants() {
+        String original = "def f(x):\n    return x + 1\n";
+        CandidateValidator validator = new CandidateValidator(original);
+        List<Patch> candidates = List.of(
+                new Patch("def f(x):\n    return x - 1\n", "minus", "ArithmeticOperator"),
+                new Patch("def f(x):\n    return (x - 1)  # reformatted\n", "minus again", "PatternBasedOperator/NoneEquality"),
+                new Patch("def f(x):\n    return x + 1\n    x = 2\n", "dead code", "SmallIntTweakerOperator"),
+                new Patch("def f(x):\n\n    return x + 1\n", "blank line", "StatementDuplicateOperator"));
+
+        List<Patch> valid = validator.filter(candidates);
+
+        assertEquals(1, valid.size());
+        assertEquals("minus", valid.get(0).description());
+        assertEquals(3, validator.equivalentTotal());
+        assertEquals(2, validator.noOps());
+    }
+
+    @Test
+    void unreachableYieldsAndAwaitsStillChangeTheFunction() {
+        String original = "def f(x):\n    return x\n";
+        CandidateValidator validator = new CandidateValidator(original);
+        List<Patch> candidates = List.of(
+                new Patch("def f(x):\n    return x\n    x = 2\n", "dead code", "StatementDuplicateOperator"),
+                new Patch("def f(x):\n    return x\n    yield x\n", "generator", "StatementDuplicateOperator"),
+                new Patch("def f(x):\n    return x\n    yield from x\n", "delegating generator", "StatementDuplicateOperator"),
+                new Patch("async def f(x):\n    return x\n", "coroutine", "StatementDuplicateOperator"),
+                new Patch("async def f(x):\n    return x\n    await x\n", "dead await", "StatementDuplicateOperator"),
+                new Patch("async def f(x):\n    return\n    yield x\n", "async generator", "StatementDuplicateOperator"));
+
+        List<Patch> valid = validator.filter(candidates);
+
+        assertEquals(List.of("generator", "delegating generator", "coroutine", "dead await", "async generator"),
+                valid.stream().map(Patch::description).toList());
+        assertEquals(1, validator.noOps());
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -34,6 +35,97 @@ class ConfigTest {
         assertTrue(ex.getMessage().contains("--timeout"));
     }
 
+    @Test
+    void parseRejectsNonPositiveTimeBudgetAndPlateau() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException timeBudget = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--time-budget", "0"}));
+        IllegalArgumentException plateau = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--plateau", "-1"}));
+
+        assertTrue(timeBudget.getMessage().contains("--time-budget"));
+        assertTrue(plateau.getMessage().contains("--plateau"));
+    }
+
+    @Test
+    void parseRejectsUnknownSearchMode() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--search", "annealing"}));
+
+        assertTrue(ex.getMessage().contains("--search"));
+    }
+
+    @Test
+    void parseRejectsUnknownPrior() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--prior", "oracle"}));
+
+        assertTrue(ex.getMessage().contains("--prior"));
+    }
+
+    @Test
+    void parseRejectsPortRangesPastTheLastPort() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--threads", "8",
+                        "--port-base", "65000", "--ports-per-worker", "100"}));
+
+        assertTrue(ex.getMessage().contains("--ports-per-worker"));
+    }
+
+    @Test
+    void suiteWorkersNeedToKnowWhereTheFlagGoes() throws Exception {
+        Path target = createTargetFile();
+
+        Config config = Config.parse(new String[]{"--target", target.toString(), "--tests", "pytest -q", "--threads", "8",
+                "--suite-workers", "auto", "--suite-flag", "-n {n}"});
+        assertEquals("pytest -q {suite_flag}", config.getTestsCommand());
+        assertEquals(0, config.getSuiteWorkers());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "pytest -q && echo ok", "--suite-workers", "auto"}));
+        assertTrue(ex.getMessage().contains("{suite_flag}"));
+    }
+
+    @Test
+    void parseRejectsZeroSuiteWorkersAndAdaptiveConcurrency() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException zero = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "pytest -q {suite_flag}", "--suite-workers", "0"}));
+        assertTrue(zero.getMessage().contains("--suite-workers"));
+
+        IllegalArgumentException adaptive = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "pytest -q {suite_flag}", "--suite-workers", "2", "--adaptive"}));
+        assertTrue(adaptive.getMessage().contains("--suite-workers"));
+    }
+
+    @Test
+    void parseRejectsShardOutsideRange() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--shard", "4/3"}));
+
+        assertTrue(ex.getMessage().contains("--shard"));
+    }
+
+    @Test
+    void parseRejectsEliteCoveringWholePopulation() throws Exception {
+        Path target = createTargetFile();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                Config.parse(new String[]{"--target", target.toString(), "--tests", "echo ok", "--population", "4", "--elite", "4"}));
+
+        assertTrue(ex.getMessage().contains("--elite"));
+    }
+
     private Path createTargetFile() throws IOException {
         Path target = tempDir.resolve("module.py");
         Files.writeString(target, "print('ok')\n");
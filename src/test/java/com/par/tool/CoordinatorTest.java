@@ -0,0 +1,207 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class CoordinatorTest {
+    private static final String BUGGY = "def add(a, b):\n    return a - b\n";
+    private static final String FIXED = "def add(a, b):\n    return a + b\n";
+    private static final String SECRET = "correct horse battery staple";
+    private static final String SLOW = "import time\ntime.sleep(30)\n" + BUGGY;
+
+    @TempDir
+    Path tempDir;
+
+    private Path project;
+    private Config config;
+    private Coordinator coordinator;
+    private final List<Thread> agents = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        project = tempDir.resolve("project");
+        Files.createDirectories(project);
+        Files.writeString(project.resolve("calc.py"), BUGGY);
+        Files.writeString(project.resolve("check.py"), "import sys, calc\nsys.exit(0 if calc.add(2, 3) == 5 else 1)\n");
+        config = Config.parse(new String[]{
+                "--project", project.toString(),
+                "--target", project.resolve("calc.py").toString(),
+                "--tests", "python3 check.py",
+                "--budget", "20",
+                "--heartbeat", "1"
+        });
+        coordinator = new Coordinator(InetAddress.getLoopbackAddress(), 0, SECRET, Path.of("calc.py"), BUGGY,
+                config.getTestsCommand(), 30, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        coordinator.close();
+        for (Thread agent : agents) {
+            agent.join(5000);
+        }
+    }
+
+    @Test
+    void agentsOnLocalhostFindTheFix() throws Exception {
+        startAgent("a", project);
+        // This agent's checkout is stale, so it has to fetch the base snapshot during the handshake.
+        Path stale = tempDir.resolve("stale");
+        Files.createDirectories(stale);
+        Files.copy(project.resolve("check.py"), stale.resolve("check.py"));
+        Files.writeString(stale.resolve("calc.py"), "# outdated\n");
+        startAgent("b", stale);
+        startAgent("c", project);
+        assertTrue(coordinator.awaitWorkers(10));
+
+        SearchState state = new SearchState(Score.evaluate(new TestRunResult(1, "", "")));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config, coordinator.idleSlots(), state, patched -> "");
+        List<Evaluation> evaluations = evaluator.evaluateAll(List.of(
+                new Patch("def add(a, b):\n    return a * b\n", "times"),
+                new Patch(BUGGY.replace("a - b", "b - a"), "swapped"),
+                new Patch(FIXED, "plus")));
+
+        assertTrue(state.foundFix());
+        assertEquals(FIXED, state.bestSource());
+        assertTrue(evaluations.stream().anyMatch(evaluation -> evaluation.run().exitCode() == 0));
+    }
+
+    @Test
+    void workLostWithAnAgentIsReassigned() throws Exception {
+        CompletableFuture<Void> fakeGotTask = new CompletableFuture<>();
+        Thread fake = Thread.ofVirtual().start(() -> {
+            try (Socket socket = new Socket("localhost", coordinator.port())) {
+                OutputStream out = socket.getOutputStream();
+                BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+                new WireMessage("HELLO", "fake", "1", "nonce").writeTo(out);
+                WireMessage challenge = WireMessage.readFrom(in);
+                new WireMessage("AUTH", WireAuth.proof(SECRET, WireAuth.WORKER, challenge.field(1))).writeTo(out);
+                WireMessage.readFrom(in);
+                new WireMessage("READY").writeTo(out);
+                WireMessage task = WireMessage.readFrom(in);
+                assertEquals("TASK", task.command());
+                fakeGotTask.complete(null);
+                // Hang up without answering.
+            } catch (Exception ex) {
+                fakeGotTask.completeExceptionally(ex);
+            }
+        });
+        agents.add(fake);
+        assertTrue(coordinator.awaitWorkers(10));
+
+        SearchState state = new SearchState(Score.evaluate(new TestRunResult(1, "", "")));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config, coordinator.idleSlots(), state, patched -> "");
+        CompletableFuture<List<Evaluation>> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return evaluator.evaluateAll(List.of(new Patch(FIXED, "plus")));
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        fakeGotTask.get(10, TimeUnit.SECONDS);
+        startAgent("real", project);
+
+        List<Evaluation> evaluations = result.get(30, TimeUnit.SECONDS);
+        assertEquals(1, evaluations.size());
+        assertEquals(0, evaluations.get(0).run().exitCode());
+        assertEquals(1, evaluations.get(0).attempt());
+    }
+
+    @Test
+    void firstFixCancelsRunsOnOtherAgents() throws Exception {
+        startAgent("a", project);
+        startAgent("b", project);
+        while (coordinator.connectedWorkers() < 2) {
+            Thread.sleep(50);
+        }
+
+        SearchState state = new SearchState(Score.evaluate(new TestRunResult(1, "", "")));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config, coordinator.idleSlots(), state, patched -> "");
+        long started = System.nanoTime();
+        List<Evaluation> evaluations = evaluator.evaluateAll(List.of(new Patch(SLOW, "slow"), new Patch(FIXED, "plus")));
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started);
+
+        assertTrue(seconds < 20, "slow run was not cancelled, took " + seconds + "s");
+        assertEquals(1, evaluations.size());
+        assertEquals("plus", evaluations.get(0).patch().description());
+    }
+
+    @Test
+    void agentsWithoutTheSecretAreRejected() throws Exception {
+        WorkerAgent agent = new WorkerAgent("localhost", coordinator.port(), "not the shared secret", project, 1, "intruder", 10);
+
+        assertThrows(IOException.class, agent::run);
+        assertEquals(0, coordinator.connectedWorkers());
+        assertEquals(0, coordinator.idleSlots().size());
+    }
+
+    @Test
+    void agentGivesUpOnACoordinatorThatGoesSilent() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread fake = Thread.ofVirtual().start(() -> {
+                try (Socket socket = silent.accept()) {
+                    OutputStream out = socket.getOutputStream();
+                    BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+                    WireMessage hello = WireMessage.readFrom(in);
+                    new WireMessage("CHALLENGE", WireAuth.proof(SECRET, WireAuth.COORDINATOR, hello.field(2)), "nonce").writeTo(out);
+                    WireMessage.readFrom(in);
+                    new WireMessage("SETUP", "calc.py", PatchDelta.hash(BUGGY), "python3 check.py", "30", "1").writeTo(out);
+                    WireMessage.readFrom(in);
+                    // Stay connected but never send another frame, like a coordinator whose host froze.
+                    Thread.sleep(30_000);
+                } catch (Exception ignore) {
+                    // Interrupted at the end of the test.
+                }
+            });
+            WorkerAgent agent = new WorkerAgent("localhost", silent.getLocalPort(), SECRET, project, 1, "orphan", 10);
+            long started = System.nanoTime();
+
+            IOException error = assertThrows(IOException.class, agent::run);
+
+            assertTrue(error.getMessage().contains("heartbeats"), error.getMessage());
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 15);
+            fake.interrupt();
+        }
+    }
+
+    @Test
+    void deltasRoundTripAgainstTheBase() {
+        String base = "a\nb\nc\n";
+        for (String candidate : List.of("a\nc\n", "a\nb\nc\nd", "", "x\nb\ny\n", base)) {
+            assertEquals(candidate, PatchDelta.apply(base, PatchDelta.encode(base, candidate)));
+        }
+        assertEquals("", PatchDelta.encode(base, base));
+    }
+
+    private void startAgent(String name, Path checkout) {
+        WorkerAgent agent = new WorkerAgent("localhost", coordinator.port(), SECRET, checkout, 1, name, 10);
+        agents.add(Thread.ofVirtual().start(() -> {
+            try {
+                agent.run();
+            } catch (Exception ex) {
+                // The coordinator closing mid-read ends the session.
+            }
+        }));
+    }
+}
@@ -0,0 +1,108 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrossoverOperatorTest {
+    private static final String ORIGINAL = String.join("\n",
+            "def demo(a, b):",
+            "    total = a - b",
+            "    if total > 0:",
+            "        return total",
+            "    return 0");
+
+    @Test
+    void mergesEditsEvenWhenOneParentShiftsLines() {
+        Patch inserted = new Patch(String.join("\n",
+                "def demo(a, b):",
+                "    print(a)",
+                "    total = a - b",
+                "    if total > 0:",
+                "        return total",
+                "    return 0"), "insert");
+        Patch changed = new Patch(ORIGINAL.replace("return 0", "return -1"), "change");
+
+        Patch child = CrossoverOperator.cross(ORIGINAL, inserted, changed);
+
+        assertNotNull(child);
+        assertEquals(String.join("\n",
+                "def demo(a, b):",
+                "    print(a)",
+                "    total = a - b",
+                "    if total > 0:",
+                "        return total",
+                "    return -1"), child.source());
+    }
+
+    @Test
+    void rejectsOverlappingEdits() {
+        Patch plus = new Patch(ORIGINAL.replace("a - b", "a + b"), "plus");
+        Patch times = new Patch(ORIGINAL.replace("a - b", "a * b"), "times");
+
+        assertNull(CrossoverOperator.cross(ORIGINAL, plus, times));
+    }
+
+    @Test
+    void rejectsChildThatRepeatsAParent() {
+        Patch single = new Patch(ORIGINAL.replace("a - b", "a + b"), "single");
+        Patch both = new Patch(ORIGINAL.replace("a - b", "a + b").replace("return 0", "return -1"), "both");
+
+        assertNull(CrossoverOperator.cross(ORIGINAL, single, both));
+    }
+
+    @Test
+    void samplingIsBoundedByLimit() {
+        List<Patch> seeds = List.of(
+                new Patch(ORIGINAL.replace("a - b", "a + b"), "one"),
+                new Patch(ORIGINAL.replace("> 0", ">= 0"), "two"),
+                new Patch(ORIGINAL.replace("return 0", "return 1"), "three"));
+
+        List<Patch> children = CrossoverOperator.apply(ORIGINAL, seeds, 2, new Random(7));
+
+        assertEquals(2, children.size());
+        assertTrue(children.stream().allMatch(p -> p.description().startsWith("Crossover of")));
+    }
+
+    @Test
+    void lineDiffRoundTripsRandomEdits() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            String[] original = randomLines(random, random.nextInt(30));
+            String[] revised = randomLines(random, random.nextInt(30));
+            List<LineDiff.Edit> edits = LineDiff.diff(original, revised);
+
+            assertArrayEquals(revised, LineDiff.apply(original, edits));
+            int changed = 0;
+            for (LineDiff.Edit edit : edits) {
+                changed += (edit.end() - edit.start()) + edit.lines().size();
+            }
+            assertEquals(original.length + revised.length - 2 * lcs(original, revised), changed);
+        }
+    }
+
+    private static String[] randomLines(Random random, int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = "line" + random.nextInt(5);
+        }
+        return lines;
+    }
+
+    private static int lcs(String[] a, String[] b) {
+        int[][] table = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                table[i][j] = a[i].equals(b[j]) ? table[i + 1][j + 1] + 1 : Math.max(table[i + 1][j], table[i][j + 1]);
+            }
+        }
+        return table[0][0];
+    }
+}
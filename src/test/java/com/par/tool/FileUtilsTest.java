@@ -0,0 +1,97 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FileUtilsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void aSingleInsertionProducesOneHunkWithContext() {
+        StringBuilder original = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            original.append("line ").append(i).append('\n');
+        }
+        String mutated = original.toString().replace("line 10\n", "line 10\nline 10\n");
+
+        String diff = FileUtils.computeDiff(original.toString(), mutated, Path.of("a/m.py"), Path.of("b/m.py"));
+
+        assertEquals("--- a/m.py\n+++ b/m.py\n"
+                + "@@ -8,6 +8,7 @@\n line 8\n line 9\n line 10\n+line 10\n line 11\n line 12\n line 13\n", diff);
+    }
+
+    @Test
+    void hunksUseUnifiedRangesAndMarkAMissingFinalNewline() {
+        String diff = FileUtils.computeDiff("a\nb\nc", "x\na\nb\nc\n", Path.of("a/m.py"), Path.of("b/m.py"));
+
+        assertEquals("--- a/m.py\n+++ b/m.py\n"
+                + "@@ -1,3 +1,4 @@\n+x\n a\n b\n-c\n\\ No newline at end of file\n+c\n", diff);
+        assertEquals("--- a/m.py\n+++ b/m.py\n@@ -0,0 +1,1 @@\n+x\n",
+                FileUtils.computeDiff("", "x\n", Path.of("a/m.py"), Path.of("b/m.py")));
+    }
+
+    @Test
+    void patchReproducesTheRevisedFile() throws Exception {
+        assumeTrue(ProcessUtils.runCommand("patch --version", tempDir, 30).exitCode() == 0, "patch is not installed");
+        Random random = new Random(5);
+        for (int round = 0; round < 30; round++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                lines.add("value_" + random.nextInt(15) + " = " + i);
+            }
+            String original = String.join("\n", lines) + "\n";
+            for (int edit = 0; edit < 1 + random.nextInt(6); edit++) {
+                int at = random.nextInt(lines.size());
+                switch (random.nextInt(3)) {
+                    case 0 -> lines.add(at, "inserted_" + edit);
+                    case 1 -> lines.remove(at);
+                    default -> lines.set(at, lines.get(at) + " + 1");
+                }
+            }
+            String revised = String.join("\n", lines) + (random.nextBoolean() ? "\n" : "");
+            Path target = tempDir.resolve("module.py");
+            Files.writeString(target, original);
+            Files.writeString(tempDir.resolve("fix.diff"),
+                    FileUtils.computeDiff(original, revised, Path.of("a/module.py"), Path.of("b/module.py")));
+
+            TestRunResult applied = ProcessUtils.runCommand("patch -p1 --quiet < fix.diff", tempDir, 30);
+
+            assertEquals(0, applied.exitCode(), applied.stdout() + applied.stderr());
+            assertEquals(revised, Files.readString(target), "round " + round);
+            assertTrue(Files.notExists(tempDir.resolve("module.py.rej")));
+        }
+    }
+
+    @Test
+    void syncCopiesChangesAndDeletesWhatTheSourceNoLongerHas() throws Exception {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source.resolve("pkg").resolve("old"));
+        Files.writeString(source.resolve("pkg").resolve("module.py"), "x = 1\n");
+        Files.writeString(source.resolve("pkg").resolve("old").resolve("gone.py"), "y = 2\n");
+        Files.writeString(source.resolve("same.py"), "z = 3\n");
+        Path copy = tempDir.resolve("copy");
+        FileUtils.copyRecursive(source, copy);
+
+        Files.writeString(source.resolve("pkg").resolve("module.py"), "x = 10\n");
+        FileUtils.deleteRecursive(source.resolve("pkg").resolve("old"));
+        Files.writeString(source.resolve("new.py"), "w = 4\n");
+        FileUtils.syncRecursive(source, copy);
+
+        assertEquals("x = 10\n", Files.readString(copy.resolve("pkg").resolve("module.py")));
+        assertEquals("w = 4\n", Files.readString(copy.resolve("new.py")));
+        assertEquals("z = 3\n", Files.readString(copy.resolve("same.py")));
+        assertFalse(Files.exists(copy.resolve("pkg").resolve("old")));
+    }
+}
@@ -0,0 +1,188 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class GeneticSearchTest {
+    // Mutants only ever assign 1..3 to one of these, so every candidate differs from the original in whole lines.
+    private static final List<String> GOOD = List.of("g0", "g1", "g2", "g3", "g4");
+    private static final List<String> BAD = List.of("b0", "b1", "b2", "b3", "b4");
+    private static final String ORIGINAL = "g0 = 0\ng1 = 0\ng2 = 0\ng3 = 0\ng4 = 0\nb0 = 0\nb1 = 0\nb2 = 0\nb3 = 0\nb4 = 0\n";
+
+    @TempDir
+    Path tempDir;
+
+    private PrintStream console;
+
+    @BeforeEach
+    void silenceProgress() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreProgress() {
+        System.setOut(console);
+    }
+
+    @Test
+    void elitesSurviveEveryGeneration() throws Exception {
+        GeneticSearch search = search(config(120, 1), SimulatedTestExecutor.parse("fix=0,failing=10", 3), 4);
+
+        List<List<Evaluation>> populations = search.populations();
+
+        assertTrue(populations.size() > 2, "generations: " + populations.size());
+        for (int generation = 1; generation < populations.size(); generation++) {
+            List<Evaluation> previous = populations.get(generation - 1);
+            List<Evaluation> elites = previous.subList(0, Math.min(2, previous.size()));
+            assertTrue(populations.get(generation).containsAll(elites), "generation " + generation + " lost an elite");
+        }
+    }
+
+    @Test
+    void neverSpendsMoreThanTheBudget() throws Exception {
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse("fix=0,failing=10,latency=uniform:0-3", 5);
+        Score.ScoreResult baseline = Score.evaluate(executor.run("baseline", null, 5));
+        SearchState state = new SearchState(baseline);
+
+        search(config(37, 2), executor, baseline, state, 8);
+
+        assertEquals(37, state.attempts());
+        assertEquals(37, executor.runs() - 1);
+    }
+
+    @Test
+    void crossoverOnlyPairsImprovers() throws Exception {
+        // Assigning a good line removes a failure; touching a bad line adds a hundred. An individual improves on the
+        // original exactly when it leaves every bad line alone, so any child with a non-improver parent scores worse.
+        Config config = config(150, 11);
+        Score.ScoreResult baseline = Score.evaluate(failing(GOOD.size() * 2));
+        SearchState state = new SearchState(baseline);
+        AtomicInteger crossovers = new AtomicInteger();
+        List<String> worse = new CopyOnWriteArrayList<>();
+        BlockingQueue<TestSlot> slots = new ArrayBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            slots.add(candidate -> failing(GOOD.size() * 2 - changed(candidate.source(), GOOD) + 100 * changed(candidate.source(), BAD)));
+        }
+        CandidateEvaluator evaluator = new CandidateEvaluator(config, slots, state, patched -> "");
+        evaluator.addListener(evaluation -> {
+            if (evaluation.patch().origin().equals(CrossoverOperator.ORIGIN)) {
+                crossovers.incrementAndGet();
+                if (evaluation.score().score() >= baseline.score()) {
+                    worse.add(evaluation.patch().description());
+                }
+            }
+        });
+
+        run(config, evaluator, baseline, state);
+
+        assertTrue(crossovers.get() > 0, "no crossover was bred");
+        assertEquals(List.of(), worse);
+    }
+
+    @Test
+    void aFixedSeedReproducesTheGenerations() throws Exception {
+        List<List<String>> first = sources(search(config(80, 7), SimulatedTestExecutor.parse("fix=0,failing=10", 7), 1));
+        List<List<String>> second = sources(search(config(80, 7), SimulatedTestExecutor.parse("fix=0,failing=10", 7), 1));
+
+        assertTrue(first.size() > 2, "generations: " + first.size());
+        assertEquals(first, second);
+    }
+
+    private Config config(int budget, long seed) throws Exception {
+        Path target = tempDir.resolve("module.py");
+        Files.writeString(target, ORIGINAL);
+        return Config.parse(new String[]{"--target", target.toString(), "--tests", "true", "--budget", Integer.toString(budget),
+                "--search", "genetic", "--population", "10", "--generations", "8", "--elite", "2", "--seed", Long.toString(seed)});
+    }
+
+    private static GeneticSearch search(Config config, SimulatedTestExecutor executor, int slots) throws Exception {
+        Score.ScoreResult baseline = Score.evaluate(executor.run("baseline", null, 5));
+        return search(config, executor, baseline, new SearchState(baseline), slots);
+    }
+
+    private static GeneticSearch search(Config config, SimulatedTestExecutor executor, Score.ScoreResult baseline, SearchState state,
+                                        int slots) throws Exception {
+        BlockingQueue<TestSlot> idle = new ArrayBlockingQueue<>(slots);
+        for (int i = 0; i < slots; i++) {
+            idle.add(executor.slot(5));
+        }
+        return run(config, new CandidateEvaluator(config, idle, state, patched -> ""), baseline, state);
+    }
+
+    private static GeneticSearch run(Config config, CandidateEvaluator evaluator, Score.ScoreResult baseline, SearchState state)
+            throws Exception {
+        List<MutationOperator> operators = List.of(new AssignOperator());
+        OperatorBandit bandit = new OperatorBandit();
+        GeneticSearch search = new GeneticSearch(config, operators, new CandidateGenerator(operators, bandit), evaluator, state,
+                bandit, new CandidateValidator(ORIGINAL));
+        MutationContext context = new MutationContext(new Random(config.getSeed()), new FaultDatabase(), new FixDatabase());
+        search.run(ORIGINAL, context, baseline);
+        return search;
+    }
+
+    private static TestRunResult failing(int failed) {
+        return new TestRunResult(failed == 0 ? 0 : 1, failed + " failed, 3 passed in 0.01s\n", "");
+    }
+
+    private static int changed(String source, List<String> names) {
+        int changed = 0;
+        for (String line : source.split("\n")) {
+            if (names.contains(line.substring(0, 2)) && !line.endsWith("= 0")) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static List<List<String>> sources(GeneticSearch search) {
+        List<List<String>> generations = new ArrayList<>();
+        for (List<Evaluation> population : search.populations()) {
+            generations.add(population.stream().map(evaluation -> evaluation.patch().source()).toList());
+        }
+        return generations;
+    }
+
+    /**
+     * Assigns 1, 2 or 3 to any one line.
+     */
+    private static final class AssignOperator implements MutationOperator {
+        @Override
+        public List<Patch> generate(String originalSource, MutationContext context, int limit) {
+            String[] lines = originalSource.split("\n");
+            List<Patch> mutants = new ArrayList<>();
+            for (int i = 0; i < lines.length && mutants.size() < limit; i++) {
+                String name = lines[i].substring(0, 2);
+                for (int value = 1; value <= 3 && mutants.size() < limit; value++) {
+                    if (lines[i].endsWith("= " + value)) {
+                        continue;
+                    }
+                    String[] mutated = lines.clone();
+                    mutated[i] = name + " = " + value;
+                    mutants.add(new Patch(String.join("\n", mutated) + "\n", name + " = " + value));
+                }
+            }
+            return mutants;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void histogramPercentilesStayWithinTheBucketResolution() {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(1_000, histogram.min());
+        assertEquals(100_000_000, histogram.max());
+        assertWithin(50_000_000, histogram.percentile(0.50));
+        assertWithin(90_000_000, histogram.percentile(0.90));
+        assertWithin(99_000_000, histogram.percentile(0.99));
+        assertEquals(100_000_000, histogram.percentile(1.0));
+    }
+
+    @Test
+    void everyValueLandsInTheBucketThatBoundsIt() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong(0, Long.MAX_VALUE >> random.nextInt(63));
+            int bucket = Metrics.Histogram.index(value);
+            assertTrue(value <= Metrics.Histogram.upperBound(bucket), "value " + value);
+            assertTrue(bucket == 0 || value > Metrics.Histogram.upperBound(bucket - 1), "value " + value);
+        }
+    }
+
+    @Test
+    void operatorTimingsAddUpToThePhaseTotal() {
+        Metrics metrics = new Metrics();
+        metrics.record("test_run", "ArithmeticOperator", 2_000_000);
+        metrics.record("test_run", "CompareOperator", 4_000_000);
+        metrics.record("test_run", "CompareOperator", 6_000_000);
+        metrics.add("candidates_evaluated", "CompareOperator", 2);
+        metrics.add("candidates_evaluated", "ArithmeticOperator", 1);
+        metrics.increment("slots_lost");
+        metrics.gauge("attempts", () -> 3);
+
+        assertEquals(3, metrics.timer("test_run").count());
+        assertEquals(12_000_000, metrics.timer("test_run").sum());
+        assertEquals(2, metrics.timer("test_run", "CompareOperator").count());
+        assertEquals(3, metrics.counter("candidates_evaluated"));
+
+        Map<String, Object> json = Json.parseObject(metrics.toJson());
+        assertTrue(json.containsKey("timers"), json.toString());
+        String text = metrics.toJson();
+        assertTrue(text.contains("\"test_run\": {\"count\": 3"), text);
+        assertTrue(text.contains("\"CompareOperator\": {\"count\": 2"), text);
+        assertTrue(text.contains("\"slots_lost\": 1"), text);
+        assertTrue(text.contains("\"attempts\": 3"), text);
+    }
+
+    @Test
+    void prometheusExportHasCumulativeBucketsAndNoDoubleCounting() throws Exception {
+        Metrics metrics = new Metrics();
+        metrics.record("test_run", "CompareOperator", 3_000_000);
+        metrics.record("test_run", "CompareOperator", 300_000_000);
+        metrics.record("baseline", 2_000_000_000L);
+        metrics.increment("best_improved");
+
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE par_phase_duration_seconds histogram"), text);
+        assertTrue(text.contains("par_phase_duration_seconds_bucket{phase=\"test_run\",operator=\"CompareOperator\",le=\"0.005\"} 1\n"), text);
+        assertTrue(text.contains("par_phase_duration_seconds_bucket{phase=\"test_run\",operator=\"CompareOperator\",le=\"0.5\"} 2\n"), text);
+        assertTrue(text.contains("par_phase_duration_seconds_count{phase=\"baseline\"} 1\n"), text);
+        assertFalse(text.contains("par_phase_duration_seconds_count{phase=\"test_run\"}"), text);
+        assertTrue(text.contains("par_events_total{event=\"best_improved\"} 1\n"), text);
+
+        Path file = tempDir.resolve("textfile").resolve("par.prom");
+        metrics.writePrometheus(file);
+        assertEquals(text, Files.readString(file));
+        assertFalse(Files.exists(tempDir.resolve("textfile").resolve("par.prom.tmp")));
+    }
+
+    @Test
+    void periodicExportWritesTheFinalValuesOnClose() throws Exception {
+        Metrics metrics = new Metrics();
+        Path file = tempDir.resolve("par.prom");
+        Metrics.Export export = metrics.exportPeriodically(file, 60);
+        metrics.increment("fixes");
+        export.close();
+
+        assertTrue(Files.readString(file).contains("par_events_total{event=\"fixes\"} 1\n"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.04, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,68 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MutantSchemataTest {
+    private static final String SOURCE = String.join("\n",
+            "def clamp(x, limit):",
+            "    if x > limit:",
+            "        return limit - 1",
+            "    return x",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void switchSelectsTheSameBehaviourAsEachMutant() throws Exception {
+        Patch minus = new Patch(SOURCE.replace("limit - 1", "limit + 1"), "arith", "ArithmeticOperator");
+        Patch negated = new Patch(SOURCE.replace("if x > limit:", "if not (x > limit):"), "neg", "IfNegationOperator");
+        Patch deleted = new Patch(SOURCE.replace("    return x\n", ""), "del", "StatementDeleteOperator");
+
+        MutantSchemata schemata = MutantSchemata.build(SOURCE, List.of(minus, negated, deleted));
+
+        assertNotNull(schemata);
+        assertEquals(2, schemata.size());
+        assertNull(schemata.idOf(deleted.source()));
+        Files.writeString(tempDir.resolve("clamp.py"), schemata.metaSource());
+        String probe = "python3 -c \"import clamp; print(clamp.clamp(5, 3), clamp.clamp(1, 3))\"";
+        assertEquals("2 1", run(probe, ""));
+        assertEquals("4 1", run(probe, schemata.idOf(minus.source()).toString()));
+        assertEquals("5 2", run(probe, schemata.idOf(negated.source()).toString()));
+    }
+
+    @Test
+    void onlyCompleteLogicalLinesAreEligible() {
+        String[] lines = {
+                "x = (1 +",
+                "     2)",
+                "doc = \"\"\"",
+                "a - b",
+                "\"\"\"",
+                "y = x - 1  # (",
+                "z = x + \\",
+                "    1",
+                "@decorator",
+        };
+
+        assertArrayEquals(new boolean[]{false, false, false, false, false, true, false, false, false},
+                MutantSchemata.eligibleLines(lines));
+    }
+
+    private String run(String command, String mutant) throws Exception {
+        TestRunResult result = ProcessUtils.runCommand(command, tempDir, 30, Map.of(MutantSchemata.SWITCH, mutant));
+        assertEquals(0, result.exitCode(), result.stderr());
+        return result.stdout().trim();
+    }
+}
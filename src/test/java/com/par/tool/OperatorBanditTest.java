@@ -0,0 +1,98 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperatorBanditTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void triesUnseenArmsBeforeExploitingKnownOnes() {
+        OperatorBandit bandit = new OperatorBandit();
+        bandit.record("good", 1.0);
+
+        assertEquals("fresh", bandit.select(List.of("good", "fresh")));
+    }
+
+    @Test
+    void abandonedPullsAreSettledWithoutCountingAsPulls() {
+        OperatorBandit bandit = new OperatorBandit();
+        bandit.record("good", 1.0);
+        bandit.markPending("fresh");
+        assertEquals("good", bandit.select(List.of("good", "fresh")));
+
+        bandit.abandon("fresh");
+
+        assertEquals("fresh", bandit.select(List.of("good", "fresh")));
+    }
+
+    @Test
+    void favoursArmsThatKeepReducingFailures() {
+        OperatorBandit bandit = new OperatorBandit();
+        for (int i = 0; i < 30; i++) {
+            bandit.record("good", 0.9);
+            bandit.record("bad", 0.0);
+        }
+
+        assertEquals("good", bandit.select(List.of("bad", "good")));
+    }
+
+    @Test
+    void rewardsPenaliseTimeoutsButNotTestOutputThatMentionsSyntaxErrors() {
+        Score.ScoreResult baseline = new Score.ScoreResult(2, 2, 0, 1, "failed=2");
+        Patch patch = new Patch("x = 1", "demo");
+
+        TestRunResult timeout = new TestRunResult(124, "", "TIMEOUT");
+        // The candidate compiled, or it would not have been run; this is a test expecting a SyntaxError that failed.
+        TestRunResult syntax = new TestRunResult(1, "E   Failed: DID NOT RAISE <class 'SyntaxError'>\n2 failed, 1 passed", "");
+        TestRunResult improved = new TestRunResult(1, "1 failed, 2 passed", "");
+
+        assertEquals(0.0, OperatorBandit.reward(baseline, new Evaluation(patch, timeout, Score.evaluate(timeout), 1)));
+        assertEquals(0.2, OperatorBandit.reward(baseline, new Evaluation(patch, syntax, Score.evaluate(syntax), 2)), 1e-9);
+        assertEquals(0.75, OperatorBandit.reward(baseline, new Evaluation(patch, improved, Score.evaluate(improved), 3)), 1e-9);
+    }
+
+    @Test
+    void persistedStatisticsWarmStartTheNextRun() throws Exception {
+        Path file = tempDir.resolve("stats.json");
+        OperatorBandit first = new OperatorBandit();
+        first.record("PatternBasedOperator/NoneEquality", 1.0);
+        first.record("StatementDeleteOperator", 0.0);
+        first.save(file);
+
+        OperatorBandit second = new OperatorBandit();
+        second.load(file);
+
+        assertEquals(1.0, second.expectedReward("PatternBasedOperator"), 1e-9);
+        assertEquals(1.0, second.expectedReward("PatternBasedOperator/NoneEquality"), 1e-9);
+        assertEquals(0.0, second.expectedReward("StatementDeleteOperator"), 1e-9);
+        assertTrue(second.expectedReward("ArithmeticOperator") > 0.0);
+    }
+
+    @Test
+    void runsSharingAFileKeepEachOthersStatistics() throws Exception {
+        Path file = tempDir.resolve("stats.json");
+        OperatorBandit first = new OperatorBandit();
+        OperatorBandit second = new OperatorBandit();
+        first.load(file);
+        second.load(file);
+        first.record("CompareOperator", 1.0);
+        second.record("StatementDeleteOperator", 0.0);
+        first.save(file);
+        second.save(file);
+
+        Map<?, ?> arms = (Map<?, ?>) Json.parseObject(Files.readString(file)).get("arms");
+        assertEquals(Set.of("CompareOperator", "StatementDeleteOperator"), arms.keySet());
+        assertEquals(1.0, ((Number) ((Map<?, ?>) arms.get("CompareOperator")).get("pulls")).doubleValue());
+    }
+}
@@ -0,0 +1,61 @@
+package com.par.tool;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRunsAndImprovementsAreRecorded() throws Exception {
+        Path module = tempDir.resolve("module.py");
+        Files.writeString(module, "x = 1\n");
+        Path recordingFile = tempDir.resolve("par.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.par.tool.ProcessStarted");
+            recording.enable("com.par.tool.ProcessExited").withThreshold(Duration.ZERO);
+            recording.enable("com.par.tool.FileWritten").withThreshold(Duration.ZERO);
+            recording.enable("com.par.tool.BestImproved").withThreshold(Duration.ZERO);
+            recording.start();
+
+            LocalTestSlot slot = new LocalTestSlot(tempDir, Path.of("module.py"), "x = 1\n", "echo '1 passed'", 30);
+            TestRunResult run = slot.run(new Patch("x = 2\n", "tweak", "SmallIntTweakerOperator"));
+            SearchState state = new SearchState(new Score.ScoreResult(3, 3, 0, 0, "failed=3"));
+            state.offer(new Patch("x = 2\n", "tweak", "SmallIntTweakerOperator"), Score.evaluate(run), patched -> "");
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<String> names = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList());
+        assertTrue(names.contains("com.par.tool.ProcessStarted"), names.toString());
+        assertEquals(2, names.stream().filter("com.par.tool.FileWritten"::equals).count(), names.toString());
+
+        RecordedEvent exited = events.stream().filter(event -> event.getEventType().getName().equals("com.par.tool.ProcessExited"))
+                .findFirst().orElseThrow();
+        assertEquals(0, exited.getInt("exitCode"));
+        assertFalse(exited.getBoolean("timedOut"));
+        assertTrue(exited.getLong("stdoutBytes") > 0);
+
+        RecordedEvent improved = events.stream().filter(event -> event.getEventType().getName().equals("com.par.tool.BestImproved"))
+                .findFirst().orElseThrow();
+        assertEquals(3, improved.getInt("previousScore"));
+        assertEquals(0, improved.getInt("score"));
+        assertEquals("SmallIntTweakerOperator", improved.getString("operator"));
+    }
+}
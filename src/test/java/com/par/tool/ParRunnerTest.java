@@ -0,0 +1,67 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParRunnerTest {
+    private static final Path SYSTEM_TEMP = Path.of(System.getProperty("java.io.tmpdir"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void alreadyPassingBaselineStopsStartupAndCleansUp() throws Exception {
+        Set<Path> before = workingCopies();
+
+        Map<String, Object> summary = run("failing=0", "--budget", "20");
+
+        assertEquals("already_passing", summary.get("status"));
+        assertEquals(before, workingCopies());
+    }
+
+    @Test
+    void enumerateRunWritesItsSummaryAndRemovesTheWorkerCopies() throws Exception {
+        Set<Path> before = workingCopies();
+
+        Map<String, Object> summary = run("fix=0.2", "--budget", "40", "--threads", "3", "--schemata");
+
+        assertEquals("fixed", summary.get("status"));
+        assertTrue(Files.exists(tempDir.resolve("results/best_patch.diff")));
+        assertEquals(before, workingCopies());
+    }
+
+    private Map<String, Object> run(String simulation, String... options) throws Exception {
+        SyntheticProject project = SyntheticProject.generate(tempDir.resolve("calc"), 3, 60, 6, 0, SyntheticProject.Fault.COMPARE);
+        List<String> args = new ArrayList<>(List.of("--project", project.root().toString(),
+                "--target", project.target().toString(), "--tests", "unused", "--simulate", simulation,
+                "--operator-stats", tempDir.resolve("operator_stats.json").toString()));
+        args.addAll(List.of(options));
+        Path results = tempDir.resolve("results");
+
+        new ParRunner(Config.parse(args.toArray(new String[0])), results).run();
+
+        return Json.parseObject(Files.readString(results.resolve("summary.json")));
+    }
+
+    /**
+     * The per-run temporary roots, which hold the working copy and the worker copies.
+     */
+    private static Set<Path> workingCopies() throws IOException {
+        try (Stream<Path> entries = Files.list(SYSTEM_TEMP)) {
+            return entries.filter(path -> path.getFileName().toString().startsWith("apr_java_")).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParallelismPlannerTest {
+    private static final Patch CANDIDATE = new Patch("x = 1", "set 1", "ArithmeticOperator");
+
+    private final Map<String, String> lastEnvironment = new ConcurrentHashMap<>();
+
+    @Test
+    void manyCandidatesAndAShortSuiteGetEverySlot() {
+        assertEquals(new ParallelismPlanner.Plan(8, 1), ParallelismPlanner.plan(8, 2.0, 50, 100));
+    }
+
+    @Test
+    void fewCandidatesAndALongSuiteSpreadEachRun() {
+        assertEquals(new ParallelismPlanner.Plan(1, 8), ParallelismPlanner.plan(8, 60.0, 200, 1));
+        assertEquals(new ParallelismPlanner.Plan(2, 4), ParallelismPlanner.plan(8, 60.0, 200, 2));
+        // A suite of two tests cannot use more than two processes.
+        assertEquals(new ParallelismPlanner.Plan(4, 2), ParallelismPlanner.plan(8, 60.0, 2, 4));
+    }
+
+    @Test
+    void theTailOfTheQueueSpreadsOverFreedSlots() throws Exception {
+        AtomicInteger remaining = new AtomicInteger(100);
+        ParallelismPlanner planner = planner(8, 10.0, 0, remaining);
+
+        TestSlot first = planner.acquire(0);
+        first.run(CANDIDATE);
+        assertEquals("", lastEnvironment.get(ParallelismPlanner.SUITE_FLAG));
+        assertEquals("1", lastEnvironment.get(ParallelismPlanner.SUITE_WORKERS));
+
+        remaining.set(1);
+        TestSlot last = planner.acquire(0);
+        remaining.set(0);
+        last.run(CANDIDATE);
+        // The first run still counts as one of the two candidates left.
+        assertEquals("-n 4", lastEnvironment.get(ParallelismPlanner.SUITE_FLAG));
+        assertNull(planner.acquire(0));
+
+        planner.release(first);
+        planner.release(last);
+        planner.acquire(0).run(CANDIDATE);
+        assertEquals("8", lastEnvironment.get(ParallelismPlanner.SUITE_WORKERS));
+    }
+
+    @Test
+    void fixedSuiteWorkersDivideTheSlots() throws Exception {
+        ParallelismPlanner planner = planner(8, 1.0, 4, new AtomicInteger(100));
+
+        assertNotNull(planner.acquire(0));
+        assertNotNull(planner.acquire(0));
+        assertNull(planner.acquire(20));
+        assertEquals("--workers=4", ParallelismPlanner.flag("--workers={n}", 4));
+        assertEquals("", ParallelismPlanner.flag("--workers={n}", 1));
+    }
+
+    @Test
+    void aDrainedInnerPoolGivesNoSlotAndKeepsNoPlace() throws Exception {
+        LinkedBlockingQueue<TestSlot> inner = new LinkedBlockingQueue<>();
+        ParallelismPlanner planner = new ParallelismPlanner(SlotPool.of(inner), 2, 1.0, 200, 2, "-n {n}",
+                () -> 100, new Metrics());
+
+        assertNull(planner.acquire(20));
+        assertNull(planner.acquire(20));
+
+        // One candidate at a time: a place leaked by the failed attempts would keep this slot from being handed out.
+        inner.add(candidate -> new TestRunResult(0, "", ""));
+        assertNotNull(planner.acquire(50));
+    }
+
+    private ParallelismPlanner planner(int capacity, double suiteSeconds, int fixedSuiteWorkers, AtomicInteger remaining) {
+        LinkedBlockingQueue<TestSlot> slots = new LinkedBlockingQueue<>();
+        for (int i = 0; i < capacity; i++) {
+            slots.add(new TestSlot() {
+                @Override
+                public TestRunResult run(Patch candidate) {
+                    return run(candidate, Map.of());
+                }
+
+                @Override
+                public TestRunResult run(Patch candidate, Map<String, String> environment) {
+                    lastEnvironment.clear();
+                    lastEnvironment.putAll(environment);
+                    return new TestRunResult(0, "", "");
+                }
+            });
+        }
+        return new ParallelismPlanner(SlotPool.of(slots), capacity, suiteSeconds, 200, fixedSuiteWorkers, "-n {n}",
+                remaining::get, new Metrics());
+    }
+}
@@ -1,13 +1,25 @@
 package com.par.tool;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 class ProcessUtilsTest {
+    @TempDir
+    Path tempDir;
+
     @Test
     void runCommandCapturesStdoutAndExitCode() throws Exception {
         TestRunResult result = ProcessUtils.runCommand(printCommand("hello"), Path.of("."), 5);
@@ -30,6 +42,68 @@ class ProcessUtilsTest {
         assertTrue(result.stderr().contains("TIMEOUT"));
     }
 
+    @Test
+    void aTimeoutKillsTheWholeProcessTree() throws Exception {
+        assumeFalse(isWindows());
+        Path pidFile = tempDir.resolve("child.pid");
+
+        TestRunResult result = ProcessUtils.runCommand(backgroundSleepCommand(pidFile), tempDir, 1);
+
+        assertEquals(124, result.exitCode());
+        assertTrue(exits(Long.parseLong(Files.readString(pidFile).trim())), "the backgrounded child outlived the timeout");
+    }
+
+    @Test
+    void anInterruptedRunKillsTheWholeProcessTree() throws Exception {
+        assumeFalse(isWindows());
+        Path pidFile = tempDir.resolve("child.pid");
+        CompletableFuture<Throwable> outcome = new CompletableFuture<>();
+        Thread runner = Thread.ofVirtual().start(() -> {
+            try {
+                ProcessUtils.runCommand(backgroundSleepCommand(pidFile), tempDir, 60);
+                outcome.complete(null);
+            } catch (Throwable ex) {
+                outcome.complete(ex);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(pidFile.resolveSibling("child.pid.done")) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        runner.interrupt();
+
+        assertInstanceOf(InterruptedException.class, outcome.get(10, TimeUnit.SECONDS));
+        assertTrue(exits(Long.parseLong(Files.readString(pidFile).trim())), "the backgrounded child outlived the interrupt");
+    }
+
+    @Test
+    void workerEnvironmentIsInjectedAndTemplatedIntoTheCommand() throws Exception {
+        assumeFalse(isWindows());
+        Path tmp = tempDir.resolve("worker_2").resolve("tmp");
+        Files.createDirectories(tmp);
+        Files.writeString(tmp.resolve("stale.db"), "left behind");
+        WorkerEnvironment worker = new WorkerEnvironment(2, tmp, 30000, 5, null);
+
+        TestRunResult result = ProcessUtils.runCommand(
+                "echo \"id=$PAR_WORKER_ID port={port}/$PAR_PORT_BASE count={port_count} tmp=$TMPDIR arg={tmpdir} w={worker_id}\"; ls \"$TMPDIR\"",
+                tempDir, 5, Map.of(), worker);
+
+        assertEquals(0, result.exitCode());
+        assertTrue(result.stdout().contains("id=2 port=30010/30010 count=5 tmp=" + tmp + " arg=" + tmp + " w=2"), result.stdout());
+        assertFalse(result.stdout().contains("stale.db"), result.stdout());
+    }
+
+    @Test
+    void cpuListsSplitIntoDisjointWorkerSets() {
+        List<Integer> cpus = ProcessUtils.parseCpuList("0-3,8-9\n");
+        assertEquals(List.of(0, 1, 2, 3, 8, 9), cpus);
+
+        assertEquals(List.of("0,1", "2,3", "8,9"), ProcessUtils.cpuSets(cpus, 3));
+        assertEquals(List.of("0,1", "2,3,8"), ProcessUtils.cpuSets(List.of(0, 1, 2, 3, 8), 2));
+        assertEquals(List.of("0", "1", "0"), ProcessUtils.cpuSets(List.of(0, 1), 3));
+    }
+
     private static boolean isWindows() {
         return System.getProperty("os.name").toLowerCase().contains("win");
     }
@@ -45,6 +119,28 @@ class ProcessUtilsTest {
         return "sh -c 'echo " + message + " 1>&2; exit 3'";
     }
 
+    /**
+     * Starts {@code sleep} in the background, writes its pid to {@code pidFile} (and then marks it complete in a
+     * sibling {@code .done} file), and waits for it, the way a test runner waits on its own workers.
+     */
+    private static String backgroundSleepCommand(Path pidFile) {
+        return "sleep 60 & echo $! > '" + pidFile + "'; echo done > '" + pidFile + ".done'; wait";
+    }
+
+    /**
+     * Whether {@code pid} is gone, or at least no longer running, within a few seconds.
+     */
+    private static boolean exits(long pid) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
     private static String sleepCommand(int seconds) {
         if (isWindows()) {
             return "powershell -Command \"Start-Sleep -Seconds " + seconds + "\"";
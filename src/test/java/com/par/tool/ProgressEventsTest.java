@@ -0,0 +1,127 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProgressEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesOneJsonObjectPerEventAndAFinalProgressReport() throws Exception {
+        Path file = tempDir.resolve("events.jsonl");
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        Score.ScoreResult baseline = new Score.ScoreResult(4, 4, 0, 6, "failed=4, errors=0, passed=6");
+        Score.ScoreResult better = new Score.ScoreResult(1, 1, 0, 9, "failed=1, errors=0, passed=9");
+        Patch patch = new Patch("x = 2\n", "tweak \"x\"", "SmallIntTweakerOperator");
+
+        try (ProgressEvents progress = new ProgressEvents(new PrintStream(console, true, StandardCharsets.UTF_8), file, 10, 60)) {
+            progress.runStarted(baseline, 2, "enumerate");
+            progress.workerLeased(1);
+            progress.attempt(1, patch, new TestRunResult(1, "", ""), better, 2_000_000);
+            progress.workerReleased();
+            progress.bestImproved(1, patch, 4, better);
+            progress.attemptFailed(2, patch, "launch failed", 1_000_000);
+            progress.flush();
+            assertEquals("[1/10] tweak \"x\" -> exit=1 score=1 summary=failed=1, errors=0, passed=9\n"
+                    + "[2/10] tweak \"x\" -> failed: launch failed\n", console.toString(StandardCharsets.UTF_8));
+            progress.runFinished("improved", "budget_exhausted", 2, better);
+        }
+
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            events.add(Json.parseObject(line));
+        }
+        List<Object> types = events.stream().map(event -> event.get("type")).toList();
+        assertEquals(List.of("run_started", "attempt", "best", "attempt_failed", "run_finished", "progress"), types);
+        assertEquals("tweak \"x\"", events.get(1).get("description"));
+        assertEquals(4.0, events.get(2).get("previous_score"));
+        assertEquals("budget_exhausted", events.get(4).get("stop_reason"));
+
+        Map<String, Object> progress = events.get(5);
+        assertEquals(2.0, progress.get("attempts"));
+        assertEquals(1.0, progress.get("best_score"));
+        assertEquals(2.0, progress.get("workers"));
+        assertEquals(0.0, progress.get("busy_workers"));
+        assertTrue((Double) progress.get("eta_seconds") >= 0, progress.toString());
+    }
+
+    @Test
+    void consoleOnlyStreamsRestartAfterGoingIdle() throws Exception {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        ProgressEvents progress = new ProgressEvents(new PrintStream(console, true, StandardCharsets.UTF_8), null, 3, 1);
+        Patch patch = new Patch("x = 2\n", "tweak", "SmallIntTweakerOperator");
+
+        progress.fixFound(1, patch);
+        progress.flush();
+        Thread.sleep(1_500);
+        progress.reassigned(2, patch, "worker gone");
+        progress.flush();
+        progress.close();
+
+        assertEquals("🎉 Found a full fix!" + System.lineSeparator() + "[2/3] tweak -> reassigning: worker gone\n",
+                console.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aPipeWithoutAReaderHoldsUpNeitherTheConsoleNorFlush() throws Exception {
+        Path fifo = tempDir.resolve("events.fifo");
+        assumeTrue(new ProcessBuilder("mkfifo", fifo.toString()).start().waitFor() == 0, "mkfifo unavailable");
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        Patch patch = new Patch("x = 2\n", "tweak", "SmallIntTweakerOperator");
+        Score.ScoreResult score = new Score.ScoreResult(1, 1, 0, 9, "failed=1, errors=0, passed=9");
+        ProgressEvents progress = new ProgressEvents(new PrintStream(console, true, StandardCharsets.UTF_8), fifo, 3, 60);
+
+        long started = System.nanoTime();
+        progress.attempt(1, patch, new TestRunResult(1, "", ""), score, 1_000_000);
+        progress.fixFound(1, patch);
+        progress.flush();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000);
+        assertEquals("[1/3] tweak -> exit=1 score=1 summary=failed=1, errors=0, passed=9\n🎉 Found a full fix!"
+                + System.lineSeparator(), console.toString(StandardCharsets.UTF_8));
+
+        CompletableFuture<List<String>> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.readAllLines(fifo);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        progress.close();
+        List<Object> types = read.get(10, TimeUnit.SECONDS).stream().map(line -> Json.parseObject(line).get("type")).toList();
+        assertEquals(List.of("attempt", "fix", "progress"), types);
+    }
+
+    @Test
+    void anInterruptedCloseStopsWithoutWaitingAndKeepsTheFlag() throws Exception {
+        Path fifo = tempDir.resolve("events.fifo");
+        assumeTrue(new ProcessBuilder("mkfifo", fifo.toString()).start().waitFor() == 0, "mkfifo unavailable");
+        ProgressEvents progress = new ProgressEvents(null, fifo, 3, 60);
+        progress.fixFound(1, new Patch("x = 2\n", "tweak", "SmallIntTweakerOperator"));
+
+        long started = System.nanoTime();
+        Thread.currentThread().interrupt();
+        progress.close();
+
+        assertTrue(Thread.interrupted());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000);
+    }
+}
@@ -0,0 +1,52 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class PythonAstServiceTest {
+    // Stands in for a compiler bug: candidates mentioning CRASH kill the helper, and those mentioning HANG stall it.
+    private static final String FAULTY_CHECK = String.join("\n",
+            "_check_syntax = check_syntax",
+            "def check_syntax(source):",
+            "    if 'CRASH' in source:",
+            "        __import__('os')._exit(3)",
+            "    if 'HANG' in source:",
+            "        __import__('time').sleep(600)",
+            "    return _check_syntax(source)",
+            "",
+            "def serve():");
+
+    @Test
+    void aCandidateThatKillsOrStallsTheHelperIsTheOnlyOneRejected() {
+        PythonAstService.HelperPool pool = new PythonAstService.HelperPool(List.of(PythonAstService.PYTHON_CMD, "-c",
+                PythonAstService.SCRIPT.replace("def serve():", FAULTY_CHECK), "serve"), 1, 1_000);
+
+        List<PythonAstService.SourceCheck> checks = pool.inspect(List.of(
+                "x = 1\n", "x = 'CRASH'\n", "x = (\n", "x = 'HANG'\n", "x = 2\n"));
+
+        assertEquals(List.of(true, false, false, false, true), checks.stream().map(PythonAstService.SourceCheck::valid).toList());
+        assertTrue(checks.get(2).error().contains("SyntaxError"), checks.get(2).error());
+        assertTrue(checks.get(1).error().contains("HelperFailure"), checks.get(1).error());
+        // The first helper died on the batch, its replacement on CRASH and the next one on HANG.
+        assertEquals(4, pool.started());
+
+        assertTrue(pool.inspect(List.of("y = 3\n")).get(0).valid());
+        assertEquals(4, pool.started());
+    }
+
+    @Test
+    void aHelperThatCannotCheckAnythingCountsAsMissing() {
+        PythonAstService.HelperPool pool = new PythonAstService.HelperPool(List.of(PythonAstService.PYTHON_CMD, "-c",
+                "import sys; sys.exit(1)"), 1, 1_000);
+
+        assertNull(pool.inspect(List.of("x = 1\n", "x = 2\n")));
+    }
+}
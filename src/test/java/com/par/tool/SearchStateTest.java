@@ -0,0 +1,49 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SearchStateTest {
+    private static final SearchState.DiffRenderer NO_DIFF = patched -> "";
+
+    @Test
+    void aPlateauStopsTheSearchOnlyAfterAWholeWindowWithoutImprovement() {
+        SearchState state = new SearchState(score(5), new Metrics(), System.nanoTime(), 0, 3);
+        Patch patch = new Patch("x = 1\n", "tweak", "SmallIntTweakerOperator");
+
+        state.offer(patch, score(6), NO_DIFF);
+        state.offer(patch, score(5), NO_DIFF);
+        state.offer(patch, score(4), NO_DIFF);
+        state.offer(patch, score(4), NO_DIFF);
+        state.offer(patch, score(7), NO_DIFF);
+        assertNull(state.stopReason());
+
+        state.offer(patch, score(4), NO_DIFF);
+        assertEquals(SearchState.PLATEAU, state.stopReason());
+        assertEquals(SearchState.PLATEAU, state.stoppedBy());
+    }
+
+    @Test
+    void theTimeBudgetKeepsBackTheTimeOfATypicalAttempt() {
+        Metrics metrics = new Metrics();
+        long start = System.nanoTime();
+        SearchState state = new SearchState(score(5), metrics, start, TimeUnit.MINUTES.toNanos(1), 0);
+        assertNull(state.stopReason());
+
+        metrics.record("baseline", TimeUnit.SECONDS.toNanos(30));
+        assertNull(state.stopReason());
+        for (int i = 0; i < 10; i++) {
+            metrics.record("test_run", "CompareOperator", TimeUnit.SECONDS.toNanos(61));
+        }
+        assertEquals(SearchState.TIME_BUDGET, state.stopReason());
+        assertNull(new SearchState(score(5), metrics, start, 0, 0).stopReason());
+    }
+
+    private static Score.ScoreResult score(int value) {
+        return new Score.ScoreResult(value, value, 0, 10 - value, "failed=" + value);
+    }
+}
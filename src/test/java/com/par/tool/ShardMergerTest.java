@@ -0,0 +1,72 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardMergerTest {
+    private static final Score.ScoreResult BASELINE = new Score.ScoreResult(3, 3, 0, 1, "failed=3");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void slicesAreDisjointAndCoverTheSequence() {
+        List<Integer> sequence = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            sequence.add(i);
+        }
+        List<Integer> union = new ArrayList<>();
+        for (int shard = 1; shard <= 4; shard++) {
+            union.addAll(ShardResult.slice(sequence, shard, 4));
+        }
+        union.sort(null);
+
+        assertEquals(sequence, union);
+    }
+
+    @Test
+    void mergePicksTheFittestShardAndSumsTheWork() throws Exception {
+        Path dir = tempDir.resolve("shards");
+        shard(1, 3, new Score.ScoreResult(1, 1, 0, 3, "failed=1"), "one = 1\n", 10, Map.of("StatementDeleteOperator", 2)).write(dir.resolve(ShardResult.fileName(1, 3)));
+        shard(2, 3, new Score.ScoreResult(1, 1, 0, 4, "failed=1"), "two = 2\n", 12, Map.of("StatementDeleteOperator", 2)).write(dir.resolve(ShardResult.fileName(2, 3)));
+        shard(3, 3, BASELINE, null, 9, Map.of("StatementDeleteOperator", 2)).write(dir.resolve(ShardResult.fileName(3, 3)));
+
+        Path out = tempDir.resolve("out");
+        ShardMerger.run(new String[]{"--out", out.toString(), dir.toString()});
+
+        // Same score and failures, so more passing tests wins.
+        assertEquals("two = 2\n", Files.readString(out.resolve("best_patch.py")));
+        assertEquals("--- a\n+++ b\n", Files.readString(out.resolve("best_patch.diff")));
+        Map<String, Object> summary = Json.parseObject(Files.readString(out.resolve("summary.json")));
+        assertEquals("improved", summary.get("status"));
+        assertEquals(31.0, summary.get("tried"));
+        assertEquals(Map.of("StatementDeleteOperator", 2.0), summary.get("rejected_invalid"));
+    }
+
+    @Test
+    void mergeRejectsShardsFromDifferentRuns() throws Exception {
+        ShardResult first = shard(1, 2, BASELINE, null, 1, Map.of());
+        ShardResult other = new ShardResult("no_fix", 2, 2, 99L, "hash", 1, BASELINE, BASELINE, 1,
+                null, null, null, List.of(), Map.of(), Map.of());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                ShardMerger.merge(List.of(first, other), tempDir));
+        assertTrue(ex.getMessage().contains("different run"));
+    }
+
+    private static ShardResult shard(int index, int count, Score.ScoreResult best, String source, int tried, Map<String, Integer> invalid) {
+        return new ShardResult(source == null ? "no_fix" : "improved", index, count, 1337L, "hash",
+                1, BASELINE, best, tried, source == null ? null : "shard " + index, source,
+                source == null ? null : "--- a\n+++ b\n", List.of("NullDereference"), invalid, Map.of());
+    }
+}
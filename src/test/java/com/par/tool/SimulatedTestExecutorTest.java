@@ -0,0 +1,162 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class SimulatedTestExecutorTest {
+    @TempDir
+    Path tempDir;
+
+    private PrintStream console;
+
+    @BeforeEach
+    void silenceProgress() {
+        // Tens of thousands of progress lines would dominate the run time.
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreProgress() {
+        System.setOut(console);
+    }
+
+    @Test
+    void tracksTheBestOfManyConcurrentAttempts() throws Exception {
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse("fix=0,tests=50,failing=40", 3);
+        SearchState state = new SearchState(Score.evaluate(executor.run("baseline", null, 5)));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config(20_000), slots(executor, 16), state, patched -> "");
+
+        List<Evaluation> evaluations = evaluator.evaluateAll(candidates(20_000));
+
+        assertEquals(20_000, state.attempts());
+        assertEquals(20_000, evaluations.size());
+        int bestScore = evaluations.stream().mapToInt(evaluation -> evaluation.score().score()).min().orElseThrow();
+        assertEquals(bestScore, state.bestScore().score());
+        // Equally good candidates race for the slot, so any of them may have been kept.
+        assertTrue(evaluations.stream().anyMatch(evaluation -> evaluation.score().score() == bestScore
+                && evaluation.patch().source().equals(state.bestSource())));
+    }
+
+    @Test
+    void neverRunsMoreCandidatesAtOnceThanThereAreSlots() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        BlockingQueue<TestSlot> slots = new ArrayBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            slots.add(candidate -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return new TestRunResult(1, "1 failed, 1 passed in 0.01s\n", "");
+            });
+        }
+        SearchState state = new SearchState(Score.evaluate(new TestRunResult(1, "2 failed in 0.01s\n", "")));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config(200), slots, state, patched -> "");
+
+        assertEquals(200, evaluator.evaluateAll(candidates(200)).size());
+        assertEquals(4, peak.get());
+    }
+
+    @Test
+    void firstFixStopsTheSearchEarly() throws Exception {
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse("fix=0.01,latency=uniform:0-2", 5);
+        SearchState state = new SearchState(Score.evaluate(executor.run("baseline", null, 5)));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config(100_000), slots(executor, 8), state, patched -> "");
+
+        List<Evaluation> evaluations = evaluator.evaluateAll(candidates(100_000));
+
+        assertTrue(state.foundFix());
+        assertTrue(state.attempts() < 100_000, "attempts: " + state.attempts());
+        assertEquals(0, state.bestScore().score());
+        assertTrue(evaluations.stream().anyMatch(evaluation -> evaluation.run().exitCode() == 0
+                && evaluation.patch().source().equals(state.bestSource())));
+    }
+
+    @Test
+    void launchFailuresAreChargedButNotScored() throws Exception {
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse("fix=0,error=0.3", 9);
+        SearchState state = new SearchState(Score.evaluate(executor.run("baseline", null, 5)));
+        CandidateEvaluator evaluator = new CandidateEvaluator(config(2_000), slots(executor, 4), state, patched -> "");
+
+        List<Evaluation> evaluations = evaluator.evaluateAll(candidates(2_000));
+
+        assertEquals(2_000, state.attempts());
+        assertTrue(evaluations.size() < 1_800 && evaluations.size() > 1_000, "scored: " + evaluations.size());
+    }
+
+    @Test
+    void everyDispatchedCandidateIsEitherScoredOrAbandoned() throws Exception {
+        // Launch failures and the attempts cancelled by the first fix must both settle their candidate, and all of them
+        // before evaluateAll returns.
+        SimulatedTestExecutor executor = SimulatedTestExecutor.parse("fix=0.01,error=0.2,latency=uniform:0-2", 13);
+        SearchState state = new SearchState(Score.evaluate(executor.run("baseline", null, 5)));
+        BlockingQueue<TestSlot> slots = slots(executor, 8);
+        CandidateEvaluator evaluator = new CandidateEvaluator(config(100_000), slots, state, patched -> "");
+        AtomicInteger scored = new AtomicInteger();
+        AtomicInteger abandoned = new AtomicInteger();
+        evaluator.addListener(evaluation -> scored.incrementAndGet());
+        evaluator.addAbandonListener(patch -> abandoned.incrementAndGet());
+
+        evaluator.evaluateAll(candidates(100_000));
+
+        assertTrue(state.foundFix());
+        assertTrue(abandoned.get() > 0, "nothing was abandoned");
+        assertEquals(state.attempts(), scored.get() + abandoned.get());
+        assertEquals(8, slots.size());
+    }
+
+    @Test
+    void outcomesDependOnlyOnTheSeedAndRunNumber() throws Exception {
+        SimulatedTestExecutor first = SimulatedTestExecutor.parse("fix=0.2,latency=exp:0.01", 42);
+        SimulatedTestExecutor second = SimulatedTestExecutor.parse("fix=0.2,latency=exp:0.01", 42);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(first.run("x", null, 5).stdout(), second.run("y", null, 5).stdout());
+        }
+        assertThrows(IllegalArgumentException.class, () -> SimulatedTestExecutor.parse("latency=gamma:3", 1));
+        assertThrows(IllegalArgumentException.class, () -> SimulatedTestExecutor.parse("fix=0.7,error=0.5", 1));
+    }
+
+    private Config config(int budget) throws Exception {
+        Path target = tempDir.resolve("module.py");
+        Files.writeString(target, "x = 1\n");
+        return Config.parse(new String[]{"--target", target.toString(), "--tests", "true", "--budget", Integer.toString(budget)});
+    }
+
+    private static BlockingQueue<TestSlot> slots(SimulatedTestExecutor executor, int count) {
+        BlockingQueue<TestSlot> slots = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(executor.slot(5));
+        }
+        return slots;
+    }
+
+    private static Iterator<Patch> candidates(int count) {
+        List<Patch> patches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patches.add(new Patch("x = " + i + "\n", "candidate " + i));
+        }
+        return patches.iterator();
+    }
+}
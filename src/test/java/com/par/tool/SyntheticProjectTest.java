@@ -0,0 +1,45 @@
+package com.par.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticProjectTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void everyFaultFailsItsTestsUntilTheReferenceIsRestored() throws Exception {
+        for (SyntheticProject.Fault fault : SyntheticProject.Fault.values()) {
+            SyntheticProject project = SyntheticProject.generate(tempDir.resolve(fault.label()), 7, 200, 25, 0, fault);
+            String module = Files.readString(project.target());
+            assertTrue(module.split("\n").length >= 200, fault.label());
+
+            TestRunResult buggy = ProcessUtils.runCommand(SyntheticProject.TESTS_COMMAND, project.root(), 30);
+            Score.ScoreResult buggyScore = Score.evaluate(buggy);
+            assertEquals(1, buggy.exitCode(), fault.label() + ": " + buggy.stdout() + buggy.stderr());
+            assertTrue(buggyScore.failed() > 0, fault.label());
+            assertEquals(25, buggyScore.failed() + buggyScore.passed(), fault.label());
+
+            Files.copy(project.root().resolve("tests").resolve("_reference.py"), project.target(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            TestRunResult fixed = ProcessUtils.runCommand(SyntheticProject.TESTS_COMMAND, project.root(), 30);
+            assertEquals(0, fixed.exitCode(), fault.label() + ": " + fixed.stdout() + fixed.stderr());
+        }
+    }
+
+    @Test
+    void generationIsDeterministicForASeed() throws Exception {
+        SyntheticProject first = SyntheticProject.generate(tempDir.resolve("a"), 11, 120, 10, 5, SyntheticProject.Fault.COMPARE);
+        SyntheticProject second = SyntheticProject.generate(tempDir.resolve("b"), 11, 120, 10, 5, SyntheticProject.Fault.COMPARE);
+
+        assertEquals(Files.readString(first.target()), Files.readString(second.target()));
+        assertEquals(Files.readString(first.root().resolve("run_tests.py")), Files.readString(second.root().resolve("run_tests.py")));
+    }
+}